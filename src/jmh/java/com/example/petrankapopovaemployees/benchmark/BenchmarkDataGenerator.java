@@ -0,0 +1,108 @@
+package com.example.petrankapopovaemployees.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Generates synthetic assignment CSV files for the benchmarks.
+ * <p>
+ * Rows are spread uniformly over the employees, projects and a ten-year period. The overlap density is the
+ * average number of assignments active at the same time on one project, which determines how long each
+ * assignment lasts and therefore how many overlaps the sweep has to process.
+ */
+public final class BenchmarkDataGenerator {
+
+    private static final LocalDate PERIOD_START = LocalDate.of(2014, 1, 1);
+    private static final int PERIOD_DAYS = 3653;
+
+    private static final DateTimeFormatter[] FORMATTERS = {
+            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy")
+    };
+
+    /**
+     * Mix of date formats used in the generated files.
+     */
+    public enum DateFormatMix {
+        /** Every date is {@code yyyy-MM-dd}. */
+        ISO,
+        /** Every date is {@code dd-MM-yyyy}. */
+        EUROPEAN,
+        /** Each column has a consistent format, different per column. */
+        PER_COLUMN,
+        /** Every row picks a random format for each date. */
+        RANDOM
+    }
+
+    private BenchmarkDataGenerator() {
+    }
+
+    /**
+     * Generates a CSV file with the four columns EmpID, ProjectID, DateFrom, DateTo.
+     *
+     * @param employees      Number of distinct employees.
+     * @param projects       Number of distinct projects.
+     * @param rows           Number of rows.
+     * @param overlapDensity Average number of concurrently active assignments per project.
+     * @param dateFormatMix  Date formats to use.
+     * @param nullEndRatio   Fraction of rows whose end date is {@code NULL}.
+     * @param sortedByStart  Whether rows are written in order of start date, as the streaming analysis prefers.
+     * @param seed           Seed of the random generator, so that runs are reproducible.
+     * @return The CSV content as UTF-8 bytes.
+     */
+    public static byte[] generateCsv(int employees, int projects, int rows, double overlapDensity,
+                                     DateFormatMix dateFormatMix, double nullEndRatio, boolean sortedByStart,
+                                     long seed) {
+        Random random = new Random(seed);
+        double rowsPerProject = Math.max(1.0, (double) rows / projects);
+        int meanDuration = (int) Math.max(1, Math.min(PERIOD_DAYS, overlapDensity * PERIOD_DAYS / rowsPerProject));
+        StringBuilder csv = new StringBuilder(rows * 32);
+        for (int i = 0; i < rows; i++) {
+            LocalDate from = PERIOD_START.plusDays(sortedByStart ? (long) i * PERIOD_DAYS / rows : random.nextInt(PERIOD_DAYS));
+            LocalDate to = from.plusDays(random.nextInt(2 * meanDuration));
+            csv.append(1 + random.nextInt(employees)).append(',')
+                    .append(1 + random.nextInt(projects)).append(',')
+                    .append(from.format(formatter(dateFormatMix, 0, random))).append(',');
+            if (random.nextDouble() < nullEndRatio) {
+                csv.append("NULL");
+            } else {
+                csv.append(to.format(formatter(dateFormatMix, 1, random)));
+            }
+            csv.append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generates formatted date values in the given mix, for the date parsing benchmarks.
+     *
+     * @param count         Number of values.
+     * @param dateFormatMix Date formats to use; the values belong to a single column.
+     * @param seed          Seed of the random generator.
+     * @return The formatted dates.
+     */
+    public static String[] generateDates(int count, DateFormatMix dateFormatMix, long seed) {
+        Random random = new Random(seed);
+        String[] dates = new String[count];
+        for (int i = 0; i < count; i++) {
+            dates[i] = PERIOD_START.plusDays(random.nextInt(PERIOD_DAYS)).format(formatter(dateFormatMix, 0, random));
+        }
+        return dates;
+    }
+
+    private static DateTimeFormatter formatter(DateFormatMix dateFormatMix, int column, Random random) {
+        switch (dateFormatMix) {
+            case EUROPEAN:
+                return FORMATTERS[2];
+            case PER_COLUMN:
+                return FORMATTERS[column + 1];
+            case RANDOM:
+                return FORMATTERS[random.nextInt(FORMATTERS.length)];
+            default:
+                return FORMATTERS[0];
+        }
+    }
+}
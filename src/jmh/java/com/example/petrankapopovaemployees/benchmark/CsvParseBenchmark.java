@@ -0,0 +1,40 @@
+package com.example.petrankapopovaemployees.benchmark;
+
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing an upload into columnar storage, without any analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParseBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"ISO", "PER_COLUMN", "RANDOM"})
+    public BenchmarkDataGenerator.DateFormatMix dateFormatMix;
+
+    private final EmployeeService employeeService = new EmployeeService();
+    private MockMultipartFile file;
+
+    @Setup
+    public void setUp() {
+        byte[] csv = BenchmarkDataGenerator.generateCsv(10_000, 1_000, rows, 4.0, dateFormatMix, 0.05, false, 1);
+        file = new MockMultipartFile("file", "employees.csv", "text/csv", csv);
+    }
+
+    @Benchmark
+    public AssignmentTable loadAssignmentTable() throws Exception {
+        return employeeService.loadAssignmentTable(file);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.petrankapopovaemployees.benchmark;
+
+import com.example.petrankapopovaemployees.service.DateParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Date parsing per value: the column parser with format detection against the general path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateParseBenchmark {
+
+    private static final int VALUES = 4096;
+
+    @Param({"ISO", "EUROPEAN", "RANDOM"})
+    public BenchmarkDataGenerator.DateFormatMix dateFormatMix;
+
+    private String[] dates;
+    private DateParser columnParser;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        dates = BenchmarkDataGenerator.generateDates(VALUES, dateFormatMix, 1);
+        columnParser = new DateParser();
+    }
+
+    @Benchmark
+    public long columnParser() {
+        return columnParser.parseEpochDay(nextDate());
+    }
+
+    @Benchmark
+    public Object generalPath() {
+        return DateParser.parseDate(nextDate());
+    }
+
+    private String nextDate() {
+        index = (index + 1) & (VALUES - 1);
+        return dates[index];
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.petrankapopovaemployees.benchmark;
+
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import com.example.petrankapopovaemployees.service.PairAccumulator;
+import com.example.petrankapopovaemployees.service.PairOverlapEngine;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-project overlap sweep over an already sorted table, from one thread up to several cores.
+ * Sorting an already sorted table is a single linear pass, so the measurement is dominated by the sweep.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OverlapSweepBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"1000"})
+    public int projects;
+
+    @Param({"2.0", "8.0"})
+    public double overlapDensity;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private AssignmentTable table;
+    private ForkJoinPool pool;
+    private PairOverlapEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        byte[] csv = BenchmarkDataGenerator.generateCsv(10_000, projects, rows, overlapDensity, BenchmarkDataGenerator.DateFormatMix.ISO, 0.0, false, 1);
+        table = new EmployeeService().loadAssignmentTable(new MockMultipartFile("file", "employees.csv", "text/csv", csv));
+        table.sortByProjectAndStart();
+        pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        engine = new PairOverlapEngine(pool, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public PairAccumulator accumulate() {
+        return engine.accumulate(table);
+    }
+}
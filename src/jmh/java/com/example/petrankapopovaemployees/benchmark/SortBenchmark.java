@@ -0,0 +1,46 @@
+package com.example.petrankapopovaemployees.benchmark;
+
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sorting a parsed table by project and start date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"100", "10000"})
+    public int projects;
+
+    private AssignmentTable parsed;
+    private AssignmentTable table;
+
+    @Setup(Level.Trial)
+    public void parse() throws Exception {
+        byte[] csv = BenchmarkDataGenerator.generateCsv(10_000, projects, rows, 4.0, BenchmarkDataGenerator.DateFormatMix.ISO, 0.0, false, 1);
+        parsed = new EmployeeService().loadAssignmentTable(new MockMultipartFile("file", "employees.csv", "text/csv", csv));
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        table = parsed.copy();
+    }
+
+    @Benchmark
+    public AssignmentTable sortByProjectAndStart() {
+        table.sortByProjectAndStart();
+        return table;
+    }
+}
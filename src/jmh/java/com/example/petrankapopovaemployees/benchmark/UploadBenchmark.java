@@ -0,0 +1,70 @@
+package com.example.petrankapopovaemployees.benchmark;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeeWorkResponse;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end analysis of an upload, as done for POST /upload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UploadBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"1000"})
+    public int employees;
+
+    @Param({"100"})
+    public int projects;
+
+    @Param({"4.0"})
+    public double overlapDensity;
+
+    @Param({"PER_COLUMN"})
+    public BenchmarkDataGenerator.DateFormatMix dateFormatMix;
+
+    private EmployeeService employeeService;
+    private MockMultipartFile file;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setParallelism(1);
+        employeeService = new EmployeeService(Clock.systemDefaultZone(), properties);
+        byte[] csv = BenchmarkDataGenerator.generateCsv(employees, projects, rows, overlapDensity, dateFormatMix, 0.0, true, 1);
+        file = new MockMultipartFile("file", "employees.csv", "text/csv", csv);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        employeeService.shutdown();
+    }
+
+    @Benchmark
+    public EmployeeWorkResponse analyzeFile() throws Exception {
+        return employeeService.analyzeFile(file);
+    }
+
+    @Benchmark
+    public EmployeePair processFile() throws Exception {
+        return employeeService.processFile(file);
+    }
+
+    @Benchmark
+    public EmployeePair processFileStreaming() throws Exception {
+        return employeeService.processFileStreaming(file);
+    }
+}
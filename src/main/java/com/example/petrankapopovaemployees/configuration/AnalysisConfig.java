@@ -0,0 +1,21 @@
+package com.example.petrankapopovaemployees.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+@Configuration
+@EnableConfigurationProperties(AnalysisProperties.class)
+public class AnalysisConfig {
+    /**
+     * Provides the clock used to resolve NULL end dates to the current date.
+     *
+     * @return the system clock in the default time zone
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
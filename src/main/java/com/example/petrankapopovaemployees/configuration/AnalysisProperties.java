@@ -0,0 +1,204 @@
+package com.example.petrankapopovaemployees.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Tuning options for the employee pair analysis, bound from the {@code employees.analysis.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "employees.analysis")
+public class AnalysisProperties {
+
+    /**
+     * Number of threads sweeping projects in parallel. A value of 1 keeps the analysis on the request thread.
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of rows below which the analysis stays sequential even when parallelism is enabled.
+     */
+    private int parallelThreshold = 200_000;
+
+    /**
+     * Number of rows the streaming analysis buffers to tolerate files that are only roughly sorted by start date.
+     */
+    private int streamingReorderWindow = 10_000;
+
+    /**
+     * Whether overlapping rows of the same employee on the same project are merged before the sweep, so that
+     * duplicated rows do not count days twice. When disabled, every row is paired on its own.
+     */
+    private boolean coalesce = true;
+
+    /**
+     * Directory holding CSV files that can be analyzed in place on the server; server-side import is
+     * disabled when it is not set.
+     */
+    private String importDirectory;
+
+    /**
+     * Analyses taking at least this long are logged with a breakdown of the time spent in each phase.
+     */
+    private Duration slowRequestThreshold = Duration.ofSeconds(2);
+
+    /**
+     * Options of the cache holding the results of recently analyzed uploads.
+     */
+    private final Cache cache = new Cache();
+
+    /**
+     * Options of the asynchronous analysis jobs.
+     */
+    private final Jobs jobs = new Jobs();
+
+    /**
+     * Options of the persistent assignment store.
+     */
+    private final Store store = new Store();
+
+    /**
+     * Options shaping the responses of the upload endpoints.
+     */
+    private final Response response = new Response();
+
+    /**
+     * Options of the admission control limiting the memory held by concurrent upload analyses.
+     */
+    private final Admission admission = new Admission();
+
+    /**
+     * Limits of compressed uploads, protecting the server from archives that inflate to excessive sizes.
+     */
+    private final Decompression decompression = new Decompression();
+
+    @Data
+    public static class Cache {
+
+        /**
+         * Whether repeated uploads of the same content are answered from the cache.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of cached results.
+         */
+        private int maxEntries = 16;
+
+        /**
+         * Maximum number of parsed rows held by all cached results together.
+         */
+        private long maxRows = 2_000_000;
+
+        /**
+         * How long a result stays cached after it was computed.
+         */
+        private Duration timeToLive = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Jobs {
+
+        /**
+         * Number of jobs analyzed at the same time.
+         */
+        private int concurrency = 2;
+
+        /**
+         * Number of submitted jobs that may wait for a worker; further submissions are rejected.
+         */
+        private int queueCapacity = 16;
+
+        /**
+         * How long a finished job and its result stay available for polling.
+         */
+        private Duration retention = Duration.ofHours(1);
+
+        /**
+         * Maximum number of finished jobs kept for polling; the oldest are dropped first.
+         */
+        private int maxRetained = 64;
+
+        /**
+         * Maximum number of parsed rows held by the results of all finished jobs together; the oldest jobs are
+         * dropped first.
+         */
+        private long maxRetainedRows = 2_000_000;
+    }
+
+    @Data
+    public static class Store {
+
+        /**
+         * Number of rows sent to the database per JDBC batch.
+         */
+        private int batchSize = 1000;
+    }
+
+    @Data
+    public static class Response {
+
+        /**
+         * Largest number of rows returned inline by default; larger uploads get only the summary unless
+         * the client asks for another view.
+         */
+        private int maxInlineRows = 10_000;
+
+        /**
+         * Largest number of rows per page.
+         */
+        private int maxPageSize = 10_000;
+    }
+
+    @Data
+    public static class Admission {
+
+        /**
+         * Whether uploads are admitted against the memory budget; when disabled every upload is analyzed at once.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Heap that the uploads analyzed at the same time may use together. Defaults to half of the maximum heap.
+         */
+        private DataSize memoryBudget;
+
+        /**
+         * Estimated heap needed per parsed row: the row columns, the sort buffers and the pair totals.
+         */
+        private int bytesPerRow = 256;
+
+        /**
+         * Number of uploads that may wait for memory to be released; further uploads are rejected at once.
+         */
+        private int queueCapacity = 16;
+
+        /**
+         * How long an upload waits for memory to be released before it is rejected.
+         */
+        private Duration queueTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Delay suggested to rejected clients in the {@code Retry-After} header.
+         */
+        private Duration retryAfter = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Decompression {
+
+        /**
+         * Largest number of bytes a gzip or ZIP upload may decompress to.
+         */
+        private DataSize maxUncompressedSize = DataSize.ofGigabytes(4);
+
+        /**
+         * Largest ratio of decompressed to compressed bytes, checked once an upload has decompressed to more
+         * than a megabyte. CSV files rarely compress better than 1:20.
+         */
+        private int maxCompressionRatio = 200;
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.petrankapopovaemployees.configuration;
 
+import com.example.petrankapopovaemployees.service.AssignmentSnapshot;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
     /**
@@ -20,5 +25,15 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowedHeaders("*")
                 .allowCredentials(true);
     }
-}
 
+    /**
+     * Lets the upload endpoints return newline-delimited JSON and binary snapshots that are written as they are produced.
+     *
+     * @param converters the message converters configured by Spring Boot
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new StreamingResponseBodyConverter(MediaType.parseMediaType("application/x-ndjson"),
+                MediaType.parseMediaType(AssignmentSnapshot.CONTENT_TYPE)));
+    }
+}
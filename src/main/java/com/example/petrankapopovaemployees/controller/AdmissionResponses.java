@@ -0,0 +1,45 @@
+package com.example.petrankapopovaemployees.controller;
+
+import com.example.petrankapopovaemployees.service.AnalysisAdmission;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ties the admission permits of the endpoints to their requests.
+ */
+final class AdmissionResponses {
+
+    private static final AtomicLong permitIds = new AtomicLong();
+
+    private AdmissionResponses() {
+    }
+
+    /**
+     * Closes the permit once the current request is completed. Response bodies, including the streamed ones,
+     * are written on the request thread, so the permit also covers converting the rows for the response.
+     *
+     * @param permit The permit of the analysis answering the current request.
+     */
+    static void releaseAfterResponse(AnalysisAdmission.Permit permit) {
+        RequestContextHolder.currentRequestAttributes().registerDestructionCallback(
+                AdmissionResponses.class.getName() + '.' + permitIds.incrementAndGet(), permit::close,
+                RequestAttributes.SCOPE_REQUEST);
+    }
+
+    /**
+     * Answers a request that was not admitted within the queue timeout.
+     *
+     * @param e The rejection.
+     * @return 429 with the delay after which the client should retry.
+     */
+    static ResponseEntity<?> tooManyRequests(AnalysisAdmission.OverBudgetException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfter().toSeconds()))
+                .body(e.getMessage());
+    }
+}
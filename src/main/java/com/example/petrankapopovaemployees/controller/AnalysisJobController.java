@@ -0,0 +1,127 @@
+package com.example.petrankapopovaemployees.controller;
+
+import com.example.petrankapopovaemployees.entity.AnalysisPhase;
+import com.example.petrankapopovaemployees.entity.ResponseView;
+import com.example.petrankapopovaemployees.service.AnalysisJob;
+import com.example.petrankapopovaemployees.service.AnalysisJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Controller class for analyzing large uploads asynchronously.
+ * A submitted upload returns a job ID immediately; clients then poll for progress and for the result.
+ */
+@Controller
+@RequestMapping("/jobs")
+public class AnalysisJobController {
+
+    /**
+     * Seconds a client should wait before resubmitting a rejected job.
+     */
+    private static final String RETRY_AFTER_SECONDS = "10";
+
+    /**
+     * Service running the background analyses.
+     */
+    private final AnalysisJobService analysisJobService;
+
+    /**
+     * Shapes the analysis results into the view requested by the client.
+     */
+    private final AnalysisResultRenderer resultRenderer;
+
+    /**
+     * Constructor to initialize the AnalysisJobController with an AnalysisJobService.
+     *
+     * @param analysisJobService The AnalysisJobService instance to be used by the controller.
+     * @param resultRenderer     The renderer shaping the results.
+     */
+    @Autowired
+    public AnalysisJobController(AnalysisJobService analysisJobService, AnalysisResultRenderer resultRenderer) {
+        this.analysisJobService = analysisJobService;
+        this.resultRenderer = resultRenderer;
+    }
+
+    /**
+     * Submits the uploaded file for background analysis.
+     *
+     * @param file      The MultipartFile representing the uploaded file.
+     * @param streaming Whether to analyze the file without keeping all of its rows in memory.
+     * @return 202 with the job status and its location, or 429 if the job queue is full.
+     */
+    @PostMapping
+    public ResponseEntity<?> submitJob(@RequestParam("file") MultipartFile file,
+                                       @RequestParam(value = "streaming", defaultValue = "false") boolean streaming) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is required.");
+        }
+
+        try {
+            AnalysisJob job = analysisJobService.submit(file, streaming);
+            return ResponseEntity.accepted().location(URI.create("/jobs/" + job.getId())).body(job.toStatus());
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                    .body("Too many analysis jobs are pending. Please retry later.");
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("An error occurred while processing the file.");
+        }
+    }
+
+    /**
+     * Returns the progress of a job: its phase and the number of rows parsed so far.
+     *
+     * @param jobId The ID of the job.
+     * @return 200 with the job status, or 404 if the job is unknown or has expired.
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getJobStatus(@PathVariable String jobId) {
+        Optional<AnalysisJob> job = analysisJobService.find(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job.get().toStatus());
+    }
+
+    /**
+     * Returns the result of a finished job, shaped like the responses of the upload endpoint.
+     *
+     * @param jobId  The ID of the job.
+     * @param view   How to return the result.
+     * @param offset The index of the first row of a page.
+     * @param limit  The number of rows of a page.
+     * @return 200 with the analysis result when the job is done, 202 with the job status while it is still
+     *         running, 500 if it failed, or 404 if the job is unknown or has expired.
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<?> getJobResult(@PathVariable String jobId,
+                                          @RequestParam(value = "view", defaultValue = "AUTO") ResponseView view,
+                                          @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        String invalidView = resultRenderer.validate(view, false, limit);
+        if (invalidView != null) {
+            return ResponseEntity.badRequest().body(invalidView);
+        }
+        Optional<AnalysisJob> job = analysisJobService.find(jobId);
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        AnalysisPhase phase = job.get().getProgress().getPhase();
+        if (phase == AnalysisPhase.DONE) {
+            return resultRenderer.render(job.get().getResult(), view, offset, limit);
+        }
+        if (phase == AnalysisPhase.FAILED) {
+            return ResponseEntity.status(500).body(job.get().toStatus());
+        }
+        return ResponseEntity.accepted().body(job.get().toStatus());
+    }
+}
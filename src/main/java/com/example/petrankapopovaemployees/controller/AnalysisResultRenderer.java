@@ -0,0 +1,119 @@
+package com.example.petrankapopovaemployees.controller;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.ResponseView;
+import com.example.petrankapopovaemployees.service.AnalysisResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Turns an analysis result into the response body requested by the client.
+ * Only the full view materializes every row at once; pages convert just their rows, and NDJSON
+ * writes the rows to the response one at a time.
+ * <p>
+ * Every view is rendered from a result held in memory. Uploads are parsed again for each page unless their
+ * result is still cached or kept as a finished job, see {@link EmployeeController#processUploadedFile}.
+ */
+@Component
+public class AnalysisResultRenderer {
+
+    /**
+     * Media type of newline-delimited JSON.
+     */
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    /**
+     * Mapper creating the NDJSON generator, configured like the one serializing regular responses.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writer of the NDJSON lines; it leaves flushing to the generator's buffer instead of flushing every row.
+     */
+    private final ObjectWriter lineWriter;
+
+    /**
+     * Options shaping the responses.
+     */
+    private final AnalysisProperties.Response properties;
+
+    /**
+     * Constructor to initialize the AnalysisResultRenderer.
+     *
+     * @param objectMapper The mapper serializing the rows.
+     * @param properties   The analysis options.
+     */
+    @Autowired
+    public AnalysisResultRenderer(ObjectMapper objectMapper, AnalysisProperties properties) {
+        this.objectMapper = objectMapper;
+        this.lineWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.properties = properties.getResponse();
+    }
+
+    /**
+     * Checks the view parameters before the upload is analyzed.
+     *
+     * @param view      The requested view.
+     * @param streaming Whether the upload is analyzed without keeping its rows.
+     * @param limit     The requested page size.
+     * @return An error message, or null if the parameters are valid.
+     */
+    public String validate(ResponseView view, boolean streaming, int limit) {
+        if (streaming && view != ResponseView.AUTO && view != ResponseView.SUMMARY) {
+            return "Only the summary is available in streaming mode.";
+        }
+        if (view == ResponseView.PAGE && (limit < 1 || limit > properties.getMaxPageSize())) {
+            return "limit must be between 1 and " + properties.getMaxPageSize() + ".";
+        }
+        return null;
+    }
+
+    /**
+     * Renders the result in the requested view.
+     *
+     * @param result The analysis result.
+     * @param view   The requested view; {@link ResponseView#AUTO} returns the full result for uploads of up to
+     *               {@code employees.analysis.response.max-inline-rows} rows and the summary for larger ones.
+     * @param offset The index of the first row of a page.
+     * @param limit  The number of rows of a page.
+     * @return ResponseEntity with the shaped result.
+     */
+    public ResponseEntity<?> render(AnalysisResult result, ResponseView view, int offset, int limit) {
+        if (!result.hasRows() && view != ResponseView.SUMMARY) {
+            // Streamed analyses have no rows to return; keep the original shape of their response
+            return ResponseEntity.ok(result.toResponse());
+        }
+        return switch (view) {
+            case AUTO -> ResponseEntity.ok(result.getRowCount() <= properties.getMaxInlineRows()
+                    ? result.toResponse() : result.toSummary());
+            case SUMMARY -> ResponseEntity.ok(result.toSummary());
+            case FULL -> ResponseEntity.ok(result.toResponse());
+            case PAGE -> ResponseEntity.ok(result.toPage(offset, limit));
+            case NDJSON -> ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(ndjson(result));
+        };
+    }
+
+    /**
+     * Writes the summary on the first line and then one row per line, flushing as the buffer fills.
+     */
+    private StreamingResponseBody ndjson(AnalysisResult result) {
+        return outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            lineWriter.writeValue(generator, result.toSummary());
+            generator.writeRaw('\n');
+            for (int row = 0; row < result.getRowCount(); row++) {
+                lineWriter.writeValue(generator, result.getRow(row));
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.petrankapopovaemployees.controller;
+
+import com.example.petrankapopovaemployees.service.AnalysisAdmission;
+import com.example.petrankapopovaemployees.service.AssignmentStoreService;
+import com.example.petrankapopovaemployees.service.UploadDecoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Controller for the persistent assignment store.
+ * A full upload replaces the stored dataset; delta uploads add or remove single assignments
+ * and only recompute the affected pairs.
+ */
+@Controller
+@RequestMapping("/store")
+public class AssignmentStoreController {
+
+    /**
+     * Largest number of pairs a ranking may return.
+     */
+    private static final int MAX_TOP_PAIRS = 1000;
+
+    /**
+     * Service keeping the assignments and pair totals in the database.
+     */
+    private final AssignmentStoreService storeService;
+
+    /**
+     * Admission control keeping concurrent analyses within the heap budget.
+     */
+    private final AnalysisAdmission admission;
+
+    /**
+     * Constructor to initialize the AssignmentStoreController with an AssignmentStoreService.
+     *
+     * @param storeService The AssignmentStoreService instance to be used by the controller.
+     * @param admission    The admission control of the analyses.
+     */
+    @Autowired
+    public AssignmentStoreController(AssignmentStoreService storeService, AnalysisAdmission admission) {
+        this.storeService = storeService;
+        this.admission = admission;
+    }
+
+    /**
+     * Replaces the stored dataset with the uploaded file.
+     * The upload is parsed into memory before it is stored, so it is admitted against the heap budget first.
+     *
+     * @param file The MultipartFile representing the uploaded file.
+     * @return ResponseEntity with the longest working pair of the new dataset, or 429 if the server is out of
+     *         memory budget.
+     */
+    @PostMapping("/upload")
+    public ResponseEntity<?> replaceDataset(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is required.");
+        }
+
+        try {
+            AdmissionResponses.releaseAfterResponse(admission.admit(file, file.getSize()));
+            return ResponseEntity.ok(storeService.replaceAll(file));
+        } catch (UploadDecoder.InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            return AdmissionResponses.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("An error occurred while processing the file.");
+        }
+    }
+
+    /**
+     * Adds the uploaded assignments to the stored dataset or removes them from it.
+     *
+     * @param file      The MultipartFile with the changed assignments.
+     * @param operation Either {@code add} or {@code remove}.
+     * @return ResponseEntity with the longest working pair after the change, or 429 if the server is out of
+     *         memory budget.
+     */
+    @PostMapping("/delta")
+    public ResponseEntity<?> applyDelta(@RequestParam("file") MultipartFile file,
+                                        @RequestParam(value = "operation", defaultValue = "add") String operation) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is required.");
+        }
+        if (!"add".equals(operation) && !"remove".equals(operation)) {
+            return ResponseEntity.badRequest().body("operation must be add or remove.");
+        }
+
+        try {
+            AdmissionResponses.releaseAfterResponse(admission.admit(file, file.getSize()));
+            return ResponseEntity.ok("add".equals(operation)
+                    ? storeService.addAssignments(file)
+                    : storeService.removeAssignments(file));
+        } catch (UploadDecoder.InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            return AdmissionResponses.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("An error occurred while processing the file.");
+        }
+    }
+
+    /**
+     * Returns the pairs who worked together the longest in the stored dataset.
+     *
+     * @param k The number of pairs, between 1 and {@value #MAX_TOP_PAIRS}.
+     * @return ResponseEntity with the pairs, longest first.
+     */
+    @GetMapping("/pairs")
+    public ResponseEntity<?> topPairs(@RequestParam(value = "k", defaultValue = "1") int k) {
+        if (k < 1 || k > MAX_TOP_PAIRS) {
+            return ResponseEntity.badRequest().body("k must be between 1 and " + MAX_TOP_PAIRS + ".");
+        }
+        return ResponseEntity.ok(storeService.findTopPairs(k));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.petrankapopovaemployees.controller;
+
+import com.example.petrankapopovaemployees.entity.EmployeePartner;
+import com.example.petrankapopovaemployees.entity.PairCollaboration;
+import com.example.petrankapopovaemployees.service.AnalysisAdmission;
+import com.example.petrankapopovaemployees.service.CollaborationIndexService;
+import com.example.petrankapopovaemployees.service.UploadDecoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controller for point queries against the resident collaboration index.
+ * Uploading a dataset rebuilds the index; the queries are answered from memory without re-analyzing it,
+ * and pair queries may be restricted to a date window.
+ */
+@Controller
+@RequestMapping("/collaborations")
+public class CollaborationController {
+
+    /**
+     * Largest number of partners or pairs a query may return.
+     */
+    private static final int MAX_PARTNERS = 1000;
+
+    /**
+     * Service holding the collaboration index.
+     */
+    private final CollaborationIndexService indexService;
+
+    /**
+     * Admission control keeping concurrent analyses within the heap budget.
+     */
+    private final AnalysisAdmission admission;
+
+    /**
+     * Constructor to initialize the CollaborationController with a CollaborationIndexService.
+     *
+     * @param indexService The CollaborationIndexService instance to be used by the controller.
+     * @param admission    The admission control of the analyses.
+     */
+    @Autowired
+    public CollaborationController(CollaborationIndexService indexService, AnalysisAdmission admission) {
+        this.indexService = indexService;
+        this.admission = admission;
+    }
+
+    /**
+     * Replaces the indexed dataset with the uploaded file.
+     * The upload is parsed into memory to build the index, so it is admitted against the heap budget first.
+     *
+     * @param file The MultipartFile representing the uploaded file.
+     * @return ResponseEntity with the summary of the new index, or 429 if the server is out of memory budget.
+     */
+    @PostMapping("/upload")
+    public ResponseEntity<?> loadDataset(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is required.");
+        }
+
+        try {
+            AdmissionResponses.releaseAfterResponse(admission.admit(file, file.getSize()));
+            return ResponseEntity.ok(indexService.load(file));
+        } catch (UploadDecoder.InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            return AdmissionResponses.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("An error occurred while processing the file.");
+        }
+    }
+
+    /**
+     * Describes the indexed dataset.
+     *
+     * @return ResponseEntity with the summary of the current index.
+     */
+    @GetMapping
+    public ResponseEntity<?> summary() {
+        return ResponseEntity.ok(indexService.getSummary());
+    }
+
+    /**
+     * Returns the partners an employee worked with the longest.
+     *
+     * @param employeeId The ID of the employee.
+     * @param k          The number of partners, between 1 and {@value #MAX_PARTNERS}.
+     * @return ResponseEntity with the partners, longest collaboration first, or 404 if the employee belongs to no pair.
+     */
+    @GetMapping("/employees/{employeeId}/partners")
+    public ResponseEntity<?> topPartners(@PathVariable("employeeId") int employeeId,
+                                         @RequestParam(value = "k", defaultValue = "10") int k) {
+        if (k < 1 || k > MAX_PARTNERS) {
+            return ResponseEntity.badRequest().body("k must be between 1 and " + MAX_PARTNERS + ".");
+        }
+        List<EmployeePartner> partners = indexService.findTopPartners(employeeId, k);
+        if (partners == null) {
+            return ResponseEntity.status(404).body("Employee " + employeeId + " did not work with anyone.");
+        }
+        return ResponseEntity.ok(partners);
+    }
+
+    /**
+     * Returns the overlap details of a pair of employees, optionally counting only the days within a date window.
+     *
+     * @param employeeId1 The ID of one employee.
+     * @param employeeId2 The ID of the other employee.
+     * @param from        The first day of the window, or none for no lower bound.
+     * @param to          The last day of the window, or none for no upper bound.
+     * @return ResponseEntity with the days worked together in total and per project, or 404 if the pair never
+     *         overlapped within the window.
+     */
+    @GetMapping("/pairs")
+    public ResponseEntity<?> pair(@RequestParam("employeeId1") int employeeId1,
+                                  @RequestParam("employeeId2") int employeeId2,
+                                  @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                  @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("from must not be after to.");
+        }
+        PairCollaboration pair = from == null && to == null
+                ? indexService.findPair(employeeId1, employeeId2)
+                : indexService.findPair(employeeId1, employeeId2, from, to);
+        if (pair == null) {
+            return ResponseEntity.status(404).body("Employees " + employeeId1 + " and " + employeeId2
+                    + " did not work together.");
+        }
+        return ResponseEntity.ok(pair);
+    }
+
+    /**
+     * Ranks the pairs who worked together the longest, optionally counting only the days within a date window,
+     * e.g. "who collaborated most in 2023".
+     *
+     * @param k    The number of pairs, between 1 and {@value #MAX_PARTNERS}.
+     * @param from The first day of the window, or none for no lower bound.
+     * @param to   The last day of the window, or none for no upper bound.
+     * @return ResponseEntity with the pairs, longest first.
+     */
+    @GetMapping("/top")
+    public ResponseEntity<?> topPairs(@RequestParam(value = "k", defaultValue = "10") int k,
+                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (k < 1 || k > MAX_PARTNERS) {
+            return ResponseEntity.badRequest().body("k must be between 1 and " + MAX_PARTNERS + ".");
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            return ResponseEntity.badRequest().body("from must not be after to.");
+        }
+        return ResponseEntity.ok(indexService.findTopPairs(from, to, k));
+    }
+}
@@ -1,36 +1,83 @@
 package com.example.petrankapopovaemployees.controller;
 
-import com.example.petrankapopovaemployees.entity.EmployeePair;
-import com.example.petrankapopovaemployees.entity.EmployeeProject;
-import com.example.petrankapopovaemployees.entity.EmployeeWorkResponse;
+import com.example.petrankapopovaemployees.entity.PairRanking;
+import com.example.petrankapopovaemployees.entity.ResponseView;
+import com.example.petrankapopovaemployees.service.AnalysisAdmission;
+import com.example.petrankapopovaemployees.service.AnalysisJob;
+import com.example.petrankapopovaemployees.service.AnalysisJobService;
+import com.example.petrankapopovaemployees.service.AnalysisProgress;
+import com.example.petrankapopovaemployees.service.AnalysisResult;
+import com.example.petrankapopovaemployees.service.AnalysisResultCache;
+import com.example.petrankapopovaemployees.service.AssignmentSnapshot;
 import com.example.petrankapopovaemployees.service.EmployeeService;
+import com.example.petrankapopovaemployees.service.UploadDecoder;
+import com.example.petrankapopovaemployees.service.UploadProbe;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
+import java.nio.file.Path;
+import java.util.Optional;
+
 /**
  * Controller class for managing employee-related operations.
  */
 @Controller
 public class EmployeeController {
 
+    /**
+     * Largest number of pairs a ranking may return.
+     */
+    private static final int MAX_TOP_PAIRS = 1000;
+
     /**
      * Service responsible for handling employee-related operations.
      */
     private final EmployeeService employeeService;
 
+    /**
+     * Cache answering repeated uploads of the same content without re-analyzing them.
+     */
+    private final AnalysisResultCache resultCache;
+
+    /**
+     * Shapes the analysis results into the view requested by the client.
+     */
+    private final AnalysisResultRenderer resultRenderer;
+
+    /**
+     * Admission control keeping concurrent analyses within the heap budget.
+     */
+    private final AnalysisAdmission admission;
+
+    /**
+     * Keeps the results of paged uploads that are too large for the result cache, so that their further
+     * pages can be fetched without uploading them again.
+     */
+    private final AnalysisJobService analysisJobService;
+
     /**
      * Constructor to initialize the EmployeeController with an EmployeeService.
      *
-     * @param employeeService The EmployeeService instance to be used by the controller.
+     * @param employeeService    The EmployeeService instance to be used by the controller.
+     * @param resultCache        The cache of analysis results.
+     * @param resultRenderer     The renderer shaping the responses.
+     * @param admission          The admission control of the analyses.
+     * @param analysisJobService The service keeping results that the cache does not hold.
      */
     @Autowired
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService, AnalysisResultCache resultCache,
+                              AnalysisResultRenderer resultRenderer, AnalysisAdmission admission,
+                              AnalysisJobService analysisJobService) {
         this.employeeService = employeeService;
+        this.resultCache = resultCache;
+        this.resultRenderer = resultRenderer;
+        this.admission = admission;
+        this.analysisJobService = analysisJobService;
     }
 
     /**
@@ -45,31 +92,148 @@ public class EmployeeController {
     }
 
     /**
-     * Processes the uploaded file containing employee data.
-     * This method handles POST requests to upload employee data files, determines the file type,
-     * and delegates the processing to the appropriate service.
+     * Processes the uploaded file containing employee data: plain CSV, gzip-compressed CSV or a ZIP archive
+     * holding a single CSV file.
+     * This method handles POST requests to upload employee data files and delegates the processing
+     * to the service, which reads and parses the upload only once.
+     *
+     * The upload is read once up front to hash it and estimate its rows. It is then admitted against the heap
+     * budget, and rejected with 429 when the budget stays exhausted. The permit is held until the response is
+     * written, since the result is converted to the response on the request thread. Repeated uploads of the
+     * same content are answered from the result cache instead of being analyzed again.
+     * In streaming mode the rows are analyzed while they are parsed and are not echoed back,
+     * so only the longest working pair and the number of merged rows are returned.
      *
-     * @param file The MultipartFile representing the uploaded file.
-     * @return ResponseEntity with the result of processing the file.
+     * The view selects how the parsed rows are returned: all of them, none (summary), one page, or
+     * a stream of newline-delimited JSON. By default large uploads only get the summary. Further pages
+     * of the same upload are answered from the result cache if it holds the result. Otherwise a page that
+     * is followed by more rows carries a {@code Content-Location} header pointing to the result, kept once per
+     * upload as a finished job, where the further pages can be fetched without uploading the file again.
+     * Uploading the file again is answered from that job as well. The header is omitted if the result holds
+     * more rows than finished jobs may retain.
+     *
+     * @param file      The MultipartFile representing the uploaded file.
+     * @param streaming Whether to analyze the file without keeping all of its rows in memory.
+     * @param view      How to return the result.
+     * @param offset    The index of the first row of a page.
+     * @param limit     The number of rows of a page.
+     * @return ResponseEntity with the result of processing the file, or 429 if the server is out of memory budget.
      */
     @PostMapping("/upload")
-    public ResponseEntity<?> processUploadedFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> processUploadedFile(@RequestParam("file") MultipartFile file,
+                                                 @RequestParam(value = "streaming", defaultValue = "false") boolean streaming,
+                                                 @RequestParam(value = "view", defaultValue = "AUTO") ResponseView view,
+                                                 @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                                 @RequestParam(value = "limit", defaultValue = "1000") int limit) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("File is required.");
         }
+        String invalidView = resultRenderer.validate(view, streaming, limit);
+        if (invalidView != null) {
+            return ResponseEntity.badRequest().body(invalidView);
+        }
 
         try {
-            EmployeeWorkResponse response = new EmployeeWorkResponse();
-            List<EmployeeProject> employeeProjects = employeeService.loadEmployeeProjects(file);
-            response.setEmployeeProjects(employeeProjects);
-            EmployeePair longestWorkingPair = employeeService.processFile(file);
-            response.setLongestWorkingPair(longestWorkingPair);
+            // Pages are hashed even without the cache, so that a retained result is found again
+            UploadProbe upload = UploadProbe.of(file, file.getSize(),
+                    resultCache.isEnabled() || view == ResponseView.PAGE);
+            AdmissionResponses.releaseAfterResponse(admission.admit(upload));
+            Optional<AnalysisJob> retained = view == ResponseView.PAGE && !streaming
+                    ? analysisJobService.findRetained(upload) : Optional.empty();
+            AnalysisResult result = retained.isPresent() ? retained.get().getResult()
+                    : resultCache.getOrCompute(upload, streaming ? "streaming" : "full", () -> streaming
+                    ? employeeService.analyzeStreaming(file, new AnalysisProgress())
+                    : employeeService.analyze(file, new AnalysisProgress()));
+            if (view == ResponseView.PAGE && result.hasRows() && (long) offset + limit < result.getRowCount()
+                    && !resultCache.isCacheable(result)) {
+                if (retained.isEmpty()) {
+                    retained = analysisJobService.retain(upload, result);
+                }
+                ResponseEntity<?> page = resultRenderer.render(result, view, offset, limit);
+                if (retained.isPresent()) {
+                    return ResponseEntity.status(page.getStatusCode()).headers(page.getHeaders())
+                            .header(HttpHeaders.CONTENT_LOCATION, "/jobs/" + retained.get().getId() + "/result")
+                            .body(page.getBody());
+                }
+                return page;
+            }
+            return resultRenderer.render(result, view, offset, limit);
+        } catch (UploadDecoder.InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            return AdmissionResponses.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("An error occurred while processing the file.");
+        }
+    }
+
+    /**
+     * Analyzes a CSV or snapshot file that already resides in the server's import directory, without uploading it.
+     * The file is memory-mapped and parsed in parallel; the result is shaped like the upload response.
+     *
+     * @param path   The path of the file, relative to the import directory.
+     * @param view   How to return the result.
+     * @param offset The index of the first row of a page.
+     * @param limit  The number of rows of a page.
+     * @return ResponseEntity with the result of processing the file, 404 if server-side import is disabled,
+     *         400 if the path does not denote a file in the import directory or the snapshot is invalid,
+     *         or 429 if the server is out of memory budget.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importServerFile(@RequestParam("path") String path,
+                                              @RequestParam(value = "view", defaultValue = "AUTO") ResponseView view,
+                                              @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                              @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        String invalidView = resultRenderer.validate(view, false, limit);
+        if (invalidView != null) {
+            return ResponseEntity.badRequest().body(invalidView);
+        }
 
-            return ResponseEntity.ok(response);
+        try {
+            Path importFile = employeeService.resolveImportFile(path);
+            AdmissionResponses.releaseAfterResponse(admission.admit(importFile));
+            AnalysisResult result = employeeService.analyze(importFile);
+            return resultRenderer.render(result, view, offset, limit);
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            return AdmissionResponses.tooManyRequests(e);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(404).body(e.getMessage());
+        } catch (IllegalArgumentException | AssignmentSnapshot.InvalidSnapshotException | UploadDecoder.InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("An error occurred while processing the file.");
         }
     }
-}
 
+    /**
+     * Ranks the pairs of employees who worked together the longest in the uploaded file.
+     *
+     * @param file       The MultipartFile representing the uploaded file.
+     * @param k          The number of pairs per ranking, between 1 and {@value #MAX_TOP_PAIRS}.
+     * @param perProject Whether to also return a leaderboard for every project.
+     * @return ResponseEntity with the pair rankings, or 429 if the server is out of memory budget.
+     */
+    @PostMapping("/upload/top")
+    public ResponseEntity<?> rankUploadedFile(@RequestParam("file") MultipartFile file,
+                                              @RequestParam(value = "k", defaultValue = "10") int k,
+                                              @RequestParam(value = "perProject", defaultValue = "false") boolean perProject) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is required.");
+        }
+        if (k < 1 || k > MAX_TOP_PAIRS) {
+            return ResponseEntity.badRequest().body("k must be between 1 and " + MAX_TOP_PAIRS + ".");
+        }
 
+        try {
+            AdmissionResponses.releaseAfterResponse(admission.admit(file, file.getSize()));
+            PairRanking ranking = employeeService.rankPairs(file, k, perProject);
+            return ResponseEntity.ok(ranking);
+        } catch (UploadDecoder.InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            return AdmissionResponses.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("An error occurred while processing the file.");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.petrankapopovaemployees.controller;
+
+import com.example.petrankapopovaemployees.entity.ResponseView;
+import com.example.petrankapopovaemployees.service.AnalysisAdmission;
+import com.example.petrankapopovaemployees.service.AnalysisResult;
+import com.example.petrankapopovaemployees.service.AssignmentSnapshot;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import com.example.petrankapopovaemployees.service.UploadDecoder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Controller for binary snapshots of parsed datasets.
+ * A CSV file is parsed once and exported as a snapshot; later analyses of the snapshot skip CSV parsing,
+ * date parsing and sorting.
+ */
+@Controller
+@RequestMapping("/snapshot")
+public class SnapshotController {
+
+    /**
+     * Service responsible for handling employee-related operations.
+     */
+    private final EmployeeService employeeService;
+
+    /**
+     * Shapes the analysis results into the view requested by the client.
+     */
+    private final AnalysisResultRenderer resultRenderer;
+
+    /**
+     * Admission control keeping concurrent analyses within the heap budget.
+     */
+    private final AnalysisAdmission admission;
+
+    /**
+     * Constructor to initialize the SnapshotController with an EmployeeService.
+     *
+     * @param employeeService The EmployeeService instance to be used by the controller.
+     * @param resultRenderer  The renderer shaping the responses.
+     * @param admission       The admission control of the analyses.
+     */
+    @Autowired
+    public SnapshotController(EmployeeService employeeService, AnalysisResultRenderer resultRenderer,
+                              AnalysisAdmission admission) {
+        this.employeeService = employeeService;
+        this.resultRenderer = resultRenderer;
+        this.admission = admission;
+    }
+
+    /**
+     * Parses the uploaded CSV file and returns its valid rows as a snapshot.
+     * The file is parsed before the response starts, so parse errors are still reported with a status code.
+     * The upload is admitted against the heap budget like an analysis, and its permit is held until the
+     * snapshot is written.
+     *
+     * @param file The MultipartFile representing the uploaded CSV file.
+     * @return ResponseEntity with the snapshot as an attachment, or 429 if the server is out of memory budget.
+     */
+    @PostMapping("/export")
+    public ResponseEntity<?> exportSnapshot(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is required.");
+        }
+
+        try {
+            AdmissionResponses.releaseAfterResponse(admission.admit(file, file.getSize()));
+            AssignmentTable table = employeeService.loadAssignmentTable(file);
+            StreamingResponseBody body = output -> AssignmentSnapshot.write(table, output);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(AssignmentSnapshot.CONTENT_TYPE))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"employees.snapshot\"")
+                    .body(body);
+        } catch (UploadDecoder.InvalidUploadException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            return AdmissionResponses.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("An error occurred while processing the file.");
+        }
+    }
+
+    /**
+     * Analyzes an uploaded snapshot; the result is shaped like the upload response.
+     *
+     * @param file   The MultipartFile representing the uploaded snapshot.
+     * @param view   How to return the result.
+     * @param offset The index of the first row of a page.
+     * @param limit  The number of rows of a page.
+     * @return ResponseEntity with the result of processing the snapshot, 400 if it is not a valid snapshot,
+     *         or 429 if the server is out of memory budget.
+     */
+    @PostMapping("/analyze")
+    public ResponseEntity<?> analyzeSnapshot(@RequestParam("file") MultipartFile file,
+                                             @RequestParam(value = "view", defaultValue = "AUTO") ResponseView view,
+                                             @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                             @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("File is required.");
+        }
+        String invalidView = resultRenderer.validate(view, false, limit);
+        if (invalidView != null) {
+            return ResponseEntity.badRequest().body(invalidView);
+        }
+
+        // The record count follows from the size of the upload, so no sampling is needed
+        try {
+            AdmissionResponses.releaseAfterResponse(admission.admitRows(AssignmentSnapshot.recordCount(file.getSize())));
+            AnalysisResult result = employeeService.analyzeSnapshot(file);
+            return resultRenderer.render(result, view, offset, limit);
+        } catch (AssignmentSnapshot.InvalidSnapshotException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            return AdmissionResponses.tooManyRequests(e);
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body("An error occurred while processing the file.");
+        }
+    }
+}
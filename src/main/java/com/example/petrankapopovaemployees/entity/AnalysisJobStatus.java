@@ -0,0 +1,37 @@
+package com.example.petrankapopovaemployees.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Represents the state of an asynchronous analysis job, as reported to clients polling for its result.
+ */
+@Data
+@AllArgsConstructor
+public class AnalysisJobStatus {
+
+    /** The ID of the job. */
+    private String jobId;
+
+    /** The phase the job is in. */
+    private AnalysisPhase phase;
+
+    /** The number of CSV records read so far. */
+    private long rowsParsed;
+
+    /** The number of bytes of the upload read so far, compressed if the upload is compressed. */
+    private long bytesRead;
+
+    /** The number of bytes parsed so far after decompression. */
+    private long uncompressedBytesRead;
+
+    /** The error message if the job failed, otherwise null. */
+    private String error;
+
+    /**
+     * Constructs a new AnalysisJobStatus object.
+     */
+    public AnalysisJobStatus() {
+        // Default constructor
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.petrankapopovaemployees.entity;
+
+/**
+ * The phases an analysis goes through.
+ */
+public enum AnalysisPhase {
+    /** Waiting for a worker. */
+    QUEUED,
+    /** Reading and parsing the CSV rows. */
+    PARSING,
+    /** Computing the overlaps of the parsed rows. */
+    ANALYZING,
+    /** Finished successfully. */
+    DONE,
+    /** Finished with an error. */
+    FAILED
+}
@@ -0,0 +1,28 @@
+package com.example.petrankapopovaemployees.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Describes the dataset currently held by the collaboration index.
+ */
+@Data
+@AllArgsConstructor
+public class CollaborationIndexSummary {
+
+    /** The number of valid rows the index was built from. */
+    private int rowCount;
+
+    /** The number of employees who belong to at least one pair. */
+    private int employeeCount;
+
+    /** The number of distinct pairs who worked together. */
+    private int pairCount;
+
+    /**
+     * Constructs a new CollaborationIndexSummary object.
+     */
+    public CollaborationIndexSummary() {
+        // Default constructor
+    }
+}
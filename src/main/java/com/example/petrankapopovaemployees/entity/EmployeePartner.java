@@ -0,0 +1,30 @@
+package com.example.petrankapopovaemployees.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents an employee who worked together with a given employee, as returned by the collaboration index.
+ */
+@Data
+@AllArgsConstructor
+public class EmployeePartner {
+
+    /** The ID of the partner. */
+    private long employeeId;
+
+    /** The number of days the partner worked together with the given employee on common projects. */
+    private long daysWorkedTogether;
+
+    /** The IDs of the common projects, in ascending order. */
+    private List<Integer> projectIds;
+
+    /**
+     * Constructs a new EmployeePartner object.
+     */
+    public EmployeePartner() {
+        // Default constructor
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.petrankapopovaemployees.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents one page of the parsed rows of an upload, in file order.
+ */
+@Data
+@AllArgsConstructor
+public class EmployeeProjectPage {
+
+    /** The rows of this page. */
+    private List<EmployeeProject> employeeProjects;
+
+    /** The index of the first row of this page. */
+    private int offset;
+
+    /** The offset to request for the next page, or null if this is the last page. */
+    private Integer nextOffset;
+
+    /** The total number of rows. */
+    private int rowCount;
+
+    /**
+     * Constructs a new EmployeeProjectPage object.
+     */
+    public EmployeeProjectPage() {
+        // Default constructor
+    }
+}
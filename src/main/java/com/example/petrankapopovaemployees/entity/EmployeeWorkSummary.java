@@ -0,0 +1,31 @@
+package com.example.petrankapopovaemployees.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Represents the result of an analysis without the parsed rows, which keeps responses small for large uploads.
+ */
+@Data
+@AllArgsConstructor
+public class EmployeeWorkSummary {
+
+    /** The number of valid rows in the upload, or null if the rows were not kept (streaming analysis). */
+    private Integer rowCount;
+
+    /**
+     * The number of rows merged into an overlapping row of the same employee and project before the analysis,
+     * or null if not known.
+     */
+    private Integer collapsedRowCount;
+
+    /** The longest working pair of employees. */
+    private EmployeePair longestWorkingPair;
+
+    /**
+     * Constructs a new EmployeeWorkSummary object.
+     */
+    public EmployeeWorkSummary() {
+        // Default constructor
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.petrankapopovaemployees.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Represents the overlap details of a pair of employees: their total days together and the days per project.
+ */
+@Data
+@AllArgsConstructor
+public class PairCollaboration {
+
+    /** The smaller employee ID of the pair. */
+    private long employeeId1;
+
+    /** The larger employee ID of the pair. */
+    private long employeeId2;
+
+    /** The number of days the two employees have worked together on common projects. */
+    private long daysWorkedTogether;
+
+    /** The days worked together per common project, by ascending project ID. */
+    private List<ProjectOverlap> projects;
+
+    /**
+     * Constructs a new PairCollaboration object.
+     */
+    public PairCollaboration() {
+        // Default constructor
+    }
+}
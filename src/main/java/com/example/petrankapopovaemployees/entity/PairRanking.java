@@ -0,0 +1,29 @@
+package com.example.petrankapopovaemployees.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the pairs of employees who worked together the longest, overall and per project.
+ * Every list is ordered by days worked together, longest first; ties are ordered by employee IDs.
+ */
+@Data
+@AllArgsConstructor
+public class PairRanking {
+
+    /** The top pairs across all projects. */
+    private List<EmployeePair> topPairs;
+
+    /** The top pairs of every project, by project ID, or null if not requested. */
+    private Map<Integer, List<EmployeePair>> topPairsByProject;
+
+    /**
+     * Constructs a new PairRanking object.
+     */
+    public PairRanking() {
+        // Default constructor
+    }
+}
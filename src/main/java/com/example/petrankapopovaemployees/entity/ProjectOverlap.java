@@ -0,0 +1,25 @@
+package com.example.petrankapopovaemployees.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Represents the days a pair of employees worked together on a single project.
+ */
+@Data
+@AllArgsConstructor
+public class ProjectOverlap {
+
+    /** The ID of the project. */
+    private int projectId;
+
+    /** The number of days the pair worked together on the project. */
+    private long daysWorkedTogether;
+
+    /**
+     * Constructs a new ProjectOverlap object.
+     */
+    public ProjectOverlap() {
+        // Default constructor
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.petrankapopovaemployees.entity;
+
+/**
+ * How the result of an analysis is returned to the client.
+ */
+public enum ResponseView {
+    /**
+     * The full response for small uploads and the summary for large ones.
+     */
+    AUTO,
+    /**
+     * Only the row count and the longest working pair.
+     */
+    SUMMARY,
+    /**
+     * Every parsed row and the longest working pair, as a single JSON document.
+     */
+    FULL,
+    /**
+     * One page of rows, selected by offset and limit.
+     */
+    PAGE,
+    /**
+     * Newline-delimited JSON: the summary on the first line, then one row per line, written without buffering.
+     */
+    NDJSON
+}
@@ -0,0 +1,321 @@
+package com.example.petrankapopovaemployees.repository;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.OpenOverlap;
+import com.example.petrankapopovaemployees.service.PairAccumulator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JDBC access to the stored assignments and to the materialized pair aggregates.
+ * Assignments are indexed by (project_id, date_from), (project_id, date_to) and (project_id, emp_id), so the
+ * overlapping assignments of one project can be found without scanning the whole table. Open-ended
+ * assignments are stored with a NULL end date. Writes are sent in JDBC batches.
+ */
+@Repository
+public class AssignmentRepository {
+
+    private static final String INSERT_ASSIGNMENT =
+            "INSERT INTO employee_assignment (emp_id, project_id, date_from, date_to) VALUES (?, ?, ?, ?)";
+
+    /**
+     * Deletes a single assignment; the NULL end date of an open-ended one is matched as {@link #OPEN_END_DATE}.
+     */
+    private static final String DELETE_ASSIGNMENT =
+            "DELETE FROM employee_assignment WHERE project_id = ? AND emp_id = ? AND date_from = ? "
+                    + "AND COALESCE(date_to, ?) = ? LIMIT 1";
+
+    private static final String ADD_PAIR_PROJECT_DAYS =
+            "INSERT INTO employee_pair_project (emp_id1, emp_id2, project_id, days_worked) VALUES (?, ?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE days_worked = days_worked + VALUES(days_worked)";
+
+    private static final String ADD_PAIR_TOTAL_DAYS =
+            "INSERT INTO employee_pair_total (emp_id1, emp_id2, days_worked) VALUES (?, ?, ?) "
+                    + "ON DUPLICATE KEY UPDATE days_worked = days_worked + VALUES(days_worked)";
+
+    private static final String ADD_OPEN_OVERLAP =
+            "INSERT INTO employee_pair_open (emp_id1, emp_id2, project_id, overlap_from, overlap_to, weight) "
+                    + "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE weight = weight + VALUES(weight)";
+
+    /**
+     * Stored end of an open overlap between two open-ended assignments, and the end date an open-ended
+     * assignment is matched with when it is deleted.
+     */
+    private static final LocalDate OPEN_END_DATE = LocalDate.of(9999, 12, 31);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public AssignmentRepository(JdbcTemplate jdbcTemplate, AnalysisProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, properties.getStore().getBatchSize());
+    }
+
+    /**
+     * Removes all stored assignments and pair aggregates.
+     */
+    public void deleteAll() {
+        jdbcTemplate.update("DELETE FROM employee_pair_open");
+        jdbcTemplate.update("DELETE FROM employee_pair_total");
+        jdbcTemplate.update("DELETE FROM employee_pair_project");
+        jdbcTemplate.update("DELETE FROM employee_assignment");
+    }
+
+    /**
+     * Returns the number of stored assignments.
+     *
+     * @return The number of rows in the assignment table.
+     */
+    public long countAssignments() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM employee_assignment", Long.class);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Stores all rows of the table, in batches.
+     *
+     * @param table The assignments to store.
+     */
+    public void insertAssignments(AssignmentTable table) {
+        for (int start = 0; start < table.size(); start += batchSize) {
+            int batchStart = start;
+            int batchLength = Math.min(batchSize, table.size() - start);
+            jdbcTemplate.batchUpdate(INSERT_ASSIGNMENT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int row = batchStart + i;
+                    ps.setInt(1, table.getEmpId(row));
+                    ps.setInt(2, table.getProjectId(row));
+                    ps.setObject(3, LocalDate.ofEpochDay(table.getDateFrom(row)));
+                    if (table.getDateTo(row) == AssignmentTable.OPEN_END) {
+                        ps.setNull(4, Types.DATE);
+                    } else {
+                        ps.setObject(4, LocalDate.ofEpochDay(table.getDateTo(row)));
+                    }
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batchLength;
+                }
+            });
+        }
+    }
+
+    /**
+     * Finds the stored assignments of a project that overlap with a date range, including open-ended ones.
+     * <p>
+     * The database serves the query from whichever of the (project_id, date_from) and (project_id, date_to)
+     * indexes bounds fewer rows: a range in the past reads the project's rows starting before its end, a range
+     * near the present reads the rows ending after its start plus the open-ended ones. A long range in the
+     * middle of a project's history still reads all rows matching the more selective bound, not only the
+     * overlapping ones.
+     *
+     * @param projectId The ID of the project.
+     * @param dateFrom  The first day of the range, as an epoch day.
+     * @param dateTo    The last day of the range, as an epoch day, or {@link AssignmentTable#OPEN_END}.
+     * @return The overlapping assignments, open-ended ones ending on {@link AssignmentTable#OPEN_END}.
+     */
+    public AssignmentTable findOverlapping(int projectId, int dateFrom, int dateTo) {
+        AssignmentTable table = new AssignmentTable(16);
+        String sql = "SELECT emp_id, project_id, date_from, date_to FROM employee_assignment "
+                + "WHERE project_id = ? AND (date_to >= ? OR date_to IS NULL)";
+        if (dateTo == AssignmentTable.OPEN_END) {
+            jdbcTemplate.query(sql, rs -> {
+                table.accept(rs.getInt(1), rs.getInt(2), toEpochDay(rs.getObject(3, LocalDate.class)),
+                        toEpochDay(rs.getObject(4, LocalDate.class)));
+            }, projectId, LocalDate.ofEpochDay(dateFrom));
+        } else {
+            jdbcTemplate.query(sql + " AND date_from <= ?", rs -> {
+                table.accept(rs.getInt(1), rs.getInt(2), toEpochDay(rs.getObject(3, LocalDate.class)),
+                        toEpochDay(rs.getObject(4, LocalDate.class)));
+            }, projectId, LocalDate.ofEpochDay(dateFrom), LocalDate.ofEpochDay(dateTo));
+        }
+        return table;
+    }
+
+    /**
+     * Finds all stored assignments of one employee on a project.
+     *
+     * @param projectId The ID of the project.
+     * @param empId     The ID of the employee.
+     * @return The assignments, open-ended ones ending on {@link AssignmentTable#OPEN_END}.
+     */
+    public AssignmentTable findEmployeeAssignments(int projectId, int empId) {
+        AssignmentTable table = new AssignmentTable(16);
+        jdbcTemplate.query("SELECT emp_id, project_id, date_from, date_to FROM employee_assignment "
+                        + "WHERE project_id = ? AND emp_id = ?",
+                rs -> {
+                    table.accept(rs.getInt(1), rs.getInt(2), toEpochDay(rs.getObject(3, LocalDate.class)),
+                            toEpochDay(rs.getObject(4, LocalDate.class)));
+                },
+                projectId, empId);
+        return table;
+    }
+
+    /**
+     * Deletes one stored assignment with exactly the values of each row, in batches. An open-ended row deletes
+     * an open-ended assignment.
+     *
+     * @param table The assignments to delete.
+     * @return For every row, whether a stored assignment was deleted for it.
+     */
+    public boolean[] deleteAssignments(AssignmentTable table) {
+        boolean[] deleted = new boolean[table.size()];
+        for (int start = 0; start < table.size(); start += batchSize) {
+            int batchStart = start;
+            int batchLength = Math.min(batchSize, table.size() - start);
+            int[] counts = jdbcTemplate.batchUpdate(DELETE_ASSIGNMENT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int row = batchStart + i;
+                    ps.setInt(1, table.getProjectId(row));
+                    ps.setInt(2, table.getEmpId(row));
+                    ps.setObject(3, LocalDate.ofEpochDay(table.getDateFrom(row)));
+                    ps.setObject(4, OPEN_END_DATE);
+                    ps.setObject(5, table.getDateTo(row) == AssignmentTable.OPEN_END
+                            ? OPEN_END_DATE : LocalDate.ofEpochDay(table.getDateTo(row)));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batchLength;
+                }
+            });
+            for (int i = 0; i < counts.length; i++) {
+                deleted[batchStart + i] = counts[i] > 0;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Adds (or with a negative sign, subtracts) the overlap days of a project's pairs to the aggregates.
+     *
+     * @param projectId The project the pairs worked together on.
+     * @param pairs     The overlap days per pair on this project.
+     * @param sign      1 to add the days, -1 to subtract them.
+     */
+    public void addPairDays(int projectId, PairAccumulator pairs, int sign) {
+        List<Object[]> projectDays = new ArrayList<>(pairs.size());
+        List<Object[]> totalDays = new ArrayList<>(pairs.size());
+        pairs.forEach((empId1, empId2, days) -> {
+            projectDays.add(new Object[]{empId1, empId2, projectId, sign * days});
+            totalDays.add(new Object[]{empId1, empId2, sign * days});
+        });
+        for (int start = 0; start < projectDays.size(); start += batchSize) {
+            int end = Math.min(projectDays.size(), start + batchSize);
+            jdbcTemplate.batchUpdate(ADD_PAIR_PROJECT_DAYS, projectDays.subList(start, end));
+            jdbcTemplate.batchUpdate(ADD_PAIR_TOTAL_DAYS, totalDays.subList(start, end));
+        }
+    }
+
+    /**
+     * Adds signed weights to the open overlaps.
+     *
+     * @param weights The weight to add per overlap; negative to subtract it.
+     */
+    public void addOpenOverlaps(Map<OpenOverlap, Integer> weights) {
+        List<Object[]> rows = new ArrayList<>(weights.size());
+        weights.forEach((overlap, weight) -> {
+            if (weight != 0) {
+                rows.add(new Object[]{overlap.empId1(), overlap.empId2(), overlap.projectId(),
+                        LocalDate.ofEpochDay(overlap.dateFrom()),
+                        overlap.dateTo() == AssignmentTable.OPEN_END ? OPEN_END_DATE : LocalDate.ofEpochDay(overlap.dateTo()),
+                        weight});
+            }
+        });
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            jdbcTemplate.batchUpdate(ADD_OPEN_OVERLAP, rows.subList(start, Math.min(rows.size(), start + batchSize)));
+        }
+    }
+
+    /**
+     * Returns all open overlaps with their weights.
+     *
+     * @return The weight per open overlap.
+     */
+    public Map<OpenOverlap, Integer> findOpenOverlaps() {
+        Map<OpenOverlap, Integer> weights = new HashMap<>();
+        jdbcTemplate.query("SELECT emp_id1, emp_id2, project_id, overlap_from, overlap_to, weight FROM employee_pair_open",
+                rs -> {
+                    LocalDate overlapTo = rs.getObject(5, LocalDate.class);
+                    weights.put(new OpenOverlap(rs.getInt(1), rs.getInt(2), rs.getInt(3),
+                                    toEpochDay(rs.getObject(4, LocalDate.class)),
+                                    OPEN_END_DATE.equals(overlapTo) ? AssignmentTable.OPEN_END : toEpochDay(overlapTo)),
+                            rs.getInt(6));
+                });
+        return weights;
+    }
+
+    /**
+     * Removes aggregates and open overlaps that cancelled out after assignments were deleted. Per-project days
+     * are kept while they are non-zero, since a negative value offsets an open overlap.
+     */
+    public void deleteEmptyPairs() {
+        jdbcTemplate.update("DELETE FROM employee_pair_project WHERE days_worked = 0");
+        jdbcTemplate.update("DELETE FROM employee_pair_total WHERE days_worked = 0");
+        jdbcTemplate.update("DELETE FROM employee_pair_open WHERE weight = 0");
+    }
+
+    /**
+     * Returns the pairs with the most materialized days, most days first, ties ordered by employee IDs.
+     * Open overlaps are not included.
+     *
+     * @param k The maximum number of pairs.
+     * @return Up to {@code k} pairs, without their projects.
+     */
+    public List<EmployeePair> findTopPairTotals(int k) {
+        return jdbcTemplate.query("SELECT emp_id1, emp_id2, days_worked FROM employee_pair_total "
+                        + "ORDER BY days_worked DESC, emp_id1, emp_id2 LIMIT ?",
+                (rs, rowNum) -> new EmployeePair(rs.getInt(1), rs.getInt(2), rs.getLong(3), null), k);
+    }
+
+    /**
+     * Returns the materialized days of every pair that has an open overlap.
+     *
+     * @return The pairs with open overlaps, with the days of their ended overlaps and without their projects.
+     */
+    public List<EmployeePair> findOpenPairTotals() {
+        return jdbcTemplate.query("SELECT o.emp_id1, o.emp_id2, COALESCE(MAX(t.days_worked), 0) FROM employee_pair_open o "
+                        + "LEFT JOIN employee_pair_total t ON t.emp_id1 = o.emp_id1 AND t.emp_id2 = o.emp_id2 "
+                        + "GROUP BY o.emp_id1, o.emp_id2",
+                (rs, rowNum) -> new EmployeePair(rs.getInt(1), rs.getInt(2), rs.getLong(3), null));
+    }
+
+    /**
+     * Returns the materialized days of a pair per common project.
+     *
+     * @param empId1 The smaller employee ID.
+     * @param empId2 The larger employee ID.
+     * @return The days per project ID, ordered by project ID.
+     */
+    public Map<Integer, Long> findPairProjectDays(int empId1, int empId2) {
+        Map<Integer, Long> days = new TreeMap<>();
+        jdbcTemplate.query("SELECT project_id, days_worked FROM employee_pair_project WHERE emp_id1 = ? AND emp_id2 = ?",
+                rs -> {
+                    days.put(rs.getInt(1), rs.getLong(2));
+                },
+                empId1, empId2);
+        return days;
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        return date == null ? AssignmentTable.OPEN_END : (int) date.toEpochDay();
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits upload analyses against a heap budget, so that concurrent large uploads cannot exhaust the heap
+ * together.
+ * <p>
+ * The memory cost of an upload is estimated before it is parsed from the row count of its {@link UploadProbe};
+ * the cost of a snapshot follows from its size. An upload whose estimate does not fit into the remaining budget
+ * waits in a first-come, first-served queue until enough memory is released; when the queue is full or the
+ * wait times out, it is rejected with an {@link OverBudgetException}. An upload estimated to need more than the
+ * whole budget is admitted once nothing else is running.
+ * <p>
+ * Every endpoint that parses an upload or an import file takes a permit, and so do the background jobs. The
+ * endpoints hold it until their response is written, since the response converts the rows once more. Results
+ * kept afterwards by the result cache, the jobs or the collaboration index are not charged.
+ * <p>
+ * The budget in use, the budget itself and the number of waiting uploads are published as gauges.
+ */
+@Component
+public class AnalysisAdmission {
+
+    /**
+     * Thrown when an upload cannot be admitted within the queue timeout.
+     */
+    public static class OverBudgetException extends RuntimeException {
+        private final Duration retryAfter;
+
+        public OverBudgetException(String message, Duration retryAfter) {
+            super(message);
+            this.retryAfter = retryAfter;
+        }
+
+        /**
+         * @return The delay after which the client should retry.
+         */
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+    }
+
+    /**
+     * Reserved budget of one admitted upload, returned when the permit is closed.
+     */
+    public final class Permit implements AutoCloseable {
+        private final long bytes;
+        private boolean closed;
+
+        private Permit(long bytes) {
+            this.bytes = bytes;
+        }
+
+        /**
+         * @return The reserved heap in bytes.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            synchronized (AnalysisAdmission.this) {
+                if (!closed) {
+                    closed = true;
+                    usedBytes -= bytes;
+                    AnalysisAdmission.this.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Heap reserved per upload on top of its rows, for the parser buffers and the response.
+     */
+    private static final long BASE_BYTES = 1024 * 1024;
+
+    private final boolean enabled;
+    private final long budgetBytes;
+    private final int bytesPerRow;
+    private final int queueCapacity;
+    private final Duration queueTimeout;
+    private final Duration retryAfter;
+    private final Counter rejected;
+
+    /**
+     * Uploads waiting for budget, in arrival order; only the head may be admitted.
+     */
+    private final Deque<Object> waiting = new ArrayDeque<>();
+    private long usedBytes;
+
+    @Autowired
+    public AnalysisAdmission(AnalysisProperties properties, MeterRegistry registry) {
+        AnalysisProperties.Admission admission = properties.getAdmission();
+        this.enabled = admission.isEnabled();
+        this.budgetBytes = admission.getMemoryBudget() != null
+                ? admission.getMemoryBudget().toBytes()
+                : Runtime.getRuntime().maxMemory() / 2;
+        this.bytesPerRow = admission.getBytesPerRow();
+        this.queueCapacity = admission.getQueueCapacity();
+        this.queueTimeout = admission.getQueueTimeout();
+        this.retryAfter = admission.getRetryAfter();
+
+        Gauge.builder("employees.admission.memory.used", this, AnalysisAdmission::getUsedBytes)
+                .description("Estimated heap reserved by the uploads being analyzed")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("employees.admission.memory.budget", this, AnalysisAdmission::getBudgetBytes)
+                .description("Heap that the uploads analyzed at the same time may use together")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("employees.admission.queued", this, AnalysisAdmission::getQueuedCount)
+                .description("Uploads waiting for memory to be released")
+                .register(registry);
+        this.rejected = Counter.builder("employees.admission.rejected")
+                .description("Uploads rejected because the memory budget was exhausted")
+                .register(registry);
+    }
+
+    /**
+     * Estimates the memory cost of an upload and waits until it fits into the budget.
+     *
+     * @param upload The uploaded CSV file, plain or compressed.
+     * @param size   The size of the upload in bytes, as sent by the client.
+     * @return The permit, to be closed when the analysis is done.
+     * @throws OverBudgetException If the upload cannot be admitted in time.
+     */
+    public Permit admit(InputStreamSource upload, long size) {
+        return acquire(enabled ? estimateBytes(upload, size) : 0);
+    }
+
+    /**
+     * Waits until an upload probed before, e.g. for the result cache, fits into the budget.
+     *
+     * @param upload The probe of the upload.
+     * @return The permit, to be closed when the analysis is done.
+     * @throws OverBudgetException If the upload cannot be admitted in time.
+     */
+    public Permit admit(UploadProbe upload) {
+        return admitRows(upload.estimatedRows());
+    }
+
+    /**
+     * Estimates the memory cost of a file in the import directory, a CSV file or a snapshot, and waits until
+     * it fits into the budget.
+     *
+     * @param file The file to analyze.
+     * @return The permit, to be closed when the analysis is done.
+     * @throws OverBudgetException If the file cannot be admitted in time.
+     * @throws IOException         If the file cannot be read.
+     */
+    public Permit admit(Path file) throws IOException {
+        if (!enabled) {
+            return acquire(0);
+        }
+        long size = Files.size(file);
+        return AssignmentSnapshot.isSnapshot(file)
+                ? admitRows(AssignmentSnapshot.recordCount(size))
+                : admit(new FileSystemResource(file), size);
+    }
+
+    /**
+     * Waits until an analysis of a known number of rows, e.g. of a snapshot, fits into the budget.
+     *
+     * @param rows The number of rows the analysis loads.
+     * @return The permit, to be closed when the analysis is done.
+     * @throws OverBudgetException If the rows cannot be admitted in time.
+     */
+    public Permit admitRows(long rows) {
+        return acquire(enabled ? BASE_BYTES + rows * bytesPerRow : 0);
+    }
+
+    /**
+     * Estimates the heap an analysis of the upload needs, from its size and the rows in its first bytes.
+     *
+     * @param upload The uploaded CSV file, plain or compressed.
+     * @param size   The size of the upload in bytes.
+     * @return The estimated heap in bytes.
+     */
+    public long estimateBytes(InputStreamSource upload, long size) {
+        return BASE_BYTES + UploadProbe.estimateRows(upload, size) * bytesPerRow;
+    }
+
+    /**
+     * Reserves heap for an analysis, waiting in line until it fits into the budget.
+     *
+     * @param bytes The heap to reserve; capped at the whole budget.
+     * @return The permit, to be closed when the analysis is done.
+     * @throws OverBudgetException If the queue is full or the budget is not released within the queue timeout.
+     */
+    public synchronized Permit acquire(long bytes) {
+        long cost = Math.min(bytes, budgetBytes);
+        if (waiting.isEmpty() && usedBytes + cost <= budgetBytes) {
+            usedBytes += cost;
+            return new Permit(cost);
+        }
+        if (waiting.size() >= queueCapacity) {
+            throw reject("Too many uploads are waiting for memory. Please retry later.");
+        }
+
+        Object ticket = new Object();
+        waiting.addLast(ticket);
+        long deadline = System.nanoTime() + queueTimeout.toNanos();
+        try {
+            while (waiting.peekFirst() != ticket || usedBytes + cost > budgetBytes) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw reject("The server is busy analyzing other uploads. Please retry later.");
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            usedBytes += cost;
+            return new Permit(cost);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("The upload was interrupted while waiting for memory.");
+        } finally {
+            waiting.remove(ticket);
+            // The next upload in line may fit now
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return The estimated heap reserved by the admitted uploads, in bytes.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return The heap budget in bytes.
+     */
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @return The number of uploads waiting for budget.
+     */
+    public synchronized int getQueuedCount() {
+        return waiting.size();
+    }
+
+    private OverBudgetException reject(String message) {
+        rejected.increment();
+        return new OverBudgetException(message, retryAfter);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.entity.AnalysisJobStatus;
+import com.example.petrankapopovaemployees.entity.AnalysisPhase;
+
+import java.time.Instant;
+
+/**
+ * An upload analyzed in the background by {@link AnalysisJobService}.
+ */
+public class AnalysisJob {
+    private final String id;
+    private final AnalysisProgress progress = new AnalysisProgress();
+    private volatile AnalysisResult result;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    AnalysisJob(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public AnalysisProgress getProgress() {
+        return progress;
+    }
+
+    /**
+     * Returns the result of the analysis.
+     *
+     * @return The result, or null while the job is not done or if it failed.
+     */
+    public AnalysisResult getResult() {
+        return result;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void complete(AnalysisResult result, Instant now) {
+        this.result = result;
+        this.finishedAt = now;
+        progress.setPhase(AnalysisPhase.DONE);
+    }
+
+    void fail(String error, Instant now) {
+        this.error = error;
+        this.finishedAt = now;
+        progress.setPhase(AnalysisPhase.FAILED);
+    }
+
+    /**
+     * Returns a snapshot of the job state for clients.
+     *
+     * @return The current status.
+     */
+    public AnalysisJobStatus toStatus() {
+        return new AnalysisJobStatus(id, progress.getPhase(), progress.getRowsParsed(), progress.getBytesRead(),
+                progress.getUncompressedBytesRead(), error);
+    }
+}
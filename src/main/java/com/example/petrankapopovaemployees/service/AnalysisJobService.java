@@ -0,0 +1,238 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Runs upload analyses in the background so that large files do not block a servlet thread.
+ * <p>
+ * Jobs run on a bounded pool of virtual threads with a bounded queue. When all workers are busy and the
+ * queue is full, new jobs are rejected with a {@link RejectedExecutionException}. The upload is copied to a
+ * temporary file on submission, since the multipart data is released when the request ends. Finished jobs
+ * are kept for a retention period so their result can be polled. The number of finished jobs and the rows their
+ * results hold are bounded; when a limit is exceeded, the jobs that finished first are dropped before they
+ * expire. A job whose result alone holds more rows than allowed fails instead.
+ * <p>
+ * A started job is admitted against the heap budget like an upload to the endpoints. It stays queued while it
+ * waits for a permit, and fails with the rejection message if it is not admitted within the queue timeout.
+ */
+@Service
+public class AnalysisJobService {
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    private final EmployeeService employeeService;
+    private final AnalysisResultCache resultCache;
+    private final AnalysisAdmission admission;
+    private final AnalysisProperties.Jobs properties;
+    private final Clock clock;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Finished jobs in the order they finished, guarded by this service.
+     */
+    private final Deque<AnalysisJob> finishedJobs = new ArrayDeque<>();
+    private long retainedRows;
+
+    /**
+     * Jobs holding the results of uploads analyzed outside of a job, by content and date, guarded by this service.
+     */
+    private final Map<String, AnalysisJob> retainedUploads = new HashMap<>();
+
+    @Autowired
+    public AnalysisJobService(EmployeeService employeeService, AnalysisResultCache resultCache,
+                              AnalysisAdmission admission, AnalysisProperties properties, Clock clock) {
+        this.employeeService = employeeService;
+        this.resultCache = resultCache;
+        this.admission = admission;
+        this.properties = properties.getJobs();
+        this.clock = clock;
+        int concurrency = Math.max(1, this.properties.getConcurrency());
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, this.properties.getQueueCapacity())),
+                Thread.ofVirtual().name("analysis-job-", 0).factory());
+    }
+
+    /**
+     * Submits an upload for background analysis.
+     *
+     * @param file      The uploaded CSV file containing employee project data.
+     * @param streaming Whether to use the streaming analysis, which returns only the longest working pair and
+     *                  the number of merged rows.
+     * @return The submitted job.
+     * @throws IOException                If the upload cannot be copied to a temporary file.
+     * @throws RejectedExecutionException If the job queue is full.
+     */
+    public AnalysisJob submit(MultipartFile file, boolean streaming) throws IOException {
+        purgeExpiredJobs();
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Analysis job queue is full");
+        }
+        Path copy = Files.createTempFile("analysis-job-", ".csv");
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString());
+        try {
+            file.transferTo(copy);
+            jobs.put(job.getId(), job);
+            executor.execute(() -> run(job, copy, streaming));
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(copy);
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Keeps the result of an upload analyzed outside of a job as a finished job, so that it can be polled like
+     * the result of a submitted upload within the retention period. An upload is kept once: while its job is
+     * retained, it is returned for the same content instead of keeping the result again. The result counts
+     * towards the limits of the finished jobs.
+     *
+     * @param upload The probe of the upload; it must have been hashed.
+     * @param result The analysis result of the upload.
+     * @return The finished job holding the result, or empty if the result holds more rows than finished jobs
+     *         may retain.
+     */
+    public synchronized Optional<AnalysisJob> retain(UploadProbe upload, AnalysisResult result) {
+        Optional<AnalysisJob> retained = findRetained(upload);
+        if (retained.isPresent() || result.getRowCount() > properties.getMaxRetainedRows()) {
+            return retained;
+        }
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        retainedUploads.put(retainKey(upload), job);
+        finish(job, result, null);
+        return Optional.of(job);
+    }
+
+    /**
+     * Looks up the finished job holding the result of an upload kept by {@link #retain}.
+     *
+     * @param upload The probe of the upload.
+     * @return The job, or empty if the upload was not hashed or its result is not retained.
+     */
+    public synchronized Optional<AnalysisJob> findRetained(UploadProbe upload) {
+        if (upload.hash() == null) {
+            return Optional.empty();
+        }
+        purgeExpiredJobs();
+        return Optional.ofNullable(retainedUploads.get(retainKey(upload)));
+    }
+
+    /**
+     * Looks up a job that is running or finished within the retention period.
+     *
+     * @param jobId The ID of the job.
+     * @return The job, or empty if it is unknown or has expired.
+     */
+    public Optional<AnalysisJob> find(String jobId) {
+        purgeExpiredJobs();
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Stops the workers, interrupting running jobs.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(AnalysisJob job, Path copy, boolean streaming) {
+        FileSystemResource source = new FileSystemResource(copy);
+        AnalysisProgress progress = job.getProgress();
+        try {
+            UploadProbe upload = UploadProbe.of(source, Files.size(copy), resultCache.isEnabled());
+            try (AnalysisAdmission.Permit permit = admission.admit(upload)) {
+                AnalysisResult result = resultCache.getOrCompute(upload, streaming ? "streaming" : "full", () -> streaming
+                        ? employeeService.analyzeStreaming(source, progress)
+                        : employeeService.analyze(source, progress));
+                finish(job, result, null);
+            }
+        } catch (AnalysisAdmission.OverBudgetException e) {
+            finish(job, null, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Analysis job {} failed", job.getId(), e);
+            finish(job, null, "An error occurred while processing the file.");
+        } finally {
+            try {
+                Files.deleteIfExists(copy);
+            } catch (IOException e) {
+                logger.warn("Could not delete temporary file {}: {}", copy, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return The number of parsed rows held by the results of the finished jobs.
+     */
+    public synchronized long getRetainedRows() {
+        return retainedRows;
+    }
+
+    /**
+     * Completes a job with its result, or fails it with the error, and drops the jobs that finished first
+     * while the retained jobs exceed their limits.
+     */
+    private synchronized void finish(AnalysisJob job, AnalysisResult result, String error) {
+        if (result != null && result.getRowCount() > properties.getMaxRetainedRows()) {
+            result = null;
+            error = "The result has more rows than finished jobs may retain.";
+        }
+        if (result != null) {
+            job.complete(result, clock.instant());
+        } else {
+            job.fail(error, clock.instant());
+        }
+        finishedJobs.addLast(job);
+        retainedRows += rowCount(job);
+        while (finishedJobs.size() > Math.max(1, properties.getMaxRetained())
+                || retainedRows > properties.getMaxRetainedRows()) {
+            drop(finishedJobs.pollFirst());
+        }
+    }
+
+    private synchronized void purgeExpiredJobs() {
+        Instant cutoff = clock.instant().minus(properties.getRetention());
+        while (!finishedJobs.isEmpty() && finishedJobs.peekFirst().getFinishedAt().isBefore(cutoff)) {
+            drop(finishedJobs.pollFirst());
+        }
+    }
+
+    private void drop(AnalysisJob job) {
+        jobs.remove(job.getId());
+        retainedUploads.values().remove(job);
+        retainedRows -= rowCount(job);
+    }
+
+    /**
+     * Open end dates resolve to the date of the analysis, so results are only reused on the same day.
+     */
+    private String retainKey(UploadProbe upload) {
+        return upload.hash() + '|' + LocalDate.now(clock);
+    }
+
+    private static long rowCount(AnalysisJob job) {
+        return job.getResult() == null ? 0 : job.getResult().getRowCount();
+    }
+}
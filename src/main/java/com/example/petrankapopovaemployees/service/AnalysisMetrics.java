@@ -0,0 +1,121 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes the measurements of finished analyses to Micrometer and logs a per-phase breakdown of slow ones.
+ * Every meter is tagged with the operation ({@code full}, {@code streaming}, {@code rank}, {@code load},
+ * {@code import} or {@code snapshot}), so the phases of the different upload endpoints can be told apart in
+ * {@code /actuator/metrics}. A streaming analysis that falls back to the full one is recorded as an abandoned
+ * {@code streaming} pass followed by a {@code full} one.
+ */
+@Component
+public class AnalysisMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisMetrics.class);
+
+    private final MeterRegistry registry;
+
+    /**
+     * Analyses taking at least this long are logged with their phase breakdown.
+     */
+    private final Duration slowRequestThreshold;
+
+    @Autowired
+    public AnalysisMetrics(MeterRegistry registry, AnalysisProperties properties) {
+        this.registry = registry;
+        this.slowRequestThreshold = properties.getSlowRequestThreshold();
+    }
+
+    /**
+     * Finishes the trace and records it.
+     *
+     * @param operation The kind of analysis, used as the {@code operation} tag.
+     * @param trace     The measurements of the analysis.
+     */
+    public void record(String operation, AnalysisTrace trace) {
+        trace.finish();
+        Timer.builder("employees.analysis.duration")
+                .description("Total time of an analysis")
+                .tag("operation", operation)
+                .register(registry)
+                .record(trace.getTotalNanos(), TimeUnit.NANOSECONDS);
+        for (AnalysisTrace.Phase phase : AnalysisTrace.Phase.values()) {
+            Timer.builder("employees.analysis.phase")
+                    .description("Time spent in one phase of an analysis")
+                    .tag("operation", operation)
+                    .tag("phase", phase.name().toLowerCase())
+                    .register(registry)
+                    .record(trace.getPhaseNanos(phase), TimeUnit.NANOSECONDS);
+        }
+
+        Counter.builder("employees.analysis.rows")
+                .description("CSV records read, including rejected ones")
+                .tag("operation", operation)
+                .register(registry)
+                .increment(trace.getRowsRead());
+        Counter.builder("employees.analysis.rows.collapsed")
+                .description("Rows merged into an overlapping row of the same employee and project")
+                .tag("operation", operation)
+                .register(registry)
+                .increment(trace.getCollapsedRows());
+        for (AnalysisTrace.RejectReason reason : AnalysisTrace.RejectReason.values()) {
+            long rejected = trace.getRejectedRows(reason);
+            if (rejected > 0) {
+                Counter.builder("employees.analysis.rows.rejected")
+                        .description("CSV records skipped during parsing")
+                        .tag("operation", operation)
+                        .tag("reason", reason.name().toLowerCase())
+                        .register(registry)
+                        .increment(rejected);
+            }
+        }
+
+        if (trace.getTotalNanos() > 0) {
+            summary("employees.analysis.throughput", "rows/s", operation)
+                    .record(trace.getRowsRead() * 1e9 / trace.getTotalNanos());
+        }
+        summary("employees.analysis.bytes.read", "bytes", operation).record(trace.getBytesRead());
+        summary("employees.analysis.bytes.uncompressed", "bytes", operation).record(trace.getUncompressedBytesRead());
+        if (trace.getAllocatedBytes() >= 0) {
+            summary("employees.analysis.allocated", "bytes", operation).record(trace.getAllocatedBytes());
+        }
+        summary("employees.analysis.active.set.size", "rows", operation).record(trace.getMaxActiveSetSize());
+        summary("employees.analysis.pairs", "pairs", operation).record(trace.getPairCount());
+
+        if (trace.getTotalNanos() >= slowRequestThreshold.toNanos()) {
+            logger.warn("Slow {} analysis took {} ms (csv {} ms, dates {} ms, sort {} ms, coalesce {} ms, sweep {} ms): "
+                            + "{} rows, {} collapsed, {} bytes read ({} uncompressed), {} bytes allocated, active set {}, {} pairs",
+                    operation, millis(trace.getTotalNanos()),
+                    millis(trace.getPhaseNanos(AnalysisTrace.Phase.CSV)),
+                    millis(trace.getPhaseNanos(AnalysisTrace.Phase.DATES)),
+                    millis(trace.getPhaseNanos(AnalysisTrace.Phase.SORT)),
+                    millis(trace.getPhaseNanos(AnalysisTrace.Phase.COALESCE)),
+                    millis(trace.getPhaseNanos(AnalysisTrace.Phase.SWEEP)),
+                    trace.getRowsRead(), trace.getCollapsedRows(), trace.getBytesRead(),
+                    trace.getUncompressedBytesRead(), trace.getAllocatedBytes(),
+                    trace.getMaxActiveSetSize(), trace.getPairCount());
+        }
+    }
+
+    private DistributionSummary summary(String name, String baseUnit, String operation) {
+        return DistributionSummary.builder(name)
+                .baseUnit(baseUnit)
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.entity.AnalysisPhase;
+
+/**
+ * Progress of a running analysis. Updated by the analyzing thread and safe to read from any other thread.
+ */
+public class AnalysisProgress {
+
+    /**
+     * Number of parsed rows between two updates of {@link #getRowsParsed()}, to keep the parsing loop cheap.
+     */
+    static final int ROWS_PER_UPDATE = 1024;
+
+    private volatile AnalysisPhase phase = AnalysisPhase.QUEUED;
+    private volatile long rowsParsed;
+    private volatile long bytesRead;
+    private volatile long uncompressedBytesRead;
+
+    public AnalysisPhase getPhase() {
+        return phase;
+    }
+
+    public void setPhase(AnalysisPhase phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Returns the number of CSV records read so far, including skipped ones.
+     * While parsing, the value is updated every {@value #ROWS_PER_UPDATE} records.
+     *
+     * @return The number of records read.
+     */
+    public long getRowsParsed() {
+        return rowsParsed;
+    }
+
+    public void setRowsParsed(long rowsParsed) {
+        this.rowsParsed = rowsParsed;
+    }
+
+    /**
+     * Returns the number of bytes read from the upload so far, i.e. compressed bytes for compressed uploads.
+     * Updated together with {@link #getRowsParsed()}.
+     *
+     * @return The number of bytes read.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of bytes parsed so far after decompression.
+     *
+     * @return The number of uncompressed bytes read.
+     */
+    public long getUncompressedBytesRead() {
+        return uncompressedBytesRead;
+    }
+
+    public void setBytesRead(long bytesRead, long uncompressedBytesRead) {
+        this.bytesRead = bytesRead;
+        this.uncompressedBytesRead = uncompressedBytesRead;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.entity.EmployeeProjectPage;
+import com.example.petrankapopovaemployees.entity.EmployeeWorkResponse;
+import com.example.petrankapopovaemployees.entity.EmployeeWorkSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of analyzing an upload: the longest working pair and, unless the upload was streamed,
+ * the parsed rows in file order. The rows stay in columnar form, so a result costs about 16 bytes per row
+ * until a response actually needs {@link EmployeeProject} objects, and then only for the rows it returns.
+ */
+public class AnalysisResult {
+    private final AssignmentTable rows;
+    private final EmployeePair longestWorkingPair;
+    private final Integer collapsedRowCount;
+
+    /**
+     * Creates a result without a collapsed row count.
+     *
+     * @param rows               The parsed rows in file order, or null if they were not kept.
+     * @param longestWorkingPair The longest working pair, or null if no employees worked together.
+     */
+    public AnalysisResult(AssignmentTable rows, EmployeePair longestWorkingPair) {
+        this(rows, longestWorkingPair, null);
+    }
+
+    /**
+     * Creates a result.
+     *
+     * @param rows               The parsed rows in file order, or null if they were not kept.
+     * @param longestWorkingPair The longest working pair, or null if no employees worked together.
+     * @param collapsedRowCount  The number of rows merged into an overlapping row of the same employee and
+     *                           project before the analysis, or null if not known.
+     */
+    public AnalysisResult(AssignmentTable rows, EmployeePair longestWorkingPair, Integer collapsedRowCount) {
+        this.rows = rows;
+        this.longestWorkingPair = longestWorkingPair;
+        this.collapsedRowCount = collapsedRowCount;
+    }
+
+    public EmployeePair getLongestWorkingPair() {
+        return longestWorkingPair;
+    }
+
+    public Integer getCollapsedRowCount() {
+        return collapsedRowCount;
+    }
+
+    /**
+     * Returns whether the parsed rows were kept.
+     *
+     * @return false for streamed analyses.
+     */
+    public boolean hasRows() {
+        return rows != null;
+    }
+
+    /**
+     * Returns the number of parsed rows.
+     *
+     * @return The number of rows, or 0 if they were not kept.
+     */
+    public int getRowCount() {
+        return rows == null ? 0 : rows.size();
+    }
+
+    /**
+     * Returns one parsed row.
+     *
+     * @param row The index of the row in file order.
+     * @return The row as an employee project.
+     */
+    public EmployeeProject getRow(int row) {
+        return rows.toEmployeeProject(row);
+    }
+
+    /**
+     * Returns the result without its rows.
+     *
+     * @return The summary; the row count is null if the rows were not kept.
+     */
+    public EmployeeWorkSummary toSummary() {
+        return new EmployeeWorkSummary(rows == null ? null : rows.size(), collapsedRowCount, longestWorkingPair);
+    }
+
+    /**
+     * Returns the whole result, with every row.
+     *
+     * @return The response; the rows are null if they were not kept.
+     */
+    public EmployeeWorkResponse toResponse() {
+        return new EmployeeWorkResponse(rows == null ? null : rows.toEmployeeProjects(), longestWorkingPair);
+    }
+
+    /**
+     * Returns a range of rows.
+     *
+     * @param offset The index of the first row, in file order.
+     * @param limit  The maximum number of rows.
+     * @return The page, with the offset of the next page or null if it is the last one.
+     */
+    public EmployeeProjectPage toPage(int offset, int limit) {
+        int rowCount = getRowCount();
+        int start = Math.min(Math.max(offset, 0), rowCount);
+        int end = (int) Math.min(rowCount, (long) start + limit);
+        List<EmployeeProject> employeeProjects = new ArrayList<>(end - start);
+        for (int row = start; row < end; row++) {
+            employeeProjects.add(rows.toEmployeeProject(row));
+        }
+        return new EmployeeProjectPage(employeeProjects, start, end < rowCount ? end : null, rowCount);
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.opencsv.exceptions.CsvValidationException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of analysis results, keyed by a SHA-256 hash of the uploaded bytes and the analysis parameters.
+ * A hit skips both CSV parsing and the pair computation; only the hash of the upload is computed, in the same
+ * pass as the row estimate of admission control (see {@link UploadProbe}).
+ * <p>
+ * The cache is bounded by the number of entries and by the total number of rows the cached results hold,
+ * evicting the least recently used entries first. Entries also expire after a time to live. Since NULL end
+ * dates resolve to the current date, results are only valid for the day they were computed on: the current
+ * date is part of the key and the whole cache is cleared when the date changes.
+ * <p>
+ * Concurrent lookups of the same key are coalesced: only the first one computes the result, the others wait
+ * for it and count as hits. The counters are published as {@code employees.analysis.cache.*} meters.
+ */
+@Component
+public class AnalysisResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisResultCache.class);
+
+    /**
+     * Computes an analysis result on a cache miss.
+     */
+    @FunctionalInterface
+    public interface Computation {
+        AnalysisResult compute() throws IOException, CsvValidationException;
+    }
+
+    /**
+     * Snapshot of the cache counters.
+     *
+     * @param hits      Number of lookups answered from the cache or by a computation already in flight.
+     * @param misses    Number of lookups that had to compute the result.
+     * @param evictions Number of entries removed because of the size bounds, expiry or a date change.
+     * @param entries   Number of entries currently cached.
+     * @param rows      Number of rows held by the cached results.
+     */
+    public record Stats(long hits, long misses, long evictions, int entries, long rows) {
+    }
+
+    private record Entry(AnalysisResult result, long rows, Instant expiresAt) {
+    }
+
+    private final AnalysisProperties.Cache properties;
+    private final Clock clock;
+
+    /**
+     * Cached entries in access order, least recently used first.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Results being computed, by key; later lookups of the same key wait for them instead of computing again.
+     */
+    private final Map<String, CompletableFuture<AnalysisResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private long cachedRows;
+    private LocalDate cachedDate;
+
+    @Autowired
+    public AnalysisResultCache(AnalysisProperties properties, Clock clock, MeterRegistry registry) {
+        this.properties = properties.getCache();
+        this.clock = clock;
+
+        FunctionCounter.builder("employees.analysis.cache.hits", hits, AtomicLong::get)
+                .description("Uploads answered from the cache or by an identical upload being analyzed")
+                .register(registry);
+        FunctionCounter.builder("employees.analysis.cache.misses", misses, AtomicLong::get)
+                .description("Uploads that had to be analyzed")
+                .register(registry);
+        FunctionCounter.builder("employees.analysis.cache.evictions", evictions, AtomicLong::get)
+                .description("Cached results removed because of the size bounds, expiry or a date change")
+                .register(registry);
+        Gauge.builder("employees.analysis.cache.entries", this, cache -> cache.stats().entries())
+                .description("Cached results")
+                .register(registry);
+        Gauge.builder("employees.analysis.cache.rows", this, cache -> cache.stats().rows())
+                .description("Rows held by the cached results")
+                .baseUnit("rows")
+                .register(registry);
+    }
+
+    /**
+     * Returns the cached result for the uploaded content and parameters, computing and caching it on a miss.
+     *
+     * @param file        The uploaded file.
+     * @param parameters  The analysis parameters that influence the result, e.g. the analysis mode.
+     * @param computation Computes the result on a miss.
+     * @return The cached or newly computed result.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public AnalysisResult getOrCompute(InputStreamSource file, String parameters, Computation computation)
+            throws IOException, CsvValidationException {
+        if (!properties.isEnabled()) {
+            return computation.compute();
+        }
+        return getOrCompute(UploadProbe.of(file, 0, true), parameters, computation);
+    }
+
+    /**
+     * Returns the cached result for an upload probed before, e.g. for admission, computing and caching it on
+     * a miss. The upload is not read again; the result is computed without caching if it was not hashed.
+     *
+     * @param upload      The probe of the uploaded file.
+     * @param parameters  The analysis parameters that influence the result, e.g. the analysis mode.
+     * @param computation Computes the result on a miss.
+     * @return The cached or newly computed result.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public AnalysisResult getOrCompute(UploadProbe upload, String parameters, Computation computation)
+            throws IOException, CsvValidationException {
+        if (!properties.isEnabled() || upload.hash() == null) {
+            return computation.compute();
+        }
+        String key = upload.hash() + '|' + parameters + '|' + LocalDate.now(clock);
+        AnalysisResult cached = get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            logger.debug("Analysis cache hit for {}", key);
+            return cached;
+        }
+
+        CompletableFuture<AnalysisResult> flight = new CompletableFuture<>();
+        CompletableFuture<AnalysisResult> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            hits.incrementAndGet();
+            logger.debug("Waiting for the analysis in flight for {}", key);
+            return await(running);
+        }
+        try {
+            // The previous computation of the key may have finished between the lookup and the registration
+            cached = get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                flight.complete(cached);
+                return cached;
+            }
+            misses.incrementAndGet();
+            AnalysisResult result = computation.compute();
+            put(key, result);
+            flight.complete(result);
+            return result;
+        } catch (IOException | CsvValidationException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * @return Whether repeated uploads are answered from the cache, i.e. whether uploads need to be hashed.
+     */
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Tells whether a result is small enough to be kept by the cache, so that repeated lookups of its upload
+     * are answered without analyzing it again.
+     *
+     * @param result The analysis result.
+     * @return True if the cache is enabled and the result holds no more than the cache's row limit.
+     */
+    public boolean isCacheable(AnalysisResult result) {
+        return properties.isEnabled() && result.getRowCount() <= properties.getMaxRows();
+    }
+
+    /**
+     * Returns the current counters of the cache.
+     *
+     * @return A snapshot of the cache statistics.
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), entries.size(), cachedRows);
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public synchronized void clear() {
+        evictions.addAndGet(entries.size());
+        entries.clear();
+        cachedRows = 0;
+    }
+
+    private synchronized AnalysisResult get(String key) {
+        invalidateIfDateChanged();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!clock.instant().isBefore(entry.expiresAt())) {
+            remove(key);
+            return null;
+        }
+        return entry.result();
+    }
+
+    private synchronized void put(String key, AnalysisResult result) {
+        invalidateIfDateChanged();
+        long rows = result.getRowCount();
+        if (rows > properties.getMaxRows()) {
+            logger.debug("Not caching analysis of {} rows, above the cache limit", rows);
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(result, rows, clock.instant().plus(properties.getTimeToLive())));
+        if (previous != null) {
+            cachedRows -= previous.rows();
+        }
+        cachedRows += rows;
+        Iterator<Map.Entry<String, Entry>> leastRecentlyUsed = entries.entrySet().iterator();
+        while (entries.size() > properties.getMaxEntries() || cachedRows > properties.getMaxRows()) {
+            cachedRows -= leastRecentlyUsed.next().getValue().rows();
+            leastRecentlyUsed.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            cachedRows -= removed.rows();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void invalidateIfDateChanged() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.equals(cachedDate)) {
+            if (!entries.isEmpty()) {
+                logger.debug("Date changed to {}, clearing {} cached analyses", today, entries.size());
+                clear();
+            }
+            cachedDate = today;
+        }
+    }
+
+    /**
+     * Waits for a computation started by another lookup and rethrows its failure.
+     */
+    private static AnalysisResult await(CompletableFuture<AnalysisResult> running)
+            throws IOException, CsvValidationException {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the analysis in flight");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof CsvValidationException csvException) {
+                throw csvException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw (Error) cause;
+        }
+    }
+}
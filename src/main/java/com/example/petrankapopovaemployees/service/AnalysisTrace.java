@@ -0,0 +1,214 @@
+package com.example.petrankapopovaemployees.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measurements of a single analysis: time per phase, row counts, bytes read and heap allocation.
+ * Created when a request starts and published to {@link AnalysisMetrics} when it finishes.
+ * <p>
+ * Per-row timing would cost as much as parsing a date, so the date parsing time is estimated from
+ * one row in {@value #DATE_SAMPLE_INTERVAL} and subtracted from the parsing loop to get the CSV reading time.
+ */
+public class AnalysisTrace {
+
+    /**
+     * Timed phases of an analysis.
+     */
+    public enum Phase {
+        /**
+         * Reading CSV records and parsing the IDs.
+         */
+        CSV,
+        /**
+         * Parsing the start and end dates.
+         */
+        DATES,
+        /**
+         * Sorting the rows by project and start date.
+         */
+        SORT,
+        /**
+         * Merging overlapping rows of the same employee on the same project.
+         */
+        COALESCE,
+        /**
+         * Sweeping the projects for overlapping assignments.
+         */
+        SWEEP
+    }
+
+    /**
+     * Reasons a CSV record is skipped.
+     */
+    public enum RejectReason {
+        TOO_FEW_COLUMNS,
+        NON_NUMERIC,
+        INVALID_DATE,
+        INVALID_RANGE
+    }
+
+    /**
+     * One row in this many has its date parsing timed.
+     */
+    static final int DATE_SAMPLE_INTERVAL = 64;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long startNanos = System.nanoTime();
+    private final long startAllocatedBytes = allocatedBytes();
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] rejectedRows = new long[RejectReason.values().length];
+    private final AtomicInteger maxActiveSetSize = new AtomicInteger();
+    private long parseNanos;
+    private long sampledDateNanos;
+    private long sampledDateRows;
+    private long rowsRead;
+    private long bytesRead;
+    private long uncompressedBytesRead;
+    private int pairCount;
+    private long collapsedRows;
+    private long totalNanos = -1;
+    private long allocated = -1;
+
+    void addPhaseNanos(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    /**
+     * Adds the duration of a whole parsing loop, which covers both the CSV and the dates phase.
+     */
+    void addParseNanos(long nanos, long records) {
+        parseNanos += nanos;
+        rowsRead += records;
+    }
+
+    void addDateSample(long nanos) {
+        sampledDateNanos += nanos;
+        sampledDateRows++;
+    }
+
+    void reject(RejectReason reason) {
+        rejectedRows[reason.ordinal()]++;
+    }
+
+    /**
+     * Adds the rejected rows and date samples of a trace that measured part of the same upload.
+     */
+    void mergeParsing(AnalysisTrace part) {
+        for (int i = 0; i < rejectedRows.length; i++) {
+            rejectedRows[i] += part.rejectedRows[i];
+        }
+        sampledDateNanos += part.sampledDateNanos;
+        sampledDateRows += part.sampledDateRows;
+    }
+
+    /**
+     * Adds the bytes read from an upload and the bytes they decompressed to; both are equal for plain files.
+     */
+    void addBytesRead(long bytes, long uncompressedBytes) {
+        bytesRead += bytes;
+        uncompressedBytesRead += uncompressedBytes;
+    }
+
+    /**
+     * Records the size of an active set. Safe to call from parallel sweep tasks.
+     */
+    void recordActiveSetSize(int size) {
+        maxActiveSetSize.accumulateAndGet(size, Math::max);
+    }
+
+    void setPairCount(int pairCount) {
+        this.pairCount = pairCount;
+    }
+
+    void addCollapsedRows(long rows) {
+        collapsedRows += rows;
+    }
+
+    /**
+     * Stops the clock and the allocation counter. Further calls have no effect.
+     */
+    void finish() {
+        if (totalNanos < 0) {
+            totalNanos = System.nanoTime() - startNanos;
+            long allocatedNow = allocatedBytes();
+            allocated = allocatedNow < 0 || startAllocatedBytes < 0 ? -1 : allocatedNow - startAllocatedBytes;
+        }
+    }
+
+    /**
+     * Returns the time spent in a phase. The CSV and dates phases are split from the parsing loop by sampling.
+     *
+     * @param phase The phase.
+     * @return The time in nanoseconds.
+     */
+    public long getPhaseNanos(Phase phase) {
+        long dateNanos = sampledDateRows == 0 ? 0
+                : Math.min(parseNanos, sampledDateNanos * (rowsRead / sampledDateRows));
+        return switch (phase) {
+            case CSV -> phaseNanos[phase.ordinal()] + parseNanos - dateNanos;
+            case DATES -> phaseNanos[phase.ordinal()] + dateNanos;
+            default -> phaseNanos[phase.ordinal()];
+        };
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRejectedRows(RejectReason reason) {
+        return rejectedRows[reason.ordinal()];
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the number of bytes the parser consumed after decompression.
+     *
+     * @return The uncompressed size of the input; equal to {@link #getBytesRead()} for plain files.
+     */
+    public long getUncompressedBytesRead() {
+        return uncompressedBytesRead;
+    }
+
+    /**
+     * Returns the bytes allocated by the request thread. Allocations of parallel sweep workers are not included.
+     *
+     * @return The allocated bytes, or -1 if the JVM does not measure thread allocation.
+     */
+    public long getAllocatedBytes() {
+        return allocated;
+    }
+
+    public int getMaxActiveSetSize() {
+        return maxActiveSetSize.get();
+    }
+
+    /**
+     * Returns the number of rows merged into another row of the same employee and project before the sweep.
+     *
+     * @return The number of collapsed rows.
+     */
+    public long getCollapsedRows() {
+        return collapsedRows;
+    }
+
+    public int getPairCount() {
+        return pairCount;
+    }
+
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.petrankapopovaemployees.service;
+
+/**
+ * Receives the parsed rows of an upload one by one, with dates expressed as epoch days.
+ */
+@FunctionalInterface
+public interface AssignmentConsumer {
+
+    /**
+     * Accepts one valid assignment row.
+     *
+     * @param empId     The ID of the employee.
+     * @param projectId The ID of the project.
+     * @param dateFrom  The start date as days since 1970-01-01.
+     * @param dateTo    The end date as days since 1970-01-01, never before {@code dateFrom}.
+     */
+    void accept(int empId, int projectId, int dateFrom, int dateTo);
+}
@@ -0,0 +1,235 @@
+package com.example.petrankapopovaemployees.service;
+
+import java.util.Arrays;
+
+/**
+ * Per-project interval index over a table sorted by project ID and start date, answering which assignments
+ * intersect a date window.
+ * <p>
+ * Every project's rows form an implicit balanced binary search tree over their sorted positions: the node at
+ * position {@code i} has level {@code k} when the lowest {@code k} bits of {@code i} are set and bit {@code k}
+ * is clear, and its children are {@code i - 2^(k-1)} and {@code i + 2^(k-1)}. Each node is augmented with the
+ * latest end date of its subtree, so a query skips every subtree that ends before the window and stops at
+ * rows starting after it. A query costs O(log n + m) for m intersecting rows, with one extra {@code int} per
+ * row and no per-node objects.
+ */
+public final class AssignmentIntervalIndex {
+
+    /**
+     * Subtrees up to this level (at most 15 rows) are scanned linearly instead of descended.
+     */
+    private static final int SCAN_LEVEL = 3;
+
+    private final AssignmentTable table;
+
+    /**
+     * Distinct project IDs, ascending.
+     */
+    private final int[] projectIds;
+
+    /**
+     * First row of every project, followed by the table size.
+     */
+    private final int[] projectStarts;
+
+    /**
+     * Level of the root of every project's tree.
+     */
+    private final int[] rootLevels;
+
+    /**
+     * Latest end date within the subtree rooted at every row.
+     */
+    private final int[] maxEnds;
+
+    /**
+     * Builds the index in O(n) after sorting.
+     *
+     * @param table The assignments to index. The table is sorted by project ID and start date in place and
+     *              must not be modified afterwards.
+     */
+    public AssignmentIntervalIndex(AssignmentTable table) {
+        table.sortByProjectAndStart();
+        this.table = table;
+        int projectCount = 0;
+        for (int row = 0; row < table.size(); row = PairOverlapEngine.projectEnd(table, row)) {
+            projectCount++;
+        }
+        projectIds = new int[projectCount];
+        projectStarts = new int[projectCount + 1];
+        rootLevels = new int[projectCount];
+        maxEnds = new int[table.size()];
+        int project = 0;
+        for (int row = 0; row < table.size(); project++) {
+            int end = PairOverlapEngine.projectEnd(table, row);
+            projectIds[project] = table.getProjectId(row);
+            projectStarts[project] = row;
+            rootLevels[project] = buildTree(row, end - row);
+            row = end;
+        }
+        projectStarts[projectCount] = table.size();
+    }
+
+    /**
+     * Returns the indexed table, sorted by project ID and start date.
+     *
+     * @return The table; it must not be modified.
+     */
+    public AssignmentTable getTable() {
+        return table;
+    }
+
+    /**
+     * Finds the rows of a project whose assignment intersects a date window.
+     *
+     * @param projectId The ID of the project.
+     * @param from      The first day of the window.
+     * @param to        The last day of the window.
+     * @return The intersecting rows of the table, by ascending start date.
+     */
+    public int[] findOverlapping(int projectId, int from, int to) {
+        int project = Arrays.binarySearch(projectIds, projectId);
+        if (project < 0) {
+            return new int[0];
+        }
+        RowBuffer rows = new RowBuffer();
+        query(project, from, to, rows);
+        return Arrays.copyOf(rows.rows, rows.size);
+    }
+
+    /**
+     * Accumulates the days every pair of employees worked together within a date window.
+     * Only the rows intersecting the window are swept.
+     *
+     * @param from The first day of the window.
+     * @param to   The last day of the window.
+     * @return The pair totals, clipped to the window.
+     */
+    public PairAccumulator accumulate(int from, int to) {
+        PairAccumulator accumulator = new PairAccumulator();
+        PairOverlapEngine.ActiveSet active = new PairOverlapEngine.ActiveSet(table);
+        RowBuffer rows = new RowBuffer();
+        for (int project = 0; project < projectIds.length; project++) {
+            rows.size = 0;
+            query(project, from, to, rows);
+            if (rows.size > 1) {
+                PairOverlapEngine.sweepWindow(table, rows.rows, rows.size, from, to, active, accumulator);
+            }
+        }
+        return accumulator;
+    }
+
+    /**
+     * Returns the days two employees worked together on one project within a date window.
+     *
+     * @param projectId The ID of the project.
+     * @param empId1    The ID of one employee.
+     * @param empId2    The ID of the other employee.
+     * @param from      The first day of the window.
+     * @param to        The last day of the window.
+     * @return The overlapping days within the window, or zero.
+     */
+    public long getDays(int projectId, int empId1, int empId2, int from, int to) {
+        int[] rows = findOverlapping(projectId, from, to);
+        int count = 0;
+        for (int row : rows) {
+            if (table.getEmpId(row) == empId1 || table.getEmpId(row) == empId2) {
+                rows[count++] = row;
+            }
+        }
+        PairAccumulator accumulator = new PairAccumulator();
+        PairOverlapEngine.sweepWindow(table, rows, count, from, to, new PairOverlapEngine.ActiveSet(table), accumulator);
+        return accumulator.getDays(empId1, empId2);
+    }
+
+    /**
+     * Computes the subtree end dates of one project's rows.
+     *
+     * @return The level of the root.
+     */
+    private int buildTree(int offset, int n) {
+        int lastIndex = 0;
+        int last = 0;
+        for (int i = 0; i < n; i += 2) {
+            lastIndex = i;
+            last = maxEnds[offset + i] = table.getDateTo(offset + i);
+        }
+        int level = 1;
+        for (; (1L << level) <= n; level++) {
+            int half = 1 << (level - 1);
+            long step = (long) half << 2;
+            for (long i = (half << 1) - 1; i < n; i += step) {
+                int node = (int) i;
+                int leftEnd = maxEnds[offset + node - half];
+                // A right subtree beyond the last row ends with the last complete subtree seen so far
+                int rightEnd = node + half < n ? maxEnds[offset + node + half] : last;
+                maxEnds[offset + node] = Math.max(table.getDateTo(offset + node), Math.max(leftEnd, rightEnd));
+            }
+            lastIndex = ((lastIndex >> level) & 1) != 0 ? lastIndex - half : lastIndex + half;
+            if (lastIndex < n && maxEnds[offset + lastIndex] > last) {
+                last = maxEnds[offset + lastIndex];
+            }
+        }
+        return level - 1;
+    }
+
+    /**
+     * Appends the rows of a project intersecting the window to the buffer, in ascending order.
+     */
+    private void query(int project, int from, int to, RowBuffer out) {
+        int offset = projectStarts[project];
+        int n = projectStarts[project + 1] - offset;
+        if (table.getDateFrom(offset) > to) {
+            return;
+        }
+        // Every node is visited twice: once to descend left, once to report itself and descend right
+        int[] nodes = new int[64];
+        int[] levels = new int[64];
+        boolean[] leftVisited = new boolean[64];
+        int top = 0;
+        nodes[top] = (1 << rootLevels[project]) - 1;
+        levels[top] = rootLevels[project];
+        leftVisited[top++] = false;
+        while (top > 0) {
+            top--;
+            int node = nodes[top];
+            int level = levels[top];
+            if (level <= SCAN_LEVEL) {
+                int first = node >> level << level;
+                int last = Math.min(first + (1 << (level + 1)) - 1, n);
+                for (int i = first; i < last && table.getDateFrom(offset + i) <= to; i++) {
+                    if (table.getDateTo(offset + i) >= from) {
+                        out.add(offset + i);
+                    }
+                }
+            } else if (!leftVisited[top]) {
+                int left = node - (1 << (level - 1));
+                leftVisited[top++] = true;
+                if (left >= n || maxEnds[offset + left] >= from) {
+                    nodes[top] = left;
+                    levels[top] = level - 1;
+                    leftVisited[top++] = false;
+                }
+            } else if (node < n && table.getDateFrom(offset + node) <= to) {
+                if (table.getDateTo(offset + node) >= from) {
+                    out.add(offset + node);
+                }
+                nodes[top] = node + (1 << (level - 1));
+                levels[top] = level - 1;
+                leftVisited[top++] = false;
+            }
+        }
+    }
+
+    private static final class RowBuffer {
+        private int[] rows = new int[16];
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.petrankapopovaemployees.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Turns CSV records of the form {@code EmpID,ProjectID,DateFrom,DateTo} into assignments.
+ * Records with fewer than four columns, non-numeric IDs, unknown date formats or an end date
+ * before the start date are skipped; a NULL end date resolves to the upload's current date.
+ * <p>
+ * Records can be given as the fields read by OpenCSV or as a range of bytes of an unquoted file.
+ * The byte form parses plain ASCII records in place and hands every other record to the field form,
+ * so both give the same result for the same record. Instances hold per-column date parsers and must not
+ * be shared between threads.
+ */
+class AssignmentRecordParser {
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentRecordParser.class);
+
+    private final int today;
+    private final AnalysisTrace trace;
+    private final DateParser dateFromParser = new DateParser();
+    private final DateParser dateToParser = new DateParser();
+    private final ByteSequence dateFromBytes = new ByteSequence();
+    private final ByteSequence dateToBytes = new ByteSequence();
+
+    /**
+     * @param today The epoch day NULL end dates resolve to.
+     * @param trace Receives the rejected records and the date parsing samples.
+     */
+    AssignmentRecordParser(int today, AnalysisTrace trace) {
+        this.today = today;
+        this.trace = trace;
+    }
+
+    /**
+     * Parses a record read by OpenCSV.
+     *
+     * @param fields   The fields of the record, untrimmed.
+     * @param record   The number of the record in the file, starting at 1.
+     * @param consumer Receives the assignment if the record is valid.
+     */
+    void parse(String[] fields, long record, AssignmentConsumer consumer) {
+        if (fields.length < 4) {
+            trace.reject(AnalysisTrace.RejectReason.TOO_FEW_COLUMNS);
+            return;
+        }
+        try {
+            int empId = Integer.parseInt(fields[0].trim());
+            int projectId = Integer.parseInt(fields[1].trim());
+            parseDates(empId, projectId, fields[2].trim(), fields[3].trim(), record, consumer);
+        } catch (NumberFormatException e) {
+            logger.warn("Skipping non-numeric value: {}", e.getMessage());
+            trace.reject(AnalysisTrace.RejectReason.NON_NUMERIC);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Skipping invalid date: {}", e.getMessage());
+            trace.reject(AnalysisTrace.RejectReason.INVALID_DATE);
+        }
+    }
+
+    /**
+     * Parses a record of a file without quotes or escapes, given as a range of bytes without the line terminator.
+     *
+     * @param bytes    The buffer holding the record.
+     * @param start    The index of the first byte of the record.
+     * @param end      The index after the last byte of the record.
+     * @param record   The number of the record within its part of the file, starting at 1.
+     * @param consumer Receives the assignment if the record is valid.
+     */
+    void parse(ByteBuffer bytes, int start, int end, long record, AssignmentConsumer consumer) {
+        int comma1 = indexOfComma(bytes, start, end);
+        int comma2 = indexOfComma(bytes, comma1 + 1, end);
+        int comma3 = indexOfComma(bytes, comma2 + 1, end);
+        if (comma3 >= end) {
+            trace.reject(AnalysisTrace.RejectReason.TOO_FEW_COLUMNS);
+            return;
+        }
+        int fieldsEnd = indexOfComma(bytes, comma3 + 1, end);
+        int empId = isAscii(bytes, start, fieldsEnd) ? parseDigits(bytes, start, comma1) : -1;
+        int projectId = empId < 0 ? -1 : parseDigits(bytes, comma1 + 1, comma2);
+        if (projectId < 0) {
+            // Signs, overflow, non-ASCII text and invalid IDs take the exact path of the OpenCSV records
+            byte[] line = new byte[end - start];
+            bytes.get(start, line);
+            parse(new String(line, StandardCharsets.UTF_8).split(",", -1), record, consumer);
+            return;
+        }
+        try {
+            parseDates(empId, projectId, trimmed(dateFromBytes, bytes, comma2 + 1, comma3),
+                    trimmed(dateToBytes, bytes, comma3 + 1, fieldsEnd), record, consumer);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Skipping invalid date: {}", e.getMessage());
+            trace.reject(AnalysisTrace.RejectReason.INVALID_DATE);
+        }
+    }
+
+    private void parseDates(int empId, int projectId, CharSequence dateFromValue, CharSequence dateToValue,
+                            long record, AssignmentConsumer consumer) {
+        boolean sampled = record % AnalysisTrace.DATE_SAMPLE_INTERVAL == 0;
+        long datesStart = sampled ? System.nanoTime() : 0;
+        int dateFrom = toEpochDay(dateFromParser.parseEpochDay(dateFromValue));
+        int dateTo = isNull(dateToValue) ? today : toEpochDay(dateToParser.parseEpochDay(dateToValue));
+        if (sampled) {
+            trace.addDateSample(System.nanoTime() - datesStart);
+        }
+
+        if (dateTo < dateFrom) {
+            logger.warn("Invalid date range: {} - {}", LocalDate.ofEpochDay(dateFrom), LocalDate.ofEpochDay(dateTo));
+            trace.reject(AnalysisTrace.RejectReason.INVALID_RANGE);
+            return;
+        }
+
+        consumer.accept(empId, projectId, dateFrom, dateTo);
+    }
+
+    /**
+     * Narrows an epoch day to an int, which covers every year the analysis can meaningfully handle.
+     *
+     * @throws IllegalArgumentException If the date is too far from 1970 to be represented.
+     */
+    static int toEpochDay(long epochDay) {
+        if (epochDay < Integer.MIN_VALUE || epochDay > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Date out of range: " + LocalDate.ofEpochDay(epochDay));
+        }
+        return (int) epochDay;
+    }
+
+    /**
+     * Checks for the NULL end date, ignoring case like {@link String#equalsIgnoreCase(String)}.
+     */
+    private static boolean isNull(CharSequence value) {
+        if (value instanceof String string) {
+            return string.equalsIgnoreCase("NULL");
+        }
+        return value.length() == 4
+                && (value.charAt(0) | 0x20) == 'n'
+                && (value.charAt(1) | 0x20) == 'u'
+                && (value.charAt(2) | 0x20) == 'l'
+                && (value.charAt(3) | 0x20) == 'l';
+    }
+
+    private static int indexOfComma(ByteBuffer bytes, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (bytes.get(i) == ',') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static boolean isAscii(ByteBuffer bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (bytes.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a trimmed field of one to nine ASCII digits.
+     *
+     * @return The value, or -1 if the field holds anything else.
+     */
+    private static int parseDigits(ByteBuffer bytes, int start, int end) {
+        while (start < end && bytes.get(start) <= ' ') {
+            start++;
+        }
+        while (end > start && bytes.get(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = bytes.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Points the sequence at a field with its surrounding whitespace removed, like {@link String#trim()}.
+     */
+    private static ByteSequence trimmed(ByteSequence sequence, ByteBuffer bytes, int start, int end) {
+        while (start < end && bytes.get(start) <= ' ') {
+            start++;
+        }
+        while (end > start && bytes.get(end - 1) <= ' ') {
+            end--;
+        }
+        return sequence.set(bytes, start, end);
+    }
+
+    /**
+     * Reusable view of a range of ASCII bytes as characters.
+     */
+    private static final class ByteSequence implements CharSequence {
+        private ByteBuffer bytes;
+        private int start;
+        private int length;
+
+        ByteSequence set(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.length = end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) bytes.get(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().subSequence(from, to);
+        }
+
+        @Override
+        public String toString() {
+            byte[] value = new byte[length];
+            bytes.get(start, value);
+            return new String(value, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.petrankapopovaemployees.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of a parsed dataset, so that repeated analyses of the same history skip CSV parsing.
+ * <p>
+ * Layout, little-endian:
+ * <pre>
+ * offset  size  field
+ *      0     4  magic "EMPS"
+ *      4     4  format version ({@value #VERSION})
+ *      8     4  flags (bit 0: rows sorted by project ID and start date)
+ *     12     4  record count n
+ *     16     8  CRC-32C of the data section
+ *     24     8  reserved, zero
+ *     32   4n   employee IDs
+ *   32+4n  4n   project IDs
+ *   32+8n  4n   start dates, as epoch days
+ *  32+12n  4n   end dates, as epoch days
+ * </pre>
+ * Snapshots are written sorted, so loading one skips the sort as well. Rows are therefore returned in sweep order,
+ * not in the order of the original CSV. NULL end dates are stored as the date the CSV was parsed on.
+ * <p>
+ * Loading maps the file and bulk-copies each column into an {@code int[]}; the columns are laid out exactly as
+ * {@link AssignmentTable} holds them, so a load costs about one memory copy of the data.
+ */
+public final class AssignmentSnapshot {
+
+    /**
+     * Thrown when a file is not a valid snapshot.
+     */
+    public static class InvalidSnapshotException extends IOException {
+        public InvalidSnapshotException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Media type of snapshot downloads.
+     */
+    public static final String CONTENT_TYPE = "application/vnd.employees.snapshot";
+
+    static final int MAGIC = 'E' | 'M' << 8 | 'P' << 16 | 'S' << 24;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    private static final int FLAG_SORTED = 1;
+    private static final int COLUMNS = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AssignmentSnapshot() {
+    }
+
+    /**
+     * Checks whether a file starts with the snapshot magic number.
+     *
+     * @param file The file to check.
+     * @return True if the file looks like a snapshot.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(magic, 0) == 4 && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the table as a snapshot. The table is sorted by project ID and start date in place.
+     *
+     * @param table  The rows to write.
+     * @param output The stream receiving the snapshot; it is not closed.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public static void write(AssignmentTable table, OutputStream output) throws IOException {
+        table.sortByProjectAndStart();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32C checksum = new CRC32C();
+        writeColumns(table, buffer, checksum, null);
+
+        buffer.clear();
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(FLAG_SORTED).putInt(table.size())
+                .putLong(checksum.getValue()).putLong(0);
+        output.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+        writeColumns(table, buffer, null, output);
+    }
+
+    /**
+     * Returns the number of records a snapshot of the given size holds, without reading it.
+     *
+     * @param size The size of the snapshot in bytes.
+     * @return The record count, or zero if the size is too small for a snapshot.
+     */
+    public static long recordCount(long size) {
+        return Math.max(0, size - HEADER_SIZE) / (COLUMNS * Integer.BYTES);
+    }
+
+    /**
+     * Loads a snapshot file by memory-mapping it.
+     *
+     * @param file The snapshot file.
+     * @return The rows, sorted by project ID and start date.
+     * @throws InvalidSnapshotException If the file is not a valid snapshot.
+     * @throws IOException              If the file cannot be read.
+     */
+    public static AssignmentTable read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new InvalidSnapshotException("Unexpected snapshot size: " + size);
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Loads a snapshot from a stream, e.g. an upload.
+     *
+     * @param input The stream holding the snapshot; it is not closed.
+     * @return The rows, sorted by project ID and start date.
+     * @throws InvalidSnapshotException If the stream does not hold a valid snapshot.
+     * @throws IOException              If the stream cannot be read.
+     */
+    public static AssignmentTable read(InputStream input) throws IOException {
+        byte[] header = input.readNBytes(HEADER_SIZE);
+        if (header.length < HEADER_SIZE) {
+            throw new InvalidSnapshotException("Snapshot header is truncated");
+        }
+        long count = checkHeader(ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN));
+        long dataSize = count * COLUMNS * Integer.BYTES;
+        if (HEADER_SIZE + dataSize > Integer.MAX_VALUE) {
+            throw new InvalidSnapshotException("Snapshot is too large: " + count + " records");
+        }
+        // The record count is not trusted until the data arrived: the buffer grows with the bytes read, so a
+        // forged count fails on the short read instead of allocating its claimed size up front
+        int size = (int) (HEADER_SIZE + dataSize);
+        byte[] snapshot = Arrays.copyOf(header, Math.min(size, HEADER_SIZE + BUFFER_SIZE));
+        int position = HEADER_SIZE;
+        while (position < size) {
+            if (position == snapshot.length) {
+                snapshot = Arrays.copyOf(snapshot, (int) Math.min(size, 2L * snapshot.length));
+            }
+            int read = input.read(snapshot, position, snapshot.length - position);
+            if (read < 0) {
+                throw new InvalidSnapshotException("Snapshot data is truncated");
+            }
+            position += read;
+        }
+        if (input.read() >= 0) {
+            throw new InvalidSnapshotException("Unexpected data after the snapshot");
+        }
+        return read(ByteBuffer.wrap(snapshot));
+    }
+
+    private static AssignmentTable read(ByteBuffer snapshot) throws InvalidSnapshotException {
+        snapshot.order(ByteOrder.LITTLE_ENDIAN);
+        int count = checkHeader(snapshot);
+        long checksum = snapshot.getLong(16);
+        if (snapshot.capacity() != HEADER_SIZE + (long) count * COLUMNS * Integer.BYTES) {
+            throw new InvalidSnapshotException("Snapshot size does not match its record count of " + count);
+        }
+        CRC32C actualChecksum = new CRC32C();
+        actualChecksum.update(snapshot.slice(HEADER_SIZE, snapshot.capacity() - HEADER_SIZE));
+        if (actualChecksum.getValue() != checksum) {
+            throw new InvalidSnapshotException("Snapshot checksum mismatch");
+        }
+
+        IntBuffer columns = snapshot.slice(HEADER_SIZE, snapshot.capacity() - HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        int[][] values = new int[COLUMNS][count];
+        for (int[] column : values) {
+            columns.get(column);
+        }
+        AssignmentTable table = new AssignmentTable(values[0], values[1], values[2], values[3]);
+        if (!table.isSortedByProjectAndStart()) {
+            throw new InvalidSnapshotException("Snapshot rows are not sorted");
+        }
+        return table;
+    }
+
+    /**
+     * Validates the fixed header fields.
+     *
+     * @return The record count.
+     */
+    private static int checkHeader(ByteBuffer header) throws InvalidSnapshotException {
+        if (header.getInt(0) != MAGIC) {
+            throw new InvalidSnapshotException("Not a snapshot file");
+        }
+        int version = header.getInt(4);
+        if (version != VERSION) {
+            throw new InvalidSnapshotException("Unsupported snapshot version " + version);
+        }
+        if ((header.getInt(8) & FLAG_SORTED) == 0) {
+            throw new InvalidSnapshotException("Snapshot rows are not sorted");
+        }
+        int count = header.getInt(12);
+        if (count < 0) {
+            throw new InvalidSnapshotException("Invalid record count " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Serializes the columns through the buffer, feeding them to the checksum and/or the output.
+     */
+    private static void writeColumns(AssignmentTable table, ByteBuffer buffer, CRC32C checksum, OutputStream output)
+            throws IOException {
+        for (int column = 0; column < COLUMNS; column++) {
+            for (int row = 0; row < table.size(); row++) {
+                if (!buffer.hasRemaining()) {
+                    flush(buffer, checksum, output);
+                }
+                buffer.putInt(switch (column) {
+                    case 0 -> table.getEmpId(row);
+                    case 1 -> table.getProjectId(row);
+                    case 2 -> table.getDateFrom(row);
+                    default -> table.getDateTo(row);
+                });
+            }
+        }
+        flush(buffer, checksum, output);
+    }
+
+    private static void flush(ByteBuffer buffer, CRC32C checksum, OutputStream output) throws IOException {
+        if (checksum != null) {
+            checksum.update(buffer.array(), 0, buffer.position());
+        }
+        if (output != null) {
+            output.write(buffer.array(), 0, buffer.position());
+        }
+        buffer.clear();
+    }
+}
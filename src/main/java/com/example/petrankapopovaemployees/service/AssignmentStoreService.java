@@ -0,0 +1,427 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.repository.AssignmentRepository;
+import com.opencsv.exceptions.CsvValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Keeps the assignments in the database together with materialized per-pair totals.
+ * A full upload replaces the store and computes the totals once. Delta uploads only touch the employees and
+ * projects they contain: the days an employee's assignments on a project gain or lose are paired with the
+ * stored assignments overlapping them, so the longest pair is available without re-analyzing the whole dataset.
+ * <p>
+ * The overlapping assignments of an employee on a project are merged before pairing, like the upload analysis
+ * does, so duplicated rows do not count days twice. NULL end dates are stored as open and resolve to the date
+ * of the query: overlaps of ended assignments are materialized as days, overlaps involving an open-ended
+ * assignment are stored as date ranges and counted when the pairs are queried.
+ */
+@Service
+public class AssignmentStoreService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentStoreService.class);
+
+    private final EmployeeService employeeService;
+    private final AssignmentRepository repository;
+
+    /**
+     * Sequential engine pairing the ended assignments of a full upload; the store always merges the
+     * overlapping assignments of an employee.
+     */
+    private final PairOverlapEngine engine = new PairOverlapEngine(null, Integer.MAX_VALUE, true);
+
+    /**
+     * Clock used to resolve open end dates when the pairs are queried.
+     */
+    private final Clock clock;
+
+    @Autowired
+    public AssignmentStoreService(EmployeeService employeeService, AssignmentRepository repository, Clock clock) {
+        this.employeeService = employeeService;
+        this.repository = repository;
+        this.clock = clock;
+    }
+
+    /**
+     * Replaces all stored assignments with the content of the file and recomputes the pair totals.
+     *
+     * @param file The CSV file with the new dataset.
+     * @return The pair who worked together the longest, or null if no employees worked together.
+     */
+    @Transactional
+    public EmployeePair replaceAll(InputStreamSource file) throws IOException, CsvValidationException {
+        AssignmentTable table = employeeService.loadOpenAssignmentTable(file);
+        repository.deleteAll();
+        repository.insertAssignments(table);
+
+        table.sortByProjectAndStart();
+        table.coalesce();
+        AssignmentTable ended = new AssignmentTable(table.size());
+        for (int row = 0; row < table.size(); row++) {
+            if (table.getDateTo(row) != AssignmentTable.OPEN_END) {
+                ended.accept(table.getEmpId(row), table.getProjectId(row), table.getDateFrom(row), table.getDateTo(row));
+            }
+        }
+        engine.forEachProject(ended, (projectId, pairs) -> repository.addPairDays(projectId, pairs, 1));
+        repository.addOpenOverlaps(findOpenOverlaps(table));
+        logger.info("Stored {} assignments", repository.countAssignments());
+        return findLongestPair();
+    }
+
+    /**
+     * Adds the assignments of the file to the store and updates the pair totals of the affected employees.
+     *
+     * @param file The CSV file with the assignments to add.
+     * @return The pair who worked together the longest after the update, or null if there is none.
+     */
+    @Transactional
+    public EmployeePair addAssignments(InputStreamSource file) throws IOException, CsvValidationException {
+        int added = applyDelta(file, true);
+        logger.info("Added {} assignments", added);
+        return findLongestPair();
+    }
+
+    /**
+     * Removes the assignments of the file from the store and subtracts the days they no longer cover from the
+     * pair totals. Every row removes one stored assignment with exactly the same values, an open-ended row an
+     * open-ended assignment; rows that are not stored are ignored.
+     *
+     * @param file The CSV file with the assignments to remove.
+     * @return The pair who worked together the longest after the update, or null if there is none.
+     */
+    @Transactional
+    public EmployeePair removeAssignments(InputStreamSource file) throws IOException, CsvValidationException {
+        int removed = applyDelta(file, false);
+        repository.deleteEmptyPairs();
+        logger.info("Removed {} assignments", removed);
+        return findLongestPair();
+    }
+
+    /**
+     * Returns the pair who worked together the longest according to the stored totals.
+     *
+     * @return The longest working pair, or null if no employees worked together.
+     */
+    @Transactional(readOnly = true)
+    public EmployeePair findLongestPair() {
+        List<EmployeePair> pairs = findTopPairs(1);
+        return pairs.isEmpty() ? null : pairs.get(0);
+    }
+
+    /**
+     * Returns the pairs with the most days worked together according to the stored totals, counting open
+     * overlaps up to the current date.
+     * <p>
+     * Every pair with an open overlap is ranked with its full total. The other pairs are exact in the
+     * materialized totals, so their best {@code k} are among the best {@code k} plus the number of pairs with
+     * open overlaps there.
+     *
+     * @param k The maximum number of pairs.
+     * @return Up to {@code k} pairs, longest first.
+     */
+    @Transactional(readOnly = true)
+    public List<EmployeePair> findTopPairs(int k) {
+        int today = (int) LocalDate.now(clock).toEpochDay();
+        Map<Long, Map<Integer, Long>> openDays = new HashMap<>();
+        Map<OpenOverlap, Integer> openOverlaps = repository.findOpenOverlaps();
+        Set<Long> openPairs = new HashSet<>();
+        openOverlaps.forEach((overlap, weight) -> {
+            long key = PairAccumulator.pairKey(overlap.empId1(), overlap.empId2());
+            openPairs.add(key);
+            long days = weight * overlap.getDays(today);
+            if (days != 0) {
+                openDays.computeIfAbsent(key, pair -> new HashMap<>()).merge(overlap.projectId(), days, Long::sum);
+            }
+        });
+
+        Map<Long, EmployeePair> candidates = new HashMap<>();
+        int limit = (int) Math.min(Integer.MAX_VALUE, (long) k + openPairs.size());
+        for (EmployeePair pair : repository.findTopPairTotals(limit)) {
+            candidates.put(PairAccumulator.pairKey((int) pair.getEmployeeId1(), (int) pair.getEmployeeId2()), pair);
+        }
+        if (!openPairs.isEmpty()) {
+            for (EmployeePair pair : repository.findOpenPairTotals()) {
+                candidates.put(PairAccumulator.pairKey((int) pair.getEmployeeId1(), (int) pair.getEmployeeId2()), pair);
+            }
+        }
+
+        List<EmployeePair> ranking = new ArrayList<>();
+        candidates.forEach((key, pair) -> {
+            long days = pair.getDaysWorkedTogether();
+            for (long projectDays : openDays.getOrDefault(key, Map.of()).values()) {
+                days += projectDays;
+            }
+            if (days > 0) {
+                pair.setDaysWorkedTogether(days);
+                ranking.add(pair);
+            }
+        });
+        ranking.sort(Comparator.comparingLong(EmployeePair::getDaysWorkedTogether).reversed()
+                .thenComparingLong(EmployeePair::getEmployeeId1)
+                .thenComparingLong(EmployeePair::getEmployeeId2));
+        List<EmployeePair> top = ranking.subList(0, Math.min(k, ranking.size()));
+        for (EmployeePair pair : top) {
+            int empId1 = (int) pair.getEmployeeId1();
+            int empId2 = (int) pair.getEmployeeId2();
+            Map<Integer, Long> projectDays = repository.findPairProjectDays(empId1, empId2);
+            openDays.getOrDefault(PairAccumulator.pairKey(empId1, empId2), Map.of())
+                    .forEach((projectId, days) -> projectDays.merge(projectId, days, Long::sum));
+            List<Integer> projectIds = new ArrayList<>();
+            projectDays.forEach((projectId, days) -> {
+                if (days > 0) {
+                    projectIds.add(projectId);
+                }
+            });
+            pair.setProjectIds(projectIds);
+        }
+        return new ArrayList<>(top);
+    }
+
+    /**
+     * Finds the overlaps involving an open-ended assignment in a table sorted by project and start date and
+     * coalesced. An open-ended assignment overlaps exactly the assignments of its project that end on or after
+     * its start, so with the rows ordered by end date these are found by a binary search, and only the rows
+     * that actually overlap are visited.
+     */
+    private static Map<OpenOverlap, Integer> findOpenOverlaps(AssignmentTable table) {
+        Map<OpenOverlap, Integer> openOverlaps = new HashMap<>();
+        int projectStart = 0;
+        while (projectStart < table.size()) {
+            int projectEnd = PairOverlapEngine.projectEnd(table, projectStart);
+            if (hasOpenEnd(table, projectStart, projectEnd)) {
+                long[] byEnd = new long[projectEnd - projectStart];
+                for (int row = projectStart; row < projectEnd; row++) {
+                    byEnd[row - projectStart] = ((long) table.getDateTo(row) << 32) | row;
+                }
+                Arrays.sort(byEnd);
+                int projectId = table.getProjectId(projectStart);
+                for (int row = projectStart; row < projectEnd; row++) {
+                    if (table.getDateTo(row) != AssignmentTable.OPEN_END) {
+                        continue;
+                    }
+                    int dateFrom = table.getDateFrom(row);
+                    int first = Arrays.binarySearch(byEnd, (long) dateFrom << 32);
+                    for (int i = first < 0 ? -first - 1 : first; i < byEnd.length; i++) {
+                        int other = (int) byEnd[i];
+                        // A pair of open-ended rows is added once, from the row that comes first
+                        if (other == row || table.getDateTo(other) == AssignmentTable.OPEN_END && other < row) {
+                            continue;
+                        }
+                        addOverlap(projectId, table.getEmpId(row), dateFrom, AssignmentTable.OPEN_END,
+                                table.getEmpId(other), table.getDateFrom(other), table.getDateTo(other),
+                                null, openOverlaps, 1);
+                    }
+                }
+            }
+            projectStart = projectEnd;
+        }
+        return openOverlaps;
+    }
+
+    private static boolean hasOpenEnd(AssignmentTable table, int start, int end) {
+        for (int row = start; row < end; row++) {
+            if (table.getDateTo(row) == AssignmentTable.OPEN_END) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds or removes the rows of the file. The rows are inserted or deleted in batches first; then, one
+     * employee and project at a time, the coverage of the employee's merged assignments is compared before
+     * and after the change, and only the days gained or lost are paired with the other employees' stored
+     * assignments. Employees of the project that are updated later are paired in their previous state, so
+     * that the overlap of two changed employees is counted once.
+     *
+     * @return The number of rows added or removed.
+     */
+    private int applyDelta(InputStreamSource file, boolean add) throws IOException, CsvValidationException {
+        AssignmentTable delta = employeeService.loadOpenAssignmentTable(file);
+        delta.sortByProjectAndStart();
+        boolean[] changed = new boolean[delta.size()];
+        if (add) {
+            repository.insertAssignments(delta);
+            Arrays.fill(changed, true);
+        } else {
+            changed = repository.deleteAssignments(delta);
+        }
+        int count = 0;
+        int projectStart = 0;
+        while (projectStart < delta.size()) {
+            int projectEnd = PairOverlapEngine.projectEnd(delta, projectStart);
+            Map<Integer, List<int[]>> rowsByEmployee = new LinkedHashMap<>();
+            for (int row = projectStart; row < projectEnd; row++) {
+                if (!changed[row]) {
+                    logger.warn("Assignment of employee {} on project {} from {} is not stored, skipping",
+                            delta.getEmpId(row), delta.getProjectId(row), LocalDate.ofEpochDay(delta.getDateFrom(row)));
+                    continue;
+                }
+                rowsByEmployee.computeIfAbsent(delta.getEmpId(row), empId -> new ArrayList<>())
+                        .add(new int[]{delta.getDateFrom(row), delta.getDateTo(row)});
+                count++;
+            }
+            int projectId = delta.getProjectId(projectStart);
+            Map<Integer, List<int[]>> pending = new HashMap<>(rowsByEmployee);
+            for (Map.Entry<Integer, List<int[]>> rows : rowsByEmployee.entrySet()) {
+                pending.remove(rows.getKey());
+                updateEmployee(projectId, rows.getKey(), rows.getValue(), add, pending);
+            }
+            projectStart = projectEnd;
+        }
+        return count;
+    }
+
+    /**
+     * Updates the pair totals of an employee on a project whose rows were already inserted or deleted.
+     *
+     * @param pending The inserted or deleted rows of the employees of the project that are updated later.
+     */
+    private void updateEmployee(int projectId, int empId, List<int[]> rows, boolean add,
+                                Map<Integer, List<int[]>> pending) {
+        List<int[]> stored = ranges(repository.findEmployeeAssignments(projectId, empId));
+        List<int[]> previous = new ArrayList<>(stored);
+        for (int[] range : rows) {
+            if (add) {
+                removeRange(previous, range);
+            } else {
+                previous.add(range);
+            }
+        }
+
+        List<int[]> before = merge(previous);
+        List<int[]> after = merge(stored);
+        PairAccumulator gained = new PairAccumulator();
+        PairAccumulator lost = new PairAccumulator();
+        Map<OpenOverlap, Integer> openOverlaps = new HashMap<>();
+        for (int[] segment : subtract(after, before)) {
+            pairSegment(projectId, empId, segment, add, pending, gained, openOverlaps, 1);
+        }
+        for (int[] segment : subtract(before, after)) {
+            pairSegment(projectId, empId, segment, add, pending, lost, openOverlaps, -1);
+        }
+        repository.addPairDays(projectId, gained, 1);
+        repository.addPairDays(projectId, lost, -1);
+        repository.addOpenOverlaps(openOverlaps);
+    }
+
+    /**
+     * Pairs a range of days an employee gained or lost with the merged stored assignments of the other
+     * employees on the project, undoing the pending changes of the employees updated later.
+     */
+    private void pairSegment(int projectId, int empId, int[] segment, boolean add, Map<Integer, List<int[]>> pending,
+                             PairAccumulator pairs, Map<OpenOverlap, Integer> openOverlaps, int sign) {
+        AssignmentTable others = repository.findOverlapping(projectId, segment[0], segment[1]);
+        Map<Integer, List<int[]>> rangesByEmployee = new HashMap<>();
+        for (int row = 0; row < others.size(); row++) {
+            if (others.getEmpId(row) != empId) {
+                rangesByEmployee.computeIfAbsent(others.getEmpId(row), other -> new ArrayList<>())
+                        .add(new int[]{others.getDateFrom(row), others.getDateTo(row)});
+            }
+        }
+        pending.forEach((otherEmpId, otherRows) -> {
+            List<int[]> ranges = rangesByEmployee.computeIfAbsent(otherEmpId, other -> new ArrayList<>());
+            for (int[] range : otherRows) {
+                if (add) {
+                    removeRange(ranges, range);
+                } else {
+                    ranges.add(range);
+                }
+            }
+        });
+        rangesByEmployee.forEach((otherEmpId, ranges) -> {
+            for (int[] range : merge(ranges)) {
+                addOverlap(projectId, empId, segment[0], segment[1], otherEmpId, range[0], range[1],
+                        pairs, openOverlaps, sign);
+            }
+        });
+    }
+
+    /**
+     * Adds the overlap of two ranges on the same project: as days if both have ended, as an open overlap
+     * with the given sign otherwise.
+     */
+    private static void addOverlap(int projectId, int empId, int dateFrom, int dateTo,
+                                   int otherEmpId, int otherFrom, int otherTo,
+                                   PairAccumulator pairs, Map<OpenOverlap, Integer> openOverlaps, int sign) {
+        int overlapFrom = Math.max(dateFrom, otherFrom);
+        int overlapTo = Math.min(dateTo, otherTo);
+        if (overlapFrom > overlapTo) {
+            return;
+        }
+        if (dateTo == AssignmentTable.OPEN_END || otherTo == AssignmentTable.OPEN_END) {
+            openOverlaps.merge(OpenOverlap.of(empId, otherEmpId, projectId, overlapFrom, overlapTo), sign, Integer::sum);
+        } else {
+            pairs.add(empId, otherEmpId, projectId, overlapTo - overlapFrom + 1);
+        }
+    }
+
+    private static List<int[]> ranges(AssignmentTable table) {
+        List<int[]> ranges = new ArrayList<>(table.size());
+        for (int row = 0; row < table.size(); row++) {
+            ranges.add(new int[]{table.getDateFrom(row), table.getDateTo(row)});
+        }
+        return ranges;
+    }
+
+    private static void removeRange(List<int[]> ranges, int[] range) {
+        for (Iterator<int[]> iterator = ranges.iterator(); iterator.hasNext(); ) {
+            int[] candidate = iterator.next();
+            if (candidate[0] == range[0] && candidate[1] == range[1]) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Merges overlapping ranges into disjoint ones, ordered by start.
+     */
+    static List<int[]> merge(List<int[]> ranges) {
+        List<int[]> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingInt(range -> range[0]));
+        List<int[]> merged = new ArrayList<>();
+        for (int[] range : sorted) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && last[1] >= range[0]) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new int[]{range[0], range[1]});
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the days of the first disjoint ranges that the second ones do not cover, as disjoint ranges.
+     */
+    static List<int[]> subtract(List<int[]> ranges, List<int[]> removed) {
+        List<int[]> remaining = new ArrayList<>();
+        for (int[] range : ranges) {
+            long next = range[0];
+            for (int[] cut : removed) {
+                if (cut[1] < next || cut[0] > range[1]) {
+                    continue;
+                }
+                if (cut[0] > next) {
+                    remaining.add(new int[]{(int) next, cut[0] - 1});
+                }
+                next = (long) cut[1] + 1;
+            }
+            if (next <= range[1]) {
+                remaining.add(new int[]{(int) next, range[1]});
+            }
+        }
+        return remaining;
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar storage for parsed assignments: one {@code int} array per column, with dates as epoch days.
+ * <p>
+ * A row takes 16 bytes, compared to about 116 bytes for an {@link EmployeeProject} with its boxed IDs and
+ * {@link LocalDate} fields referenced from an {@code ArrayList}. Measured on a 64-bit JVM with compressed
+ * references, 1M rows take 15.3 MiB instead of 110.7 MiB and 10M rows take 152.6 MiB instead of 1117.5 MiB.
+ * Growing the arrays can temporarily add up to half of that again, and sorting needs 24 more bytes per row
+ * while it runs.
+ * <p>
+ * {@link EmployeeProject} objects are only created by {@link #toEmployeeProjects()}, when a response needs them.
+ */
+public class AssignmentTable implements AssignmentConsumer {
+
+    /**
+     * End date of an assignment that is still running, for tables loaded without resolving NULL end dates.
+     */
+    public static final int OPEN_END = Integer.MAX_VALUE;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX_SIZE = 1 << RADIX_BITS;
+
+    private int[] empIds;
+    private int[] projectIds;
+    private int[] datesFrom;
+    private int[] datesTo;
+    private int size;
+
+    /**
+     * Creates an empty table.
+     */
+    public AssignmentTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty table with room for the given number of rows.
+     *
+     * @param capacity The initial number of rows.
+     */
+    public AssignmentTable(int capacity) {
+        capacity = Math.max(capacity, 16);
+        empIds = new int[capacity];
+        projectIds = new int[capacity];
+        datesFrom = new int[capacity];
+        datesTo = new int[capacity];
+    }
+
+    /**
+     * Creates a table over existing columns, without copying them.
+     */
+    AssignmentTable(int[] empIds, int[] projectIds, int[] datesFrom, int[] datesTo) {
+        this.empIds = empIds;
+        this.projectIds = projectIds;
+        this.datesFrom = datesFrom;
+        this.datesTo = datesTo;
+        this.size = empIds.length;
+    }
+
+    /**
+     * Creates a table holding the given employee projects, in list order.
+     *
+     * @param employeeProjects The employee projects to copy.
+     * @return A new table.
+     */
+    public static AssignmentTable of(List<EmployeeProject> employeeProjects) {
+        AssignmentTable table = new AssignmentTable(employeeProjects.size());
+        for (EmployeeProject employeeProject : employeeProjects) {
+            table.accept(employeeProject.getEmpId(), employeeProject.getProjectId(),
+                    Math.toIntExact(employeeProject.getDateFrom().toEpochDay()),
+                    Math.toIntExact(employeeProject.getDateTo().toEpochDay()));
+        }
+        return table;
+    }
+
+    /**
+     * Creates an independent copy of this table, trimmed to its size.
+     *
+     * @return A new table with the same rows in the same order.
+     */
+    public AssignmentTable copy() {
+        AssignmentTable copy = new AssignmentTable(0);
+        copy.empIds = Arrays.copyOf(empIds, size);
+        copy.projectIds = Arrays.copyOf(projectIds, size);
+        copy.datesFrom = Arrays.copyOf(datesFrom, size);
+        copy.datesTo = Arrays.copyOf(datesTo, size);
+        copy.size = size;
+        return copy;
+    }
+
+    @Override
+    public void accept(int empId, int projectId, int dateFrom, int dateTo) {
+        if (size == empIds.length) {
+            int capacity = Math.max(16, size + (size >> 1));
+            empIds = Arrays.copyOf(empIds, capacity);
+            projectIds = Arrays.copyOf(projectIds, capacity);
+            datesFrom = Arrays.copyOf(datesFrom, capacity);
+            datesTo = Arrays.copyOf(datesTo, capacity);
+        }
+        empIds[size] = empId;
+        projectIds[size] = projectId;
+        datesFrom[size] = dateFrom;
+        datesTo[size] = dateTo;
+        size++;
+    }
+
+    /**
+     * Appends all rows of another table, in order.
+     *
+     * @param other The table whose rows are appended.
+     */
+    public void addAll(AssignmentTable other) {
+        int required = size + other.size;
+        if (required > empIds.length) {
+            empIds = Arrays.copyOf(empIds, required);
+            projectIds = Arrays.copyOf(projectIds, required);
+            datesFrom = Arrays.copyOf(datesFrom, required);
+            datesTo = Arrays.copyOf(datesTo, required);
+        }
+        System.arraycopy(other.empIds, 0, empIds, size, other.size);
+        System.arraycopy(other.projectIds, 0, projectIds, size, other.size);
+        System.arraycopy(other.datesFrom, 0, datesFrom, size, other.size);
+        System.arraycopy(other.datesTo, 0, datesTo, size, other.size);
+        size = required;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getEmpId(int row) {
+        return empIds[row];
+    }
+
+    public int getProjectId(int row) {
+        return projectIds[row];
+    }
+
+    public int getDateFrom(int row) {
+        return datesFrom[row];
+    }
+
+    public int getDateTo(int row) {
+        return datesTo[row];
+    }
+
+    /**
+     * Checks whether two rows hold exactly the same assignment.
+     *
+     * @param row1 The first row.
+     * @param row2 The second row.
+     * @return True if all four columns are equal.
+     */
+    public boolean sameAssignment(int row1, int row2) {
+        return empIds[row1] == empIds[row2] && projectIds[row1] == projectIds[row2]
+                && datesFrom[row1] == datesFrom[row2] && datesTo[row1] == datesTo[row2];
+    }
+
+    /**
+     * Builds an {@link EmployeeProject} for one row.
+     *
+     * @param row The row index.
+     * @return A new employee project object.
+     */
+    public EmployeeProject toEmployeeProject(int row) {
+        return new EmployeeProject(empIds[row], projectIds[row], LocalDate.ofEpochDay(datesFrom[row]), LocalDate.ofEpochDay(datesTo[row]));
+    }
+
+    /**
+     * Builds {@link EmployeeProject} objects for all rows, in table order.
+     *
+     * @return A new list of employee projects.
+     */
+    public List<EmployeeProject> toEmployeeProjects() {
+        List<EmployeeProject> employeeProjects = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            employeeProjects.add(toEmployeeProject(row));
+        }
+        return employeeProjects;
+    }
+
+    /**
+     * Checks whether the rows are already in sweep order, e.g. because they were loaded from a snapshot.
+     *
+     * @return True if the rows are ordered by project ID and then by start date.
+     */
+    public boolean isSortedByProjectAndStart() {
+        for (int row = 1; row < size; row++) {
+            if (projectIds[row] < projectIds[row - 1]
+                    || (projectIds[row] == projectIds[row - 1] && datesFrom[row] < datesFrom[row - 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the rows by project ID and then by start date, so that every project occupies a contiguous
+     * range of rows in sweep order. Uses a stable LSD radix sort over a packed 64-bit key, which is linear
+     * in the number of rows and skips the digits that are the same for every row.
+     */
+    public void sortByProjectAndStart() {
+        if (isSortedByProjectAndStart()) {
+            return;
+        }
+        long[] keys = new long[size];
+        int[] order = new int[size];
+        for (int row = 0; row < size; row++) {
+            // Flip the sign bits so that the unsigned order of the key matches the signed order of the columns
+            keys[row] = ((long) (projectIds[row] ^ Integer.MIN_VALUE) << 32) | ((datesFrom[row] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+            order[row] = row;
+        }
+
+        long[] keyBuffer = new long[size];
+        int[] orderBuffer = new int[size];
+        int[] counts = new int[RADIX_SIZE];
+        for (int shift = 0; shift < Long.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(int) (keys[i] >>> shift) & (RADIX_SIZE - 1)]++;
+            }
+            if (counts[(int) (keys[0] >>> shift) & (RADIX_SIZE - 1)] == size) {
+                continue;
+            }
+            for (int digit = 0, offset = 0; digit < RADIX_SIZE; digit++) {
+                int count = counts[digit];
+                counts[digit] = offset;
+                offset += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int position = counts[(int) (keys[i] >>> shift) & (RADIX_SIZE - 1)]++;
+                keyBuffer[position] = keys[i];
+                orderBuffer[position] = order[i];
+            }
+            long[] swappedKeys = keys;
+            keys = keyBuffer;
+            keyBuffer = swappedKeys;
+            int[] swappedOrder = order;
+            order = orderBuffer;
+            orderBuffer = swappedOrder;
+        }
+
+        empIds = permute(empIds, order);
+        projectIds = permute(projectIds, order);
+        datesFrom = permute(datesFrom, order);
+        datesTo = permute(datesTo, order);
+    }
+
+    /**
+     * Merges the overlapping assignments of every employee on every project into disjoint ranges, so that
+     * duplicated or overlapping rows of one employee neither count days twice nor pair the employee with itself.
+     * Each merged row keeps the earliest start date and the latest end date of the rows it replaces.
+     * The table must be sorted by project ID and start date and stays sorted.
+     *
+     * @return The number of rows removed.
+     */
+    public int coalesce() {
+        int maxProjectRows = 0;
+        for (int start = 0, end; start < size; start = end) {
+            end = start + 1;
+            while (end < size && projectIds[end] == projectIds[start]) {
+                end++;
+            }
+            maxProjectRows = Math.max(maxProjectRows, end - start);
+        }
+        if (maxProjectRows < 2) {
+            return 0;
+        }
+
+        // Open-addressing map from employee ID to the employee's latest kept row in the current project.
+        // Slots stamped with an older generation belong to earlier projects and count as empty.
+        int mask = (Integer.highestOneBit(maxProjectRows) << 2) - 1;
+        int[] slotEmpIds = new int[mask + 1];
+        int[] slotRows = new int[mask + 1];
+        int[] slotGenerations = new int[mask + 1];
+        int generation = 0;
+        int projectId = 0;
+        int kept = 0;
+        for (int row = 0; row < size; row++) {
+            if (generation == 0 || projectIds[row] != projectId) {
+                projectId = projectIds[row];
+                generation++;
+            }
+            int empId = empIds[row];
+            int slot = (empId * 0x9E3779B9 ^ empId >>> 16) & mask;
+            while (slotGenerations[slot] == generation && slotEmpIds[slot] != empId) {
+                slot = (slot + 1) & mask;
+            }
+            if (slotGenerations[slot] == generation && datesTo[slotRows[slot]] >= datesFrom[row]) {
+                int previous = slotRows[slot];
+                datesTo[previous] = Math.max(datesTo[previous], datesTo[row]);
+                continue;
+            }
+            // Rows are only moved towards the front, so rows not yet visited are never overwritten
+            empIds[kept] = empId;
+            projectIds[kept] = projectId;
+            datesFrom[kept] = datesFrom[row];
+            datesTo[kept] = datesTo[row];
+            slotEmpIds[slot] = empId;
+            slotRows[slot] = kept;
+            slotGenerations[slot] = generation;
+            kept++;
+        }
+        int removed = size - kept;
+        size = kept;
+        return removed;
+    }
+
+    private int[] permute(int[] column, int[] order) {
+        int[] sorted = new int[column.length];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = column[order[i]];
+        }
+        return sorted;
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.entity.CollaborationIndexSummary;
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeePartner;
+import com.example.petrankapopovaemployees.entity.PairCollaboration;
+import com.example.petrankapopovaemployees.entity.ProjectOverlap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of who worked with whom, built once per dataset so that point queries do not re-analyze it.
+ * <p>
+ * Every pair keeps its common projects with the days per project, keyed by the packed pair key of
+ * {@link PairAccumulator}. Every employee keeps its partners sorted by days worked together, longest first,
+ * so the top partners of an employee are a prefix of its adjacency list and cost O(k) to read.
+ * <p>
+ * The rows themselves stay in an {@link AssignmentIntervalIndex}, so pair queries restricted to a date window
+ * only sweep the assignments intersecting the window.
+ */
+public final class CollaborationIndex {
+
+    /**
+     * The index of an empty dataset.
+     */
+    public static final CollaborationIndex EMPTY = new CollaborationIndex(
+            new AssignmentIntervalIndex(new AssignmentTable()), new HashMap<>(), new HashMap<>());
+
+    /**
+     * Partners of one employee, longest collaboration first.
+     */
+    private record Partners(int[] empIds, long[] days) {
+    }
+
+    /**
+     * Common projects of one pair by ascending project ID, with the days per project.
+     */
+    private record PairProjects(int[] projectIds, long[] days, long totalDays) {
+    }
+
+    private final AssignmentIntervalIndex intervals;
+    private final Map<Integer, Partners> partnersByEmployee;
+    private final Map<Long, PairProjects> projectsByPair;
+
+    private CollaborationIndex(AssignmentIntervalIndex intervals, Map<Integer, Partners> partnersByEmployee,
+                               Map<Long, PairProjects> projectsByPair) {
+        this.intervals = intervals;
+        this.partnersByEmployee = partnersByEmployee;
+        this.projectsByPair = projectsByPair;
+    }
+
+    /**
+     * Builds the index of a dataset.
+     *
+     * @param table  The assignments to index. The table is sorted by project ID and start date in place and
+     *               is kept by the index, so it must not be modified afterwards.
+     * @param engine The engine sweeping the projects.
+     * @return The index.
+     */
+    public static CollaborationIndex build(AssignmentTable table, PairOverlapEngine engine) {
+        // Projects are swept in ascending order, so every pair's project list comes out sorted
+        Map<Long, PairProjectsBuilder> pairs = new HashMap<>();
+        engine.forEachProject(table, (projectId, projectPairs) -> projectPairs.forEach((empId1, empId2, days) ->
+                pairs.computeIfAbsent(PairAccumulator.pairKey(empId1, empId2), key -> new PairProjectsBuilder())
+                        .add(projectId, days)));
+
+        Map<Long, PairProjects> projectsByPair = new HashMap<>(pairs.size() * 4 / 3 + 1);
+        Map<Integer, PartnersBuilder> partners = new HashMap<>();
+        pairs.forEach((key, builder) -> {
+            PairProjects pairProjects = builder.build();
+            projectsByPair.put(key, pairProjects);
+            int empId1 = PairAccumulator.firstEmpId(key);
+            int empId2 = PairAccumulator.secondEmpId(key);
+            partners.computeIfAbsent(empId1, empId -> new PartnersBuilder()).add(empId2, pairProjects.totalDays());
+            if (empId1 != empId2) {
+                partners.computeIfAbsent(empId2, empId -> new PartnersBuilder()).add(empId1, pairProjects.totalDays());
+            }
+        });
+
+        Map<Integer, Partners> partnersByEmployee = new HashMap<>(partners.size() * 4 / 3 + 1);
+        partners.forEach((empId, builder) -> partnersByEmployee.put(empId, builder.build()));
+        return new CollaborationIndex(new AssignmentIntervalIndex(table), partnersByEmployee, projectsByPair);
+    }
+
+    /**
+     * Returns the partners an employee worked with the longest.
+     * Partners with the same number of days are ordered by their employee IDs, smallest first.
+     *
+     * @param empId The ID of the employee.
+     * @param k     The maximum number of partners to return.
+     * @return Up to {@code k} partners, longest collaboration first, or null if the employee belongs to no pair.
+     */
+    public List<EmployeePartner> findTopPartners(int empId, int k) {
+        Partners partners = partnersByEmployee.get(empId);
+        if (partners == null) {
+            return null;
+        }
+        int count = Math.min(k, partners.empIds().length);
+        List<EmployeePartner> topPartners = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int partnerId = partners.empIds()[i];
+            PairProjects pairProjects = projectsByPair.get(PairAccumulator.pairKey(empId, partnerId));
+            topPartners.add(new EmployeePartner(partnerId, partners.days()[i], toList(pairProjects.projectIds())));
+        }
+        return topPartners;
+    }
+
+    /**
+     * Returns the overlap details of a pair of employees.
+     *
+     * @param empId1 The ID of one employee.
+     * @param empId2 The ID of the other employee.
+     * @return The days worked together in total and per project, or null if the pair never overlapped.
+     */
+    public PairCollaboration findPair(int empId1, int empId2) {
+        PairProjects pairProjects = projectsByPair.get(PairAccumulator.pairKey(empId1, empId2));
+        if (pairProjects == null) {
+            return null;
+        }
+        List<ProjectOverlap> projects = new ArrayList<>(pairProjects.projectIds().length);
+        for (int i = 0; i < pairProjects.projectIds().length; i++) {
+            projects.add(new ProjectOverlap(pairProjects.projectIds()[i], pairProjects.days()[i]));
+        }
+        return new PairCollaboration(Math.min(empId1, empId2), Math.max(empId1, empId2),
+                pairProjects.totalDays(), projects);
+    }
+
+    /**
+     * Returns the overlap details of a pair of employees, counting only the days within a date window.
+     * Only the pair's common projects are searched, and only their rows intersecting the window are swept.
+     *
+     * @param empId1 The ID of one employee.
+     * @param empId2 The ID of the other employee.
+     * @param from   The first day of the window, as an epoch day.
+     * @param to     The last day of the window, as an epoch day.
+     * @return The days worked together within the window in total and per project, or null if the pair
+     *         did not overlap within the window.
+     */
+    public PairCollaboration findPair(int empId1, int empId2, int from, int to) {
+        PairProjects pairProjects = projectsByPair.get(PairAccumulator.pairKey(empId1, empId2));
+        if (pairProjects == null) {
+            return null;
+        }
+        List<ProjectOverlap> projects = new ArrayList<>();
+        long totalDays = 0;
+        for (int projectId : pairProjects.projectIds()) {
+            long days = intervals.getDays(projectId, empId1, empId2, from, to);
+            if (days > 0) {
+                projects.add(new ProjectOverlap(projectId, days));
+                totalDays += days;
+            }
+        }
+        if (projects.isEmpty()) {
+            return null;
+        }
+        return new PairCollaboration(Math.min(empId1, empId2), Math.max(empId1, empId2), totalDays, projects);
+    }
+
+    /**
+     * Ranks the pairs who worked together the longest within a date window.
+     *
+     * @param from The first day of the window, as an epoch day.
+     * @param to   The last day of the window, as an epoch day.
+     * @param k    The maximum number of pairs to return.
+     * @return Up to {@code k} pairs, longest first, with the days worked together within the window.
+     */
+    public List<EmployeePair> findTopPairs(int from, int to, int k) {
+        return intervals.accumulate(from, to).topPairs(k);
+    }
+
+    /**
+     * Describes the indexed dataset.
+     *
+     * @return The number of rows, employees and pairs.
+     */
+    public CollaborationIndexSummary toSummary() {
+        return new CollaborationIndexSummary(intervals.getTable().size(), partnersByEmployee.size(), projectsByPair.size());
+    }
+
+    private static List<Integer> toList(int[] values) {
+        List<Integer> list = new ArrayList<>(values.length);
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    private static final class PairProjectsBuilder {
+        private int[] projectIds = new int[1];
+        private long[] days = new long[1];
+        private int count;
+        private long totalDays;
+
+        void add(int projectId, long projectDays) {
+            if (count == projectIds.length) {
+                projectIds = Arrays.copyOf(projectIds, count * 2);
+                days = Arrays.copyOf(days, count * 2);
+            }
+            projectIds[count] = projectId;
+            days[count] = projectDays;
+            count++;
+            totalDays += projectDays;
+        }
+
+        PairProjects build() {
+            return new PairProjects(Arrays.copyOf(projectIds, count), Arrays.copyOf(days, count), totalDays);
+        }
+    }
+
+    private static final class PartnersBuilder {
+        private int[] empIds = new int[4];
+        private long[] days = new long[4];
+        private int count;
+
+        void add(int empId, long partnerDays) {
+            if (count == empIds.length) {
+                empIds = Arrays.copyOf(empIds, count * 2);
+                days = Arrays.copyOf(days, count * 2);
+            }
+            empIds[count] = empId;
+            days[count] = partnerDays;
+            count++;
+        }
+
+        /**
+         * Sorts the partners by days worked together, longest first, then by employee ID.
+         */
+        Partners build() {
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (i1, i2) -> {
+                int result = Long.compare(days[i2], days[i1]);
+                return result != 0 ? result : Integer.compare(empIds[i1], empIds[i2]);
+            });
+            int[] sortedEmpIds = new int[count];
+            long[] sortedDays = new long[count];
+            for (int i = 0; i < count; i++) {
+                sortedEmpIds[i] = empIds[order[i]];
+                sortedDays[i] = days[order[i]];
+            }
+            return new Partners(sortedEmpIds, sortedDays);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.CollaborationIndexSummary;
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeePartner;
+import com.example.petrankapopovaemployees.entity.PairCollaboration;
+import com.opencsv.exceptions.CsvValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the collaboration index of the most recently loaded dataset in memory between requests.
+ * A new index is built off to the side and swapped in atomically, so queries never block and always see
+ * one complete dataset.
+ */
+@Service
+public class CollaborationIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CollaborationIndexService.class);
+
+    private final EmployeeService employeeService;
+
+    /**
+     * Sequential engine; building the index visits the projects one at a time.
+     */
+    private final PairOverlapEngine engine;
+
+    /**
+     * The index answering the queries, empty until a dataset is loaded.
+     */
+    private final AtomicReference<CollaborationIndex> index = new AtomicReference<>(CollaborationIndex.EMPTY);
+
+    @Autowired
+    public CollaborationIndexService(EmployeeService employeeService, AnalysisProperties properties) {
+        this.employeeService = employeeService;
+        this.engine = new PairOverlapEngine(null, Integer.MAX_VALUE, properties.isCoalesce());
+    }
+
+    /**
+     * Builds the index of the file and replaces the current index with it.
+     *
+     * @param file The CSV file with the new dataset.
+     * @return The summary of the new index.
+     */
+    public CollaborationIndexSummary load(InputStreamSource file) throws IOException, CsvValidationException {
+        CollaborationIndex newIndex = CollaborationIndex.build(employeeService.loadAssignmentTable(file), engine);
+        index.set(newIndex);
+        CollaborationIndexSummary summary = newIndex.toSummary();
+        logger.info("Indexed {} pairs of {} employees", summary.getPairCount(), summary.getEmployeeCount());
+        return summary;
+    }
+
+    /**
+     * Describes the dataset currently indexed.
+     *
+     * @return The summary of the current index.
+     */
+    public CollaborationIndexSummary getSummary() {
+        return index.get().toSummary();
+    }
+
+    /**
+     * Returns the partners an employee worked with the longest in the current dataset.
+     *
+     * @param empId The ID of the employee.
+     * @param k     The maximum number of partners to return.
+     * @return Up to {@code k} partners, longest collaboration first, or null if the employee belongs to no pair.
+     */
+    public List<EmployeePartner> findTopPartners(int empId, int k) {
+        return index.get().findTopPartners(empId, k);
+    }
+
+    /**
+     * Returns the overlap details of a pair of employees in the current dataset, clipped to a date window.
+     *
+     * @param empId1 The ID of one employee.
+     * @param empId2 The ID of the other employee.
+     * @param from   The first day of the window, or null for no lower bound.
+     * @param to     The last day of the window, or null for no upper bound.
+     * @return The days worked together within the window in total and per project, or null if the pair
+     *         did not overlap within the window.
+     */
+    public PairCollaboration findPair(int empId1, int empId2, LocalDate from, LocalDate to) {
+        return index.get().findPair(empId1, empId2, windowStart(from), windowEnd(to));
+    }
+
+    /**
+     * Ranks the pairs who worked together the longest in the current dataset within a date window.
+     *
+     * @param from The first day of the window, or null for no lower bound.
+     * @param to   The last day of the window, or null for no upper bound.
+     * @param k    The maximum number of pairs to return.
+     * @return Up to {@code k} pairs, longest first.
+     */
+    public List<EmployeePair> findTopPairs(LocalDate from, LocalDate to, int k) {
+        return index.get().findTopPairs(windowStart(from), windowEnd(to), k);
+    }
+
+    private static int windowStart(LocalDate from) {
+        return from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+    }
+
+    private static int windowEnd(LocalDate to) {
+        return to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+    }
+
+    /**
+     * Returns the overlap details of a pair of employees in the current dataset.
+     *
+     * @param empId1 The ID of one employee.
+     * @param empId2 The ID of the other employee.
+     * @return The days worked together in total and per project, or null if the pair never overlapped.
+     */
+    public PairCollaboration findPair(int empId1, int empId2) {
+        return index.get().findPair(empId1, empId2);
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.petrankapopovaemployees.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses the dates of one CSV column.
+ * The supported formats are {@code yyyy-MM-dd}, {@code MM/dd/yyyy} and {@code dd-MM-yyyy}.
+ * <p>
+ * The format of a column is detected from the first value that matches one of the fixed-width layouts.
+ * Values in the detected layout are then parsed digit by digit into an epoch day without allocating.
+ * Any other value goes through the general path, which uses precompiled formatters and tries the formatter
+ * that matches the value's shape first, so a valid date never causes a parse exception.
+ * Both paths give the same results as {@link LocalDate#parse(CharSequence, DateTimeFormatter)} with the
+ * corresponding pattern, including the adjustment of days past the end of the month (e.g. 2013-02-30).
+ * <p>
+ * Instances are stateful and must not be shared between uploads or threads.
+ */
+public class DateParser {
+
+    /**
+     * Returned by the fast path when a value is not in the detected layout.
+     */
+    private static final long NO_MATCH = Long.MIN_VALUE;
+
+    /**
+     * The supported date formats, in the order the original parser tried them.
+     */
+    enum DateFormat {
+        ISO("yyyy-MM-dd", 0, 5, 8, 4, 7, '-'),
+        US("MM/dd/yyyy", 6, 0, 3, 2, 5, '/'),
+        EUROPEAN("dd-MM-yyyy", 6, 3, 0, 2, 5, '-');
+
+        private final DateTimeFormatter formatter;
+        private final String pattern;
+        private final int yearIndex;
+        private final int monthIndex;
+        private final int dayIndex;
+        private final int separatorIndex1;
+        private final int separatorIndex2;
+        private final char separator;
+
+        DateFormat(String pattern, int yearIndex, int monthIndex, int dayIndex,
+                   int separatorIndex1, int separatorIndex2, char separator) {
+            this.formatter = DateTimeFormatter.ofPattern(pattern);
+            this.pattern = pattern;
+            this.yearIndex = yearIndex;
+            this.monthIndex = monthIndex;
+            this.dayIndex = dayIndex;
+            this.separatorIndex1 = separatorIndex1;
+            this.separatorIndex2 = separatorIndex2;
+            this.separator = separator;
+        }
+
+        /**
+         * Checks whether the value has the fixed-width layout of this format (separators in place).
+         */
+        boolean matchesLayout(CharSequence value) {
+            return value.length() == 10
+                    && value.charAt(separatorIndex1) == separator
+                    && value.charAt(separatorIndex2) == separator;
+        }
+
+        /**
+         * Parses a value in this format's layout into an epoch day without allocating.
+         *
+         * @return The epoch day, or {@link #NO_MATCH} if the value is not a plain date in this layout.
+         */
+        long parseEpochDay(CharSequence value) {
+            if (!matchesLayout(value)) {
+                return NO_MATCH;
+            }
+            int year = digits(value, yearIndex, 4);
+            int month = digits(value, monthIndex, 2);
+            int day = digits(value, dayIndex, 2);
+            if (year < 1 || month < 1 || month > 12 || day < 1 || day > 31) {
+                return NO_MATCH;
+            }
+            return epochDay(year, month, Math.min(day, lengthOfMonth(year, month)));
+        }
+    }
+
+    /**
+     * The format detected for this column, or null while no value has matched a layout yet.
+     */
+    private DateFormat detectedFormat;
+
+    /**
+     * Parses a date of this column into an epoch day.
+     *
+     * @param dateStr The trimmed date to parse; the fast path reads it in place, so it may be a view of a buffer.
+     * @return The epoch day of the parsed date.
+     * @throws IllegalArgumentException If the date format is unknown.
+     */
+    public long parseEpochDay(CharSequence dateStr) {
+        if (detectedFormat == null) {
+            detectedFormat = detectFormat(dateStr);
+        }
+        if (detectedFormat != null) {
+            long epochDay = detectedFormat.parseEpochDay(dateStr);
+            if (epochDay != NO_MATCH) {
+                return epochDay;
+            }
+        }
+        return parseDate(dateStr.toString()).toEpochDay();
+    }
+
+    /**
+     * Parses a date of this column.
+     *
+     * @param dateStr The trimmed date string to parse.
+     * @return The parsed LocalDate object.
+     * @throws IllegalArgumentException If the date format is unknown.
+     */
+    public LocalDate parse(String dateStr) {
+        return LocalDate.ofEpochDay(parseEpochDay(dateStr));
+    }
+
+    /**
+     * Parses a date string in any of the supported formats, without format detection.
+     *
+     * @param dateStr The date string to parse.
+     * @return The parsed LocalDate object.
+     * @throws IllegalArgumentException If the date format is unknown.
+     */
+    public static LocalDate parseDate(String dateStr) {
+        DateFormat likelyFormat = detectFormat(dateStr);
+        if (likelyFormat != null) {
+            try {
+                return LocalDate.parse(dateStr, likelyFormat.formatter);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Unknown date format: " + dateStr);
+            }
+        }
+        // Not a fixed-width layout: try every format, as the original parser did
+        for (DateFormat format : DateFormat.values()) {
+            try {
+                return LocalDate.parse(dateStr, format.formatter);
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        throw new IllegalArgumentException("Unknown date format: " + dateStr);
+    }
+
+    private static DateFormat detectFormat(CharSequence value) {
+        for (DateFormat format : DateFormat.values()) {
+            if (format.matchesLayout(value)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a fixed number of decimal digits, returning -1 if any character is not a digit.
+     */
+    private static int digits(CharSequence value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Converts a valid proleptic Gregorian date into days since 1970-01-01, like {@link LocalDate#toEpochDay()}.
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -1,22 +1,33 @@
 package com.example.petrankapopovaemployees.service;
 
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.AnalysisPhase;
 import com.example.petrankapopovaemployees.entity.EmployeePair;
 import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.entity.EmployeeWorkResponse;
+import com.example.petrankapopovaemployees.entity.PairRanking;
 import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 /**
  * Service class to handle operations related to employee projects.
  */
@@ -24,6 +35,89 @@ import java.util.*;
 public class EmployeeService {
     private static final Logger logger = LoggerFactory.getLogger(EmployeeService.class);
 
+    /**
+     * Engine computing the overlapping days of employees on common projects.
+     */
+    private final PairOverlapEngine overlapEngine;
+
+    /**
+     * Parser of server-side files.
+     */
+    private final MappedAssignmentReader mappedReader;
+
+    /**
+     * Pool used by the overlap engine and the server-side file parser, or null when the analysis is sequential.
+     */
+    private final ForkJoinPool analysisPool;
+
+    /**
+     * Clock used to resolve NULL end dates to the current date.
+     */
+    private final Clock clock;
+
+    /**
+     * Tuning options of the analysis.
+     */
+    private final AnalysisProperties properties;
+
+    /**
+     * Receives the measurements of every analysis.
+     */
+    private final AnalysisMetrics metrics;
+
+    /**
+     * Creates a service with default analysis options that resolves NULL end dates using the system clock.
+     */
+    public EmployeeService() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a service with default analysis options that resolves NULL end dates using the given clock.
+     *
+     * @param clock The clock providing the current date.
+     */
+    public EmployeeService(Clock clock) {
+        this(clock, new AnalysisProperties());
+    }
+
+    /**
+     * Creates a service with the given clock and analysis options, whose metrics are kept in memory.
+     *
+     * @param clock      The clock providing the current date.
+     * @param properties The analysis options.
+     */
+    public EmployeeService(Clock clock, AnalysisProperties properties) {
+        this(clock, properties, new AnalysisMetrics(new SimpleMeterRegistry(), properties));
+    }
+
+    /**
+     * Creates a service with the given clock, analysis options and metrics.
+     *
+     * @param clock      The clock providing the current date.
+     * @param properties The analysis options.
+     * @param metrics    Receives the measurements of every analysis.
+     */
+    @Autowired
+    public EmployeeService(Clock clock, AnalysisProperties properties, AnalysisMetrics metrics) {
+        this.clock = clock;
+        this.properties = properties;
+        this.metrics = metrics;
+        this.analysisPool = properties.getParallelism() > 1 ? new ForkJoinPool(properties.getParallelism()) : null;
+        this.overlapEngine = new PairOverlapEngine(analysisPool, properties.getParallelThreshold(), properties.isCoalesce());
+        this.mappedReader = new MappedAssignmentReader(analysisPool);
+    }
+
+    /**
+     * Stops the worker threads of the parallel analysis.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (analysisPool != null) {
+            analysisPool.shutdown();
+        }
+    }
+
     /**
      * Processes the uploaded file to find the longest working pair of employees.
      *
@@ -32,13 +126,176 @@ public class EmployeeService {
      * @throws IOException           If an I/O error occurs while reading the file.
      * @throws CsvValidationException If an error occurs during CSV validation.
      */
-    public EmployeePair processFile(MultipartFile file) throws IOException, CsvValidationException {
-        List<EmployeeProject> employeeProjects = loadEmployeeProjects(file);
-        if (employeeProjects.isEmpty()) {
+    public EmployeePair processFile(InputStreamSource file) throws IOException, CsvValidationException {
+        return processFile(file, new AnalysisProgress());
+    }
+
+    /**
+     * Processes the uploaded file to find the longest working pair of employees, reporting progress.
+     *
+     * @param file     The uploaded CSV file containing employee project data.
+     * @param progress Receives the current phase and the number of parsed rows.
+     * @return The longest working pair of employees, or null if not found.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public EmployeePair processFile(InputStreamSource file, AnalysisProgress progress) throws IOException, CsvValidationException {
+        AnalysisTrace trace = new AnalysisTrace();
+        EmployeePair longestWorkingPair = processFile(file, progress, trace);
+        metrics.record("full", trace);
+        return longestWorkingPair;
+    }
+
+    private EmployeePair processFile(InputStreamSource file, AnalysisProgress progress, AnalysisTrace trace)
+            throws IOException, CsvValidationException {
+        AssignmentTable table = new AssignmentTable();
+        readAssignments(file, table, progress, trace);
+        if (table.isEmpty()) {
             logger.error("Failed to load employee projects.");
             return null;
         }
-        return findEmployeePairs(employeeProjects);
+        progress.setPhase(AnalysisPhase.ANALYZING);
+        return findEmployeePairs(table, trace);
+    }
+
+    /**
+     * Analyzes the uploaded file in a single pass: the CSV is read and parsed once and the same
+     * parsed dataset is used both for the response rows and for finding the longest working pair.
+     *
+     * @param file The uploaded CSV file containing employee project data.
+     * @return The parsed employee projects (in file order) together with the longest working pair,
+     *         which is null if no pair was found.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public EmployeeWorkResponse analyzeFile(InputStreamSource file) throws IOException, CsvValidationException {
+        return analyzeFile(file, new AnalysisProgress());
+    }
+
+    /**
+     * Analyzes the uploaded file in a single pass like {@link #analyzeFile(InputStreamSource)}, reporting progress.
+     *
+     * @param file     The uploaded CSV file containing employee project data.
+     * @param progress Receives the current phase and the number of parsed rows.
+     * @return The parsed employee projects (in file order) together with the longest working pair,
+     *         which is null if no pair was found.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public EmployeeWorkResponse analyzeFile(InputStreamSource file, AnalysisProgress progress) throws IOException, CsvValidationException {
+        return analyze(file, progress).toResponse();
+    }
+
+    /**
+     * Analyzes the uploaded file in a single pass, keeping the parsed rows in columnar form so that
+     * responses can return them as a summary, in pages or as a stream.
+     *
+     * @param file     The uploaded CSV file containing employee project data.
+     * @param progress Receives the current phase and the number of parsed rows.
+     * @return The parsed rows (in file order) together with the longest working pair.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public AnalysisResult analyze(InputStreamSource file, AnalysisProgress progress) throws IOException, CsvValidationException {
+        AnalysisTrace trace = new AnalysisTrace();
+        AssignmentTable table = new AssignmentTable();
+        readAssignments(file, table, progress, trace);
+        // Keep the rows in file order, the analysis sorts the table
+        AssignmentTable rows = table.copy();
+        EmployeePair longestWorkingPair = null;
+        if (table.isEmpty()) {
+            logger.error("Failed to load employee projects.");
+        } else {
+            progress.setPhase(AnalysisPhase.ANALYZING);
+            longestWorkingPair = findEmployeePairs(table, trace);
+        }
+        metrics.record("full", trace);
+        return new AnalysisResult(rows, longestWorkingPair, (int) trace.getCollapsedRows());
+    }
+
+    /**
+     * Ranks the pairs of employees who worked together the longest, overall and optionally per project.
+     *
+     * @param file       The uploaded CSV file containing employee project data.
+     * @param k          The maximum number of pairs per ranking.
+     * @param perProject Whether to also rank the pairs of every project.
+     * @return The rankings; empty if the file holds no valid rows.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public PairRanking rankPairs(InputStreamSource file, int k, boolean perProject) throws IOException, CsvValidationException {
+        AnalysisTrace trace = new AnalysisTrace();
+        AssignmentTable table = new AssignmentTable();
+        readAssignments(file, table, new AnalysisProgress(), trace);
+        if (table.isEmpty()) {
+            logger.error("Failed to load employee projects.");
+        }
+        PairRanking ranking = overlapEngine.rankPairs(table, k, perProject, trace);
+        metrics.record("rank", trace);
+        return ranking;
+    }
+
+    /**
+     * Finds the longest working pair while the upload is being parsed, without materializing the rows.
+     * Memory is bounded by the number of concurrently active assignments, which works best when the file
+     * is sorted by start date. Files that are too far out of order are analyzed with {@link #processFile}.
+     *
+     * @param file The uploaded CSV file containing employee project data.
+     * @return The longest working pair of employees, or null if not found.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public EmployeePair processFileStreaming(InputStreamSource file) throws IOException, CsvValidationException {
+        return processFileStreaming(file, new AnalysisProgress());
+    }
+
+    /**
+     * Finds the longest working pair while the upload is being parsed, reporting progress.
+     * Since parsing and analysis overlap, the progress stays in the parsing phase until the last rows are swept.
+     *
+     * @param file     The uploaded CSV file containing employee project data.
+     * @param progress Receives the current phase and the number of parsed rows.
+     * @return The longest working pair of employees, or null if not found.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public EmployeePair processFileStreaming(InputStreamSource file, AnalysisProgress progress) throws IOException, CsvValidationException {
+        return analyzeStreaming(file, progress).getLongestWorkingPair();
+    }
+
+    /**
+     * Finds the longest working pair while the upload is being parsed, like {@link #processFileStreaming},
+     * and reports how many rows were merged before the sweep.
+     *
+     * @param file     The uploaded CSV file containing employee project data.
+     * @param progress Receives the current phase and the number of parsed rows.
+     * @return The longest working pair and the collapsed row count, without the rows.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public AnalysisResult analyzeStreaming(InputStreamSource file, AnalysisProgress progress) throws IOException, CsvValidationException {
+        AnalysisTrace trace = new AnalysisTrace();
+        StreamingPairAnalyzer analyzer = new StreamingPairAnalyzer(properties.getStreamingReorderWindow(),
+                properties.isCoalesce());
+        PairAccumulator accumulator;
+        try {
+            readAssignments(file, analyzer, progress, trace);
+            progress.setPhase(AnalysisPhase.ANALYZING);
+            accumulator = analyzer.finish();
+        } catch (StreamingPairAnalyzer.UnsortedInputException e) {
+            logger.warn("Streaming analysis not possible, falling back to full analysis: {}", e.getMessage());
+            // The abandoned pass is recorded on its own, so the rows and bytes of the fallback are not counted twice
+            metrics.record("streaming", trace);
+            AnalysisTrace fullTrace = new AnalysisTrace();
+            EmployeePair longestWorkingPair = processFile(file, progress, fullTrace);
+            metrics.record("full", fullTrace);
+            return new AnalysisResult(null, longestWorkingPair, (int) fullTrace.getCollapsedRows());
+        }
+        trace.recordActiveSetSize(analyzer.getMaxActiveCount());
+        trace.addCollapsedRows(analyzer.getCollapsedRows());
+        trace.setPairCount(accumulator.size());
+        metrics.record("streaming", trace);
+        return new AnalysisResult(null, accumulator.longestPair(), analyzer.getCollapsedRows());
     }
 
     /**
@@ -49,129 +306,258 @@ public class EmployeeService {
      * @throws IOException           If an I/O error occurs while reading the file.
      * @throws CsvValidationException If an error occurs during CSV validation.
      */
-    public List<EmployeeProject> loadEmployeeProjects(MultipartFile file) throws IOException, CsvValidationException {
+    public List<EmployeeProject> loadEmployeeProjects(InputStreamSource file) throws IOException, CsvValidationException {
+        AnalysisTrace trace = new AnalysisTrace();
         List<EmployeeProject> employeeProjects = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
-             CSVReader csvReader = new CSVReader(reader)) {
-            String[] line;
-            while ((line = csvReader.readNext()) != null) {
-                if (line.length < 4) continue;
-                try {
-                    Integer empId = Integer.parseInt(line[0].trim());
-                    Integer projectId = Integer.parseInt(line[1].trim());
-                    LocalDate dateFrom = parseDate(line[2].trim());
-                    LocalDate dateTo = line[3].trim().equalsIgnoreCase("NULL") ? LocalDate.now() : parseDate(line[3].trim());
-
-                    if (dateTo.isBefore(dateFrom)) {
-                        logger.warn("Invalid date range: {} - {}", dateFrom, dateTo);
-                        continue;
-                    }
-
-                    employeeProjects.add(new EmployeeProject(empId, projectId, dateFrom, dateTo));
-                } catch (NumberFormatException e) {
-                    logger.warn("Skipping non-numeric value: {}", e.getMessage());
-                } catch (IllegalArgumentException e) {
-                    logger.warn("Skipping invalid date: {}", e.getMessage());
-                }
-            }
-        }
+        readAssignments(file, (empId, projectId, dateFrom, dateTo) -> employeeProjects.add(
+                new EmployeeProject(empId, projectId, LocalDate.ofEpochDay(dateFrom), LocalDate.ofEpochDay(dateTo))),
+                new AnalysisProgress(), trace);
+        metrics.record("load", trace);
         return employeeProjects;
     }
 
     /**
-     * Parses a date string into a LocalDate object.
+     * Loads employee project data from the uploaded CSV file into columnar storage.
      *
-     * @param dateStr The date string to parse.
-     * @return The parsed LocalDate object.
-     * @throws IllegalArgumentException If the date format is unknown.
+     * @param file The uploaded CSV file containing employee project data.
+     * @return A table with the valid rows, in file order.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
      */
-    private LocalDate parseDate(String dateStr) {
-        List<String> dateFormats = Arrays.asList("yyyy-MM-dd", "MM/dd/yyyy", "dd-MM-yyyy");
-        for (String format : dateFormats) {
-            try {
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-                return LocalDate.parse(dateStr, formatter);
-            } catch (Exception e) {
-                logger.debug("Date format {} did not match for date {}", format, dateStr);
-            }
+    public AssignmentTable loadAssignmentTable(InputStreamSource file) throws IOException, CsvValidationException {
+        AnalysisTrace trace = new AnalysisTrace();
+        AssignmentTable table = new AssignmentTable();
+        readAssignments(file, table, new AnalysisProgress(), trace);
+        metrics.record("load", trace);
+        return table;
+    }
+
+    /**
+     * Loads employee project data from the uploaded CSV file into columnar storage, keeping NULL end dates
+     * open as {@link AssignmentTable#OPEN_END} instead of resolving them to the current date.
+     *
+     * @param file The uploaded CSV file containing employee project data.
+     * @return A table with the valid rows, in file order.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public AssignmentTable loadOpenAssignmentTable(InputStreamSource file) throws IOException, CsvValidationException {
+        AnalysisTrace trace = new AnalysisTrace();
+        AssignmentTable table = new AssignmentTable();
+        readAssignments(file, table, new AnalysisProgress(), trace, AssignmentTable.OPEN_END);
+        metrics.record("load", trace);
+        return table;
+    }
+
+    /**
+     * Resolves the name of a file in the import directory.
+     *
+     * @param name The path of the file, relative to the import directory.
+     * @return The real path of the file.
+     * @throws IllegalStateException    If server-side import is disabled.
+     * @throws IllegalArgumentException If the name does not denote a regular file inside the import directory,
+     *                                  including through symbolic links.
+     * @throws IOException              If the file system cannot be queried.
+     */
+    public Path resolveImportFile(String name) throws IOException {
+        String importDirectory = properties.getImportDirectory();
+        if (importDirectory == null || importDirectory.isBlank()) {
+            throw new IllegalStateException("Server-side import is disabled.");
+        }
+        Path directory = Path.of(importDirectory).toRealPath();
+        Path file = directory.resolve(name).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("No such file in the import directory: " + name);
+        }
+        Path realFile = file.toRealPath();
+        if (!realFile.startsWith(directory)) {
+            throw new IllegalArgumentException("No such file in the import directory: " + name);
         }
-        throw new IllegalArgumentException("Unknown date format: " + dateStr);
+        return realFile;
     }
 
     /**
-     * Finds the pair of employees who have worked together the longest on the same project(s).
+     * Analyzes a CSV file on the server without copying it, like {@link #analyze(InputStreamSource, AnalysisProgress)}.
+     * The file is memory-mapped and parsed in parallel chunks; quoted or irregular files are read with OpenCSV.
+     * Files starting with the {@link AssignmentSnapshot} magic are loaded as snapshots instead.
      *
-     * @param employeeProjects A list of employee project objects.
-     * @return The longest working pair of employees.
+     * @param file The CSV or snapshot file, e.g. resolved by {@link #resolveImportFile(String)}.
+     * @return The parsed rows (in file order, or sweep order for snapshots) together with the longest working pair.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
      */
-    private EmployeePair findEmployeePairs(List<EmployeeProject> employeeProjects) {
-        employeeProjects.sort(Comparator.comparing(EmployeeProject::getDateFrom));
-
-        Map<String, Long> pairDurationMap = new HashMap<>();
-        Map<String, Set<Integer>> pairProjectMap = new HashMap<>();
-        TreeMap<LocalDate, List<EmployeeProject>> activeProjects = new TreeMap<>();
-
-        for (EmployeeProject currentProject : employeeProjects) {
-            LocalDate currentStart = currentProject.getDateFrom();
-            LocalDate currentEnd = currentProject.getDateTo();
-
-            activeProjects.headMap(currentStart, false).clear();
-
-            activeProjects.computeIfAbsent(currentEnd, k -> new ArrayList<>()).add(currentProject);
-
-            for (List<EmployeeProject> projects : activeProjects.values()) {
-                for (EmployeeProject activeProject : projects) {
-                    if (activeProject.getProjectId().equals(currentProject.getProjectId()) && !activeProject.equals(currentProject)) {
-                        long overlapDays = calculateOverlapDays(activeProject, currentProject);
-                        if (overlapDays > 0) {
-                            String pairKey = activeProject.getEmpId() < currentProject.getEmpId()
-                                    ? activeProject.getEmpId() + "," + currentProject.getEmpId()
-                                    : currentProject.getEmpId() + "," + activeProject.getEmpId();
-                            pairDurationMap.put(pairKey, pairDurationMap.getOrDefault(pairKey, 0L) + overlapDays);
-                            pairProjectMap.computeIfAbsent(pairKey, k -> new HashSet<>()).add(currentProject.getProjectId());
-                        }
-                    }
-                }
-            }
+    public AnalysisResult analyze(Path file) throws IOException, CsvValidationException {
+        if (AssignmentSnapshot.isSnapshot(file)) {
+            AnalysisTrace trace = new AnalysisTrace();
+            long loadStart = System.nanoTime();
+            AssignmentTable table = AssignmentSnapshot.read(file);
+            trace.addParseNanos(System.nanoTime() - loadStart, table.size());
+            trace.addBytesRead(Files.size(file), Files.size(file));
+            return analyzeTable(table, trace, "snapshot");
+        }
+        AnalysisTrace trace = new AnalysisTrace();
+        return analyzeTable(readMapped(file, trace), trace, "import");
+    }
+
+    /**
+     * Analyzes an uploaded snapshot written by {@link AssignmentSnapshot#write},
+     * without parsing any CSV.
+     *
+     * @param snapshot The uploaded snapshot.
+     * @return The rows (in sweep order) together with the longest working pair.
+     * @throws AssignmentSnapshot.InvalidSnapshotException If the upload is not a valid snapshot.
+     * @throws IOException                                 If an I/O error occurs while reading the upload.
+     */
+    public AnalysisResult analyzeSnapshot(InputStreamSource snapshot) throws IOException {
+        AnalysisTrace trace = new AnalysisTrace();
+        long loadStart = System.nanoTime();
+        CountingInputStream input = new CountingInputStream(snapshot.getInputStream());
+        AssignmentTable table;
+        try (input) {
+            table = AssignmentSnapshot.read(input);
         }
+        trace.addParseNanos(System.nanoTime() - loadStart, table.size());
+        trace.addBytesRead(input.getCount(), input.getCount());
+        return analyzeTable(table, trace, "snapshot");
+    }
 
+    /**
+     * Finds the longest working pair of a loaded table, keeping a copy of the rows in their loaded order.
+     */
+    private AnalysisResult analyzeTable(AssignmentTable table, AnalysisTrace trace, String operation) {
+        AssignmentTable rows = table.copy();
         EmployeePair longestWorkingPair = null;
-        long maxDuration = 0;
-
-        for (Map.Entry<String, Long> entry : pairDurationMap.entrySet()) {
-            if (entry.getValue() > maxDuration) {
-                maxDuration = entry.getValue();
-                String[] ids = entry.getKey().split(",");
-                longestWorkingPair = new EmployeePair();
-                longestWorkingPair.setEmployeeId1(Long.parseLong(ids[0]));
-                longestWorkingPair.setEmployeeId2(Long.parseLong(ids[1]));
-                longestWorkingPair.setDaysWorkedTogether(entry.getValue());
-                longestWorkingPair.setProjectIds(new ArrayList<>(pairProjectMap.get(entry.getKey())));
-            }
+        if (table.isEmpty()) {
+            logger.error("Failed to load employee projects.");
+        } else {
+            longestWorkingPair = findEmployeePairs(table, trace);
         }
+        metrics.record(operation, trace);
+        return new AnalysisResult(rows, longestWorkingPair, (int) trace.getCollapsedRows());
+    }
 
-        return longestWorkingPair;
+    /**
+     * Loads employee project data from a CSV file on the server, like {@link #loadEmployeeProjects(InputStreamSource)}.
+     *
+     * @param file The CSV file.
+     * @return A list of employee project objects, in file order.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    public List<EmployeeProject> loadEmployeeProjects(Path file) throws IOException, CsvValidationException {
+        return loadAssignmentTable(file).toEmployeeProjects();
     }
 
     /**
-     * Calculates the number of overlapping days between two employee projects.
+     * Loads employee project data from a CSV file on the server into columnar storage,
+     * like {@link #loadAssignmentTable(InputStreamSource)}.
      *
-     * @param ep1 The first employee project.
-     * @param ep2 The second employee project.
-     * @return The number of overlapping days.
+     * @param file The CSV file.
+     * @return A table with the valid rows, in file order.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
      */
-    private static long calculateOverlapDays(EmployeeProject ep1, EmployeeProject ep2) {
-        LocalDate start = ep1.getDateFrom().isAfter(ep2.getDateFrom()) ? ep1.getDateFrom() : ep2.getDateFrom();
-        LocalDate end = ep1.getDateTo().isBefore(ep2.getDateTo()) ? ep1.getDateTo() : ep2.getDateTo();
+    public AssignmentTable loadAssignmentTable(Path file) throws IOException, CsvValidationException {
+        AnalysisTrace trace = new AnalysisTrace();
+        AssignmentTable table = readMapped(file, trace);
+        metrics.record("load", trace);
+        return table;
+    }
 
-        if (end.isBefore(start)) {
-            return 0;
+    /**
+     * Reads a server-side file with the memory-mapped parser, falling back to OpenCSV for irregular or compressed files.
+     */
+    private AssignmentTable readMapped(Path file, AnalysisTrace trace) throws IOException, CsvValidationException {
+        if (UploadDecoder.isCompressed(file)) {
+            return readStreamed(file, trace);
+        }
+        try {
+            return mappedReader.read(file, today(), trace);
+        } catch (MappedAssignmentReader.IrregularInputException e) {
+            logger.info("Reading {} with the CSV parser: {}", file, e.getMessage());
+            return readStreamed(file, trace);
         }
+    }
 
-        return ChronoUnit.DAYS.between(start, end) + 1;
+    private AssignmentTable readStreamed(Path file, AnalysisTrace trace) throws IOException, CsvValidationException {
+        AssignmentTable table = new AssignmentTable();
+        readAssignments(new FileSystemResource(file), table, new AnalysisProgress(), trace);
+        return table;
     }
-}
 
+    /**
+     * Parses the uploaded CSV file and passes every valid row to the consumer, in file order.
+     * Gzip and single-file ZIP uploads are decompressed while they are parsed.
+     * Rows with fewer than four columns, non-numeric IDs, unknown date formats or an end date
+     * before the start date are skipped.
+     *
+     * @param file     The uploaded CSV file containing employee project data.
+     * @param consumer The consumer receiving the parsed rows.
+     * @param progress Receives the parsing phase and the number of records read.
+     * @param trace    Receives the parsing time, the rejected rows and the compressed and uncompressed bytes read.
+     * @throws IOException           If an I/O error occurs while reading the file.
+     * @throws CsvValidationException If an error occurs during CSV validation.
+     */
+    private void readAssignments(InputStreamSource file, AssignmentConsumer consumer, AnalysisProgress progress,
+                                 AnalysisTrace trace) throws IOException, CsvValidationException {
+        // One snapshot per upload, so every NULL end date in the file resolves to the same day
+        readAssignments(file, consumer, progress, trace, today());
+    }
 
+    /**
+     * Reads the upload like {@link #readAssignments(InputStreamSource, AssignmentConsumer, AnalysisProgress, AnalysisTrace)},
+     * resolving NULL end dates to the given epoch day.
+     */
+    private void readAssignments(InputStreamSource file, AssignmentConsumer consumer, AnalysisProgress progress,
+                                 AnalysisTrace trace, int nullEndDay) throws IOException, CsvValidationException {
+        progress.setPhase(AnalysisPhase.PARSING);
+        AssignmentRecordParser recordParser = new AssignmentRecordParser(nullEndDay, trace);
+        long parseStart = System.nanoTime();
+        long records = 0;
+        CountingInputStream input = new CountingInputStream(file.getInputStream());
+        CountingInputStream decoded;
+        try {
+            decoded = new CountingInputStream(UploadDecoder.decode(input,
+                    properties.getDecompression().getMaxUncompressedSize().toBytes(),
+                    properties.getDecompression().getMaxCompressionRatio()));
+        } catch (IOException e) {
+            input.close();
+            throw e;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(decoded, StandardCharsets.UTF_8));
+             // Without verifying the reader, errors of the decoder propagate instead of ending the file early
+             CSVReader csvReader = new CSVReaderBuilder(reader).withVerifyReader(false).build()) {
+            String[] line;
+            while ((line = csvReader.readNext()) != null) {
+                if (++records % AnalysisProgress.ROWS_PER_UPDATE == 0) {
+                    progress.setRowsParsed(records);
+                    progress.setBytesRead(input.getCount(), decoded.getCount());
+                }
+                recordParser.parse(line, records, consumer);
+            }
+            progress.setRowsParsed(records);
+            progress.setBytesRead(input.getCount(), decoded.getCount());
+        } finally {
+            trace.addParseNanos(System.nanoTime() - parseStart, records);
+            trace.addBytesRead(input.getCount(), decoded.getCount());
+        }
+    }
 
+    /**
+     * Returns the current date as an epoch day.
+     */
+    private int today() {
+        return AssignmentRecordParser.toEpochDay(LocalDate.now(clock).toEpochDay());
+    }
 
+    /**
+     * Finds the pair of employees who have worked together the longest on the same project(s).
+     *
+     * @param table The assignments to analyze; they are sorted in place.
+     * @param trace Receives the sort and sweep measurements.
+     * @return The longest working pair of employees.
+     */
+    private EmployeePair findEmployeePairs(AssignmentTable table, AnalysisTrace trace) {
+        return overlapEngine.accumulate(table, trace).longestPair();
+    }
+}
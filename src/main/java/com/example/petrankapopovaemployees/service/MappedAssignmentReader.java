@@ -0,0 +1,226 @@
+package com.example.petrankapopovaemployees.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Reads a CSV file on the server by memory-mapping it and parsing chunks of it in parallel.
+ * <p>
+ * The file is split into chunks that end right after a newline, so no record spans two chunks. Each chunk
+ * is mapped on its own and parsed byte by byte into its own {@link AssignmentTable}; the tables are then
+ * concatenated in file order. The byte parser only understands unquoted records. A chunk containing a quote,
+ * a backslash (OpenCSV's escape character) or a carriage return that does not end a line fails with
+ * {@link IrregularInputException}, and the caller reads the file with OpenCSV instead.
+ */
+class MappedAssignmentReader {
+
+    /**
+     * Smallest chunk worth parsing in a separate task.
+     */
+    static final int MIN_CHUNK_SIZE = 1 << 20;
+
+    /**
+     * Largest chunk, well below the 2 GiB limit of a single mapping.
+     */
+    private static final int MAX_CHUNK_SIZE = 256 << 20;
+
+    /**
+     * Number of chunks per worker thread, so that chunks of uneven density still balance across workers.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    /**
+     * Thrown when the file needs the full CSV parser.
+     */
+    static class IrregularInputException extends Exception {
+        IrregularInputException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Records parsed from one chunk.
+     */
+    private record Chunk(AssignmentTable table, AnalysisTrace trace, long records) {
+    }
+
+    private final ForkJoinPool pool;
+    private final int minChunkSize;
+
+    /**
+     * @param pool The pool parsing the chunks, or null to parse them on the calling thread.
+     */
+    MappedAssignmentReader(ForkJoinPool pool) {
+        this(pool, MIN_CHUNK_SIZE);
+    }
+
+    MappedAssignmentReader(ForkJoinPool pool, int minChunkSize) {
+        this.pool = pool;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Parses the file into a table, in file order.
+     *
+     * @param file  The CSV file.
+     * @param today The epoch day NULL end dates resolve to.
+     * @param trace Receives the parsing time, the rejected records and the bytes read.
+     * @return The valid rows.
+     * @throws IOException             If the file cannot be read.
+     * @throws IrregularInputException If the file contains quoted or otherwise irregular records.
+     */
+    AssignmentTable read(Path file, int today, AnalysisTrace trace) throws IOException, IrregularInputException {
+        long parseStart = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<Callable<Chunk>> tasks = new ArrayList<>();
+            for (long start = 0, end; start < size; start = end) {
+                end = chunkEnd(channel, start, size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IrregularInputException("Line longer than 2 GiB at offset " + start);
+                }
+                long chunkStart = start;
+                long chunkEnd = end;
+                tasks.add(() -> parseChunk(channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart), today));
+            }
+
+            List<Chunk> chunks = parseChunks(tasks);
+            int rows = 0;
+            for (Chunk chunk : chunks) {
+                rows += chunk.table().size();
+            }
+            AssignmentTable table = new AssignmentTable(rows);
+            long records = 0;
+            for (Chunk chunk : chunks) {
+                table.addAll(chunk.table());
+                trace.mergeParsing(chunk.trace());
+                records += chunk.records();
+            }
+            trace.addParseNanos(System.nanoTime() - parseStart, records);
+            trace.addBytesRead(size, size);
+            return table;
+        }
+    }
+
+    private List<Chunk> parseChunks(List<Callable<Chunk>> tasks) throws IOException, IrregularInputException {
+        List<Chunk> chunks = new ArrayList<>(tasks.size());
+        if (pool == null || tasks.size() < 2) {
+            for (Callable<Chunk> task : tasks) {
+                chunks.add(call(task));
+            }
+            return chunks;
+        }
+        List<Future<Chunk>> futures = new ArrayList<>(tasks.size());
+        for (Callable<Chunk> task : tasks) {
+            futures.add(pool.submit(task));
+        }
+        try {
+            for (Future<Chunk> future : futures) {
+                chunks.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException && cause.getCause() instanceof Exception wrapped
+                    && !(wrapped instanceof RuntimeException)) {
+                // Fork-join tasks may wrap the checked exceptions of a callable
+                cause = wrapped;
+            }
+            if (cause instanceof IrregularInputException irregular) {
+                throw irregular;
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException(cause);
+        } finally {
+            futures.forEach(future -> future.cancel(false));
+        }
+        return chunks;
+    }
+
+    private static Chunk call(Callable<Chunk> task) throws IOException, IrregularInputException {
+        try {
+            return task.call();
+        } catch (IOException | IrregularInputException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Parses the records of one chunk. Line terminators are {@code \n} and {@code \r\n}, as in OpenCSV.
+     */
+    private static Chunk parseChunk(MappedByteBuffer bytes, int today) throws IrregularInputException {
+        AnalysisTrace trace = new AnalysisTrace();
+        AssignmentRecordParser recordParser = new AssignmentRecordParser(today, trace);
+        AssignmentTable table = new AssignmentTable();
+        int limit = bytes.limit();
+        long records = 0;
+        int recordStart = 0;
+        for (int i = 0; i < limit; i++) {
+            byte b = bytes.get(i);
+            if (b == '"' || b == '\\') {
+                throw new IrregularInputException("Quoted or escaped record");
+            }
+            if (b == '\r' && (i == limit - 1 || bytes.get(i + 1) != '\n')) {
+                throw new IrregularInputException("Carriage return without newline");
+            }
+            if (b == '\n' || i == limit - 1) {
+                int recordEnd = b == '\n' ? i : i + 1;
+                if (b == '\n' && recordEnd > recordStart && bytes.get(recordEnd - 1) == '\r') {
+                    recordEnd--;
+                }
+                recordParser.parse(bytes, recordStart, recordEnd, ++records, table);
+                recordStart = i + 1;
+            }
+        }
+        return new Chunk(table, trace, records);
+    }
+
+    /**
+     * Returns the end of the chunk starting at {@code start}: just after the first newline at or after
+     * the nominal chunk size, or the end of the file.
+     */
+    private long chunkEnd(FileChannel channel, long start, long size) throws IOException {
+        long chunkSize = Math.max(minChunkSize, Math.min(MAX_CHUNK_SIZE,
+                size / ((long) (pool == null ? 1 : pool.getParallelism()) * CHUNKS_PER_THREAD)));
+        long position = start + chunkSize - 1;
+        if (position >= size - 1) {
+            return size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.petrankapopovaemployees.service;
+
+/**
+ * Overlap of two employees on a project that is still running: one of them has an open-ended assignment,
+ * so the overlap grows by a day every day until its last day, or forever if both assignments are open-ended.
+ * The number of days is only known at query time.
+ *
+ * @param empId1    The smaller employee ID.
+ * @param empId2    The larger employee ID.
+ * @param projectId The ID of the common project.
+ * @param dateFrom  The first day of the overlap, as an epoch day.
+ * @param dateTo    The last day of the overlap, as an epoch day, or {@link AssignmentTable#OPEN_END}.
+ */
+public record OpenOverlap(int empId1, int empId2, int projectId, int dateFrom, int dateTo) {
+
+    /**
+     * Creates an overlap, ordering the employee IDs.
+     */
+    public static OpenOverlap of(int empId, int otherEmpId, int projectId, int dateFrom, int dateTo) {
+        return new OpenOverlap(Math.min(empId, otherEmpId), Math.max(empId, otherEmpId), projectId, dateFrom, dateTo);
+    }
+
+    /**
+     * Returns the days of the overlap up to and including a day.
+     *
+     * @param today The current date, as an epoch day.
+     * @return The number of days, zero if the overlap starts later.
+     */
+    public long getDays(int today) {
+        return Math.max(0L, (long) Math.min(dateTo, today) - dateFrom + 1);
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Accumulates the number of days each pair of employees worked together and the projects they shared.
+ * Pairs are unordered: the smaller employee ID is always stored first.
+ * <p>
+ * The two employee IDs are packed into a single {@code long} key and stored in an open-addressing hash
+ * table with linear probing, next to primitive {@code long} durations. Each pair keeps its common project
+ * IDs in a small {@code int} array. Adding days for a pair and project that are already known does not
+ * allocate; memory is only allocated when the table grows or a pair gains a new project.
+ */
+public class PairAccumulator {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Packed pair keys per slot.
+     */
+    private long[] keys;
+
+    /**
+     * Total overlapping days per slot. A duration of zero marks an empty slot.
+     */
+    private long[] durations;
+
+    /**
+     * Common project IDs per slot; only the first {@code projectCounts[slot]} entries are in use
+     * and the most recently added project is last.
+     */
+    private int[][] projects;
+
+    /**
+     * Number of common project IDs per slot.
+     */
+    private int[] projectCounts;
+
+    private int size;
+
+    /**
+     * Receives the accumulated pairs one by one.
+     */
+    @FunctionalInterface
+    public interface PairVisitor {
+        /**
+         * Visits one pair.
+         *
+         * @param empId1 The smaller employee ID of the pair.
+         * @param empId2 The larger employee ID of the pair.
+         * @param days   The total overlapping days of the pair.
+         */
+        void visit(int empId1, int empId2, long days);
+    }
+
+    /**
+     * Creates an empty accumulator.
+     */
+    public PairAccumulator() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds overlapping days for a pair of employees on a project.
+     *
+     * @param empId1    The ID of one employee.
+     * @param empId2    The ID of the other employee.
+     * @param projectId The ID of the common project.
+     * @param days      The number of overlapping days to add; non-positive values are ignored.
+     */
+    public void add(int empId1, int empId2, int projectId, long days) {
+        if (days <= 0) {
+            return;
+        }
+        long key = pairKey(empId1, empId2);
+        int slot = findSlot(keys, durations, key);
+        if (durations[slot] == 0) {
+            keys[slot] = key;
+            durations[slot] = days;
+            projects[slot] = new int[]{projectId};
+            projectCounts[slot] = 1;
+            if (++size > keys.length >> 1) {
+                grow();
+            }
+            return;
+        }
+        durations[slot] += days;
+        addProject(slot, projectId);
+    }
+
+    /**
+     * Adds all pair totals of another accumulator to this one.
+     *
+     * @param other The accumulator to merge; it is not modified.
+     */
+    public void merge(PairAccumulator other) {
+        for (int otherSlot = 0; otherSlot < other.keys.length; otherSlot++) {
+            if (other.durations[otherSlot] == 0) {
+                continue;
+            }
+            long key = other.keys[otherSlot];
+            int[] otherProjects = other.projects[otherSlot];
+            int otherProjectCount = other.projectCounts[otherSlot];
+            add(firstEmpId(key), secondEmpId(key), otherProjects[0], other.durations[otherSlot]);
+            int slot = findSlot(keys, durations, key);
+            for (int i = 1; i < otherProjectCount; i++) {
+                addProject(slot, otherProjects[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of distinct pairs accumulated so far.
+     *
+     * @return The number of pairs.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of days a pair of employees worked together.
+     *
+     * @param empId1 The ID of one employee.
+     * @param empId2 The ID of the other employee.
+     * @return The accumulated days, or zero if the pair never overlapped.
+     */
+    public long getDays(int empId1, int empId2) {
+        return durations[findSlot(keys, durations, pairKey(empId1, empId2))];
+    }
+
+    /**
+     * Passes every accumulated pair to the visitor, in no particular order.
+     *
+     * @param visitor The visitor receiving the pairs.
+     */
+    public void forEach(PairVisitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (durations[slot] != 0) {
+                visitor.visit(firstEmpId(keys[slot]), secondEmpId(keys[slot]), durations[slot]);
+            }
+        }
+    }
+
+    /**
+     * Finds the pair with the most days worked together.
+     * Ties are resolved in favour of the pair with the smallest employee IDs.
+     *
+     * @return The longest working pair, or null if no pair has been accumulated.
+     */
+    public EmployeePair longestPair() {
+        int bestSlot = -1;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (durations[slot] == 0) {
+                continue;
+            }
+            if (bestSlot < 0 || durations[slot] > durations[bestSlot]
+                    || (durations[slot] == durations[bestSlot] && comparePairKeys(keys[slot], keys[bestSlot]) < 0)) {
+                bestSlot = slot;
+            }
+        }
+        return bestSlot < 0 ? null : toEmployeePair(bestSlot);
+    }
+
+    /**
+     * Returns the pairs with the most days worked together, longest first.
+     * Pairs with the same number of days are ordered by their employee IDs, smallest first.
+     * Only a bounded min-heap of {@code k} pairs is kept while scanning, so memory is O(k).
+     *
+     * @param k The maximum number of pairs to return.
+     * @return Up to {@code k} pairs in ranking order.
+     */
+    public List<EmployeePair> topPairs(int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+        // The heap's head is the weakest of the best pairs seen so far
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(k, size) + 1, (slot1, slot2) -> compareRank(slot2, slot1));
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (durations[slot] == 0) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(slot);
+            } else if (compareRank(slot, best.peek()) < 0) {
+                best.poll();
+                best.add(slot);
+            }
+        }
+        EmployeePair[] ranked = new EmployeePair[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = toEmployeePair(best.poll());
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+
+    /**
+     * Orders slots by ranking: more days first, then smaller employee IDs first.
+     */
+    private int compareRank(int slot1, int slot2) {
+        int result = Long.compare(durations[slot2], durations[slot1]);
+        return result != 0 ? result : comparePairKeys(keys[slot1], keys[slot2]);
+    }
+
+    /**
+     * Converts every accumulated pair into an {@link EmployeePair}, with project IDs in ascending order.
+     *
+     * @return A list with one entry per accumulated pair, in no particular order.
+     */
+    public List<EmployeePair> toEmployeePairs() {
+        List<EmployeePair> pairs = new ArrayList<>(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (durations[slot] != 0) {
+                pairs.add(toEmployeePair(slot));
+            }
+        }
+        return pairs;
+    }
+
+    private EmployeePair toEmployeePair(int slot) {
+        int[] sortedProjects = Arrays.copyOf(projects[slot], projectCounts[slot]);
+        Arrays.sort(sortedProjects);
+        List<Integer> projectIds = new ArrayList<>(sortedProjects.length);
+        for (int projectId : sortedProjects) {
+            projectIds.add(projectId);
+        }
+        return new EmployeePair(firstEmpId(keys[slot]), secondEmpId(keys[slot]), durations[slot], projectIds);
+    }
+
+    private void addProject(int slot, int projectId) {
+        int[] slotProjects = projects[slot];
+        int count = projectCounts[slot];
+        // The overlap engine works project by project, so the last added project is the usual hit
+        for (int i = count - 1; i >= 0; i--) {
+            if (slotProjects[i] == projectId) {
+                return;
+            }
+        }
+        if (count == slotProjects.length) {
+            slotProjects = Arrays.copyOf(slotProjects, count * 2);
+            projects[slot] = slotProjects;
+        }
+        slotProjects[count] = projectId;
+        projectCounts[slot] = count + 1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        durations = new long[capacity];
+        projects = new int[capacity][];
+        projectCounts = new int[capacity];
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldDurations = durations;
+        int[][] oldProjects = projects;
+        int[] oldProjectCounts = projectCounts;
+        allocate(oldKeys.length * 2);
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldDurations[oldSlot] != 0) {
+                int slot = findSlot(keys, durations, oldKeys[oldSlot]);
+                keys[slot] = oldKeys[oldSlot];
+                durations[slot] = oldDurations[oldSlot];
+                projects[slot] = oldProjects[oldSlot];
+                projectCounts[slot] = oldProjectCounts[oldSlot];
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding the key, or the empty slot where it would be inserted.
+     */
+    private static int findSlot(long[] keys, long[] durations, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (durations[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Spreads the bits of a packed key so that consecutive employee IDs do not cluster (MurmurHash3 finalizer).
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Packs an unordered pair of employee IDs into a single long, smaller ID in the high half.
+     */
+    static long pairKey(int empId1, int empId2) {
+        int low = Math.min(empId1, empId2);
+        int high = Math.max(empId1, empId2);
+        return ((long) low << 32) | (high & 0xFFFFFFFFL);
+    }
+
+    static int firstEmpId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int secondEmpId(long key) {
+        return (int) key;
+    }
+
+    private static int comparePairKeys(long key1, long key2) {
+        int result = Integer.compare(firstEmpId(key1), firstEmpId(key2));
+        return result != 0 ? result : Integer.compare(secondEmpId(key1), secondEmpId(key2));
+    }
+}
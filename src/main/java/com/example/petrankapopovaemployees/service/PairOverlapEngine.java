@@ -0,0 +1,428 @@
+package com.example.petrankapopovaemployees.service;
+
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.entity.PairRanking;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+
+/**
+ * Computes how long employees overlapped on common projects.
+ * Records are sorted by project ID and start date and each project is swept independently,
+ * keeping only the assignments that are still active. The cost is therefore proportional to the number
+ * of records plus the number of actual overlaps, not to the total number of active assignments.
+ * The sweep runs directly over the columns of an {@link AssignmentTable}.
+ * <p>
+ * Since projects are independent, large datasets can be split on project boundaries and swept in parallel.
+ */
+public class PairOverlapEngine {
+
+    /**
+     * Smallest number of rows worth sweeping in a separate fork-join task.
+     */
+    private static final int MIN_ROWS_PER_TASK = 4096;
+
+    /**
+     * Number of tasks per worker thread, so that projects of uneven size still balance across workers.
+     */
+    private static final int TASKS_PER_THREAD = 4;
+
+    /**
+     * Pool running the per-project sweeps in parallel, or null to always sweep on the calling thread.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Number of rows below which the analysis stays on the calling thread.
+     */
+    private final int parallelThreshold;
+
+    /**
+     * Whether overlapping rows of the same employee on the same project are merged before the sweep.
+     */
+    private final boolean coalesce;
+
+    /**
+     * Creates an engine that sweeps on the calling thread and pairs every row on its own.
+     */
+    public PairOverlapEngine() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates an engine that shards large datasets by project across a fork-join pool.
+     * Each shard accumulates its own partial pair totals, which are merged afterwards.
+     *
+     * @param pool              The pool running the shards, or null to always sweep on the calling thread.
+     * @param parallelThreshold The number of rows below which the analysis stays on the calling thread.
+     */
+    public PairOverlapEngine(ForkJoinPool pool, int parallelThreshold) {
+        this(pool, parallelThreshold, false);
+    }
+
+    /**
+     * Creates an engine like {@link #PairOverlapEngine(ForkJoinPool, int)} that can first merge the overlapping
+     * rows of each employee on each project (see {@link AssignmentTable#coalesce()}), which removes duplicated
+     * days and shrinks the input of the sweep.
+     *
+     * @param pool              The pool running the shards, or null to always sweep on the calling thread.
+     * @param parallelThreshold The number of rows below which the analysis stays on the calling thread.
+     * @param coalesce          Whether to merge overlapping rows of the same employee and project first.
+     */
+    public PairOverlapEngine(ForkJoinPool pool, int parallelThreshold, boolean coalesce) {
+        this.pool = pool;
+        this.parallelThreshold = parallelThreshold;
+        this.coalesce = coalesce;
+    }
+
+    /**
+     * Finds the pair of employees who have worked together the longest on the same project(s).
+     *
+     * @param employeeProjects A list of employee project objects. The list itself is not modified.
+     * @return The longest working pair of employees, or null if no two assignments overlap.
+     */
+    public EmployeePair findLongestPair(List<EmployeeProject> employeeProjects) {
+        return accumulate(employeeProjects).longestPair();
+    }
+
+    /**
+     * Accumulates the overlapping days of every pair of employees on common projects.
+     *
+     * @param employeeProjects A list of employee project objects. The list itself is not modified.
+     * @return The accumulated pair totals.
+     */
+    public PairAccumulator accumulate(List<EmployeeProject> employeeProjects) {
+        return accumulate(AssignmentTable.of(employeeProjects));
+    }
+
+    /**
+     * Accumulates the overlapping days of every pair of employees on common projects.
+     *
+     * @param table The assignments to analyze. The table is sorted by project ID and start date
+     *              (and coalesced, if enabled) in place.
+     * @return The accumulated pair totals.
+     */
+    public PairAccumulator accumulate(AssignmentTable table) {
+        return accumulate(table, new AnalysisTrace());
+    }
+
+    /**
+     * Accumulates the overlapping days of every pair of employees on common projects, recording the time
+     * spent sorting and sweeping, the peak active set size and the number of pairs.
+     *
+     * @param table The assignments to analyze. The table is sorted by project ID and start date
+     *              (and coalesced, if enabled) in place.
+     * @param trace Receives the measurements.
+     * @return The accumulated pair totals.
+     */
+    public PairAccumulator accumulate(AssignmentTable table, AnalysisTrace trace) {
+        prepare(table, trace);
+        long sweepStart = System.nanoTime();
+        PairAccumulator accumulator;
+        if (pool == null || pool.getParallelism() < 2 || table.size() < parallelThreshold) {
+            accumulator = accumulateRange(table, 0, table.size(), trace);
+        } else {
+            int rowsPerTask = Math.max(MIN_ROWS_PER_TASK, table.size() / (pool.getParallelism() * TASKS_PER_THREAD));
+            accumulator = pool.invoke(new SweepTask(table, 0, table.size(), rowsPerTask, trace));
+        }
+        trace.addPhaseNanos(AnalysisTrace.Phase.SWEEP, System.nanoTime() - sweepStart);
+        trace.setPairCount(accumulator.size());
+        return accumulator;
+    }
+
+    /**
+     * Ranks the pairs with the most days worked together, overall and optionally per project.
+     * For per-project rankings each project is swept into its own accumulator, whose top pairs are kept
+     * before it is merged into the overall totals, so the leaderboards cost O(k) memory per project.
+     *
+     * @param table      The assignments to analyze. The table is sorted by project ID and start date
+     *                   (and coalesced, if enabled) in place.
+     * @param k          The maximum number of pairs per ranking.
+     * @param perProject Whether to also rank the pairs of every project.
+     * @return The rankings.
+     */
+    public PairRanking rankPairs(AssignmentTable table, int k, boolean perProject) {
+        return rankPairs(table, k, perProject, new AnalysisTrace());
+    }
+
+    /**
+     * Ranks the pairs like {@link #rankPairs(AssignmentTable, int, boolean)}, recording the measurements.
+     *
+     * @param table      The assignments to analyze. The table is sorted by project ID and start date
+     *                   (and coalesced, if enabled) in place.
+     * @param k          The maximum number of pairs per ranking.
+     * @param perProject Whether to also rank the pairs of every project.
+     * @param trace      Receives the measurements.
+     * @return The rankings.
+     */
+    public PairRanking rankPairs(AssignmentTable table, int k, boolean perProject, AnalysisTrace trace) {
+        if (!perProject) {
+            return new PairRanking(accumulate(table, trace).topPairs(k), null);
+        }
+        PairAccumulator overall = new PairAccumulator();
+        Map<Integer, List<EmployeePair>> topPairsByProject = new TreeMap<>();
+        forEachProject(table, trace, (projectId, projectPairs) -> {
+            topPairsByProject.put(projectId, projectPairs.topPairs(k));
+            overall.merge(projectPairs);
+        });
+        trace.setPairCount(overall.size());
+        return new PairRanking(overall.topPairs(k), topPairsByProject);
+    }
+
+    /**
+     * Sweeps every project into its own accumulator and passes it to the consumer, one project at a time.
+     * Projects without any overlapping assignments are skipped.
+     *
+     * @param table    The assignments to analyze. The table is sorted by project ID and start date
+     *                 (and coalesced, if enabled) in place.
+     * @param consumer Receives the project ID and the pair totals of that project.
+     */
+    public void forEachProject(AssignmentTable table, BiConsumer<Integer, PairAccumulator> consumer) {
+        forEachProject(table, new AnalysisTrace(), consumer);
+    }
+
+    private void forEachProject(AssignmentTable table, AnalysisTrace trace, BiConsumer<Integer, PairAccumulator> consumer) {
+        prepare(table, trace);
+        long sweepStart = System.nanoTime();
+        ActiveSet active = new ActiveSet(table);
+        int projectStart = 0;
+        while (projectStart < table.size()) {
+            int projectEnd = projectEnd(table, projectStart);
+            PairAccumulator projectPairs = new PairAccumulator();
+            sweepProject(table, projectStart, projectEnd, active, projectPairs);
+            if (projectPairs.size() > 0) {
+                consumer.accept(table.getProjectId(projectStart), projectPairs);
+            }
+            projectStart = projectEnd;
+        }
+        trace.recordActiveSetSize(active.maxSize);
+        trace.addPhaseNanos(AnalysisTrace.Phase.SWEEP, System.nanoTime() - sweepStart);
+    }
+
+    /**
+     * Sorts the table into sweep order and, if enabled, merges the overlapping rows of each employee.
+     */
+    private void prepare(AssignmentTable table, AnalysisTrace trace) {
+        long sortStart = System.nanoTime();
+        table.sortByProjectAndStart();
+        trace.addPhaseNanos(AnalysisTrace.Phase.SORT, System.nanoTime() - sortStart);
+        if (coalesce) {
+            long coalesceStart = System.nanoTime();
+            trace.addCollapsedRows(table.coalesce());
+            trace.addPhaseNanos(AnalysisTrace.Phase.COALESCE, System.nanoTime() - coalesceStart);
+        }
+    }
+
+    /**
+     * Sweeps every project within a range of rows of the sorted table.
+     * The range must start at the first row of a project and end after the last row of a project.
+     */
+    private static PairAccumulator accumulateRange(AssignmentTable table, int start, int end, AnalysisTrace trace) {
+        PairAccumulator accumulator = new PairAccumulator();
+        ActiveSet active = new ActiveSet(table);
+        int projectStart = start;
+        while (projectStart < end) {
+            int projectEnd = projectEnd(table, projectStart);
+            sweepProject(table, projectStart, projectEnd, active, accumulator);
+            projectStart = projectEnd;
+        }
+        trace.recordActiveSetSize(active.maxSize);
+        return accumulator;
+    }
+
+    /**
+     * Fork-join task sweeping a range of rows, split only on project boundaries.
+     */
+    private static final class SweepTask extends RecursiveTask<PairAccumulator> {
+        private final AssignmentTable table;
+        private final int start;
+        private final int end;
+        private final int rowsPerTask;
+        private final AnalysisTrace trace;
+
+        SweepTask(AssignmentTable table, int start, int end, int rowsPerTask, AnalysisTrace trace) {
+            this.table = table;
+            this.start = start;
+            this.end = end;
+            this.rowsPerTask = rowsPerTask;
+            this.trace = trace;
+        }
+
+        @Override
+        protected PairAccumulator compute() {
+            int split = end - start > rowsPerTask ? projectBoundaryNear(start + (end - start) / 2) : start;
+            if (split == start) {
+                return accumulateRange(table, start, end, trace);
+            }
+            SweepTask left = new SweepTask(table, start, split, rowsPerTask, trace);
+            left.fork();
+            PairAccumulator right = new SweepTask(table, split, end, rowsPerTask, trace).compute();
+            PairAccumulator leftResult = left.join();
+            if (leftResult.size() < right.size()) {
+                right.merge(leftResult);
+                return right;
+            }
+            leftResult.merge(right);
+            return leftResult;
+        }
+
+        /**
+         * Finds the project boundary closest after (or, failing that, before) the given row,
+         * or returns {@code start} if the whole range belongs to one project.
+         */
+        private int projectBoundaryNear(int row) {
+            int after = row;
+            while (after < end && table.getProjectId(after) == table.getProjectId(after - 1)) {
+                after++;
+            }
+            if (after < end) {
+                return after;
+            }
+            int before = row;
+            while (before > start && table.getProjectId(before) == table.getProjectId(before - 1)) {
+                before--;
+            }
+            return before;
+        }
+    }
+
+    /**
+     * Returns the first row after the contiguous range of rows sharing the project of {@code start}.
+     */
+    static int projectEnd(AssignmentTable table, int start) {
+        int projectId = table.getProjectId(start);
+        int end = start + 1;
+        while (end < table.size() && table.getProjectId(end) == projectId) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Sweeps the rows of a single project in order of start date.
+     * Every row is compared only with the rows that are still active when it starts.
+     *
+     * @param table       The sorted table.
+     * @param start       The first row of the project.
+     * @param end         The row after the last row of the project.
+     * @param active      A reusable active set.
+     * @param accumulator The accumulator receiving the overlapping days.
+     */
+    static void sweepProject(AssignmentTable table, int start, int end, ActiveSet active, PairAccumulator accumulator) {
+        active.clear();
+        if (end - start < 2) {
+            return;
+        }
+        for (int current = start; current < end; current++) {
+            int currentStart = table.getDateFrom(current);
+            int currentEnd = table.getDateTo(current);
+            active.evictEndingBefore(currentStart);
+            for (int i = 0; i < active.size; i++) {
+                int other = active.rows[i];
+                // Identical rows are not paired with each other, matching the original algorithm
+                if (!table.sameAssignment(other, current)) {
+                    accumulator.add(table.getEmpId(other), table.getEmpId(current), table.getProjectId(current),
+                            Math.min(table.getDateTo(other), currentEnd) - currentStart + 1);
+                }
+            }
+            active.add(current);
+        }
+    }
+
+    /**
+     * Sweeps some rows of a single project in order of start date, clipping every overlap to a date window.
+     * An assignment ends before a clipped start exactly when its unclipped end does, so the active set
+     * can keep ordering the rows by their unclipped end dates.
+     *
+     * @param table       The sorted table.
+     * @param rows        The rows to sweep, all of the same project and in table order.
+     * @param count       The number of rows to sweep.
+     * @param windowFrom  The first day of the window.
+     * @param windowTo    The last day of the window.
+     * @param active      A reusable active set.
+     * @param accumulator The accumulator receiving the overlapping days within the window.
+     */
+    static void sweepWindow(AssignmentTable table, int[] rows, int count, int windowFrom, int windowTo,
+                            ActiveSet active, PairAccumulator accumulator) {
+        active.clear();
+        for (int i = 0; i < count; i++) {
+            int current = rows[i];
+            int currentStart = Math.max(table.getDateFrom(current), windowFrom);
+            int currentEnd = Math.min(table.getDateTo(current), windowTo);
+            active.evictEndingBefore(currentStart);
+            for (int j = 0; j < active.size; j++) {
+                int other = active.rows[j];
+                if (!table.sameAssignment(other, current)) {
+                    accumulator.add(table.getEmpId(other), table.getEmpId(current), table.getProjectId(current),
+                            Math.min(table.getDateTo(other), currentEnd) - currentStart + 1);
+                }
+            }
+            active.add(current);
+        }
+    }
+
+    /**
+     * Binary min-heap of row indices ordered by end date, so finished assignments are evicted first.
+     */
+    static final class ActiveSet {
+        private final AssignmentTable table;
+        private int[] rows = new int[16];
+        private int size;
+        private int maxSize;
+
+        ActiveSet(AssignmentTable table) {
+            this.table = table;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void add(int row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            int index = size++;
+            int dateTo = table.getDateTo(row);
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (table.getDateTo(rows[parent]) <= dateTo) {
+                    break;
+                }
+                rows[index] = rows[parent];
+                index = parent;
+            }
+            rows[index] = row;
+            maxSize = Math.max(maxSize, size);
+        }
+
+        void evictEndingBefore(int date) {
+            while (size > 0 && table.getDateTo(rows[0]) < date) {
+                int last = rows[--size];
+                int dateTo = table.getDateTo(last);
+                int index = 0;
+                while (true) {
+                    int child = 2 * index + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && table.getDateTo(rows[child + 1]) < table.getDateTo(rows[child])) {
+                        child++;
+                    }
+                    if (table.getDateTo(rows[child]) >= dateTo) {
+                        break;
+                    }
+                    rows[index] = rows[child];
+                    index = child;
+                }
+                rows[index] = last;
+            }
+        }
+    }
+}
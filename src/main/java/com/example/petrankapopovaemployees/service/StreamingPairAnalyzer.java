@@ -0,0 +1,204 @@
+package com.example.petrankapopovaemployees.service;
+
+import java.util.*;
+
+/**
+ * Computes pair overlaps while rows are still being parsed, without keeping the whole upload in memory.
+ * <p>
+ * Rows are expected roughly in order of start date. They pass through a reorder buffer of bounded size
+ * and are then swept per project, like in {@link PairOverlapEngine}. Memory is bounded by the reorder
+ * window plus the number of assignments active at the same time. If a row arrives further out of order
+ * than the window can absorb, {@link UnsortedInputException} is thrown and the caller has to fall back
+ * to the materialized analysis.
+ * <p>
+ * Like {@link AssignmentTable#coalesce()}, the analyzer can merge a row into the active row of the same
+ * employee it overlaps; only the days the merged row extends beyond the active row are paired.
+ */
+public class StreamingPairAnalyzer implements AssignmentConsumer {
+
+    /**
+     * Minimum number of active assignments before a full eviction pass over all projects is worthwhile.
+     */
+    private static final int MIN_EVICTION_THRESHOLD = 1024;
+
+    private static final Comparator<Assignment> BY_DATE_FROM = Comparator.comparingInt(Assignment::dateFrom);
+    private static final Comparator<Assignment> BY_DATE_TO = Comparator.comparingInt(Assignment::dateTo);
+
+    /**
+     * A single parsed row, with dates as epoch days.
+     */
+    private record Assignment(int empId, int projectId, int dateFrom, int dateTo) {
+    }
+
+    /**
+     * Thrown when the input is not sorted by start date closely enough for the reorder window.
+     */
+    public static class UnsortedInputException extends IllegalStateException {
+        public UnsortedInputException(String message) {
+            super(message);
+        }
+    }
+
+    private final PairAccumulator accumulator = new PairAccumulator();
+
+    /**
+     * Rows waiting to be swept, smallest start date first.
+     */
+    private final PriorityQueue<Assignment> reorderBuffer = new PriorityQueue<>(BY_DATE_FROM);
+
+    /**
+     * Assignments still active per project, earliest end date first.
+     */
+    private final Map<Integer, PriorityQueue<Assignment>> activeByProject = new HashMap<>();
+
+    private final int reorderWindow;
+    private final boolean coalesce;
+    private int lastDateFrom = Integer.MIN_VALUE;
+    private int activeCount;
+    private int evictionThreshold = MIN_EVICTION_THRESHOLD;
+    private int maxActiveCount;
+    private int collapsedRows;
+
+    /**
+     * Creates an analyzer that pairs every row on its own.
+     *
+     * @param reorderWindow The number of rows buffered to tolerate input that is not strictly sorted by start date.
+     */
+    public StreamingPairAnalyzer(int reorderWindow) {
+        this(reorderWindow, false);
+    }
+
+    /**
+     * Creates an analyzer.
+     *
+     * @param reorderWindow The number of rows buffered to tolerate input that is not strictly sorted by start date.
+     * @param coalesce      Whether to merge overlapping rows of the same employee and project.
+     */
+    public StreamingPairAnalyzer(int reorderWindow, boolean coalesce) {
+        this.reorderWindow = Math.max(reorderWindow, 0);
+        this.coalesce = coalesce;
+    }
+
+    @Override
+    public void accept(int empId, int projectId, int dateFrom, int dateTo) {
+        reorderBuffer.add(new Assignment(empId, projectId, dateFrom, dateTo));
+        if (reorderBuffer.size() > reorderWindow) {
+            sweep(reorderBuffer.poll());
+        }
+    }
+
+    /**
+     * Sweeps the remaining buffered rows and returns the pair totals.
+     *
+     * @return The accumulated pair totals.
+     * @throws UnsortedInputException If the input was not sorted closely enough by start date.
+     */
+    public PairAccumulator finish() {
+        while (!reorderBuffer.isEmpty()) {
+            sweep(reorderBuffer.poll());
+        }
+        activeByProject.clear();
+        return accumulator;
+    }
+
+    /**
+     * Returns the largest number of assignments that were active at the same time.
+     *
+     * @return The peak size of the active set.
+     */
+    public int getMaxActiveCount() {
+        return maxActiveCount;
+    }
+
+    /**
+     * Returns the number of rows merged into an overlapping row of the same employee and project.
+     *
+     * @return The number of collapsed rows.
+     */
+    public int getCollapsedRows() {
+        return collapsedRows;
+    }
+
+    private void sweep(Assignment current) {
+        if (current.dateFrom() < lastDateFrom) {
+            throw new UnsortedInputException("Input is not sorted by start date within a window of " + reorderWindow + " rows");
+        }
+        lastDateFrom = current.dateFrom();
+
+        PriorityQueue<Assignment> active = activeByProject.computeIfAbsent(current.projectId(), k -> new PriorityQueue<>(BY_DATE_TO));
+        activeCount -= evict(active, current.dateFrom());
+        if (coalesce && merge(active, current)) {
+            return;
+        }
+        for (Assignment other : active) {
+            // Identical rows are not paired with each other, matching the materialized analysis
+            if (!other.equals(current)) {
+                accumulator.add(other.empId(), current.empId(), current.projectId(),
+                        Math.min(other.dateTo(), current.dateTo()) - current.dateFrom() + 1);
+            }
+        }
+        active.add(current);
+        maxActiveCount = Math.max(maxActiveCount, ++activeCount);
+
+        if (activeCount > evictionThreshold) {
+            evictAll(current.dateFrom());
+        }
+    }
+
+    /**
+     * Merges the row into the active row of the same employee, if any. After eviction every active row
+     * overlaps the current one, and merged rows never overlap, so there is at most one such row.
+     *
+     * @return True if the row was merged.
+     */
+    private boolean merge(PriorityQueue<Assignment> active, Assignment current) {
+        Assignment covering = null;
+        for (Assignment other : active) {
+            if (other.empId() == current.empId()) {
+                covering = other;
+                break;
+            }
+        }
+        if (covering == null) {
+            return false;
+        }
+        collapsedRows++;
+        if (current.dateTo() > covering.dateTo()) {
+            // Every active row starts before the extension, so it overlaps the extension up to its own end
+            for (Assignment other : active) {
+                if (other != covering) {
+                    accumulator.add(other.empId(), current.empId(), current.projectId(),
+                            Math.min(other.dateTo(), current.dateTo()) - covering.dateTo());
+                }
+            }
+            active.remove(covering);
+            active.add(new Assignment(covering.empId(), covering.projectId(), covering.dateFrom(), current.dateTo()));
+        }
+        return true;
+    }
+
+    /**
+     * Drops finished assignments of projects that have not received rows recently, so the active set
+     * only holds assignments that can still overlap with upcoming rows.
+     */
+    private void evictAll(int dateFrom) {
+        Iterator<PriorityQueue<Assignment>> iterator = activeByProject.values().iterator();
+        while (iterator.hasNext()) {
+            PriorityQueue<Assignment> active = iterator.next();
+            activeCount -= evict(active, dateFrom);
+            if (active.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        evictionThreshold = Math.max(MIN_EVICTION_THRESHOLD, activeCount * 2);
+    }
+
+    private static int evict(PriorityQueue<Assignment> active, int dateFrom) {
+        int evicted = 0;
+        while (!active.isEmpty() && active.peek().dateTo() < dateFrom) {
+            active.poll();
+            evicted++;
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.petrankapopovaemployees.service;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Detects gzip and ZIP compressed uploads by their magic bytes and decompresses them on the fly.
+ * The decompressed bytes are streamed straight into the CSV parser; nothing is inflated into memory
+ * or a temporary file first. Uploads without a known magic number are read as plain CSV.
+ * <p>
+ * Since a small archive can inflate to terabytes, the decompressed size and the compression ratio are
+ * limited while reading; an upload exceeding either fails with an {@link InvalidUploadException}.
+ */
+public final class UploadDecoder {
+
+    /**
+     * Thrown when a compressed upload cannot be used, e.g. a ZIP archive holding more than one file.
+     */
+    public static class InvalidUploadException extends IOException {
+        public InvalidUploadException(String message) {
+            super(message);
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAGIC_LENGTH = 4;
+
+    /**
+     * Number of decompressed bytes up to which the compression ratio is not checked, since small files of
+     * repeated rows legitimately compress very well.
+     */
+    private static final long RATIO_CHECK_THRESHOLD = 1024 * 1024;
+
+    private UploadDecoder() {
+    }
+
+    /**
+     * Checks whether a file starts with the gzip or ZIP magic number.
+     *
+     * @param file The file to check.
+     * @return True if the file is compressed.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isCompressed(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC_LENGTH);
+            while (magic.hasRemaining() && channel.read(magic) > 0) {
+                // Read until the magic is complete or the file ends
+            }
+            return isGzip(magic.array(), magic.position()) || isZip(magic.array(), magic.position());
+        }
+    }
+
+    /**
+     * Wraps an upload in a decompressing stream like {@link #decode(InputStream, long, int)}, without limits.
+     * Only for callers that read a bounded prefix of the upload.
+     */
+    static InputStream decode(InputStream upload) throws IOException {
+        return decode(upload, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Wraps an upload in a decompressing stream if its first bytes are a gzip or ZIP magic number.
+     * A ZIP archive must contain exactly one file; directory entries are ignored.
+     *
+     * @param upload               The raw upload; closing the returned stream closes it.
+     * @param maxUncompressedBytes The largest number of bytes a compressed upload may decompress to.
+     * @param maxCompressionRatio  The largest ratio of decompressed to compressed bytes.
+     * @return A stream of the uncompressed CSV bytes.
+     * @throws InvalidUploadException If a ZIP archive holds no file, or while reading, if a compressed upload
+     *                                exceeds one of the limits.
+     * @throws IOException            If the upload cannot be read.
+     */
+    static InputStream decode(InputStream upload, long maxUncompressedBytes, int maxCompressionRatio)
+            throws IOException {
+        CountingInputStream raw = new CountingInputStream(upload);
+        BufferedInputStream input = new BufferedInputStream(raw, BUFFER_SIZE);
+        input.mark(MAGIC_LENGTH);
+        byte[] magic = input.readNBytes(MAGIC_LENGTH);
+        input.reset();
+        if (isGzip(magic, magic.length)) {
+            return new LimitedInputStream(new GZIPInputStream(input, BUFFER_SIZE), raw,
+                    maxUncompressedBytes, maxCompressionRatio);
+        }
+        if (isZip(magic, magic.length)) {
+            return new LimitedInputStream(new SingleEntryZipInputStream(new ZipInputStream(input)), raw,
+                    maxUncompressedBytes, maxCompressionRatio);
+        }
+        return input;
+    }
+
+    private static boolean isGzip(byte[] magic, int length) {
+        return length >= 2 && magic[0] == (byte) 0x1F && magic[1] == (byte) 0x8B;
+    }
+
+    private static boolean isZip(byte[] magic, int length) {
+        return length >= 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+    }
+
+    /**
+     * Fails once the decompressed bytes exceed the size limit or the allowed multiple of the compressed bytes.
+     * The compressed bytes are counted ahead of the decompressor's buffer, which only makes the ratio more
+     * lenient.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final CountingInputStream raw;
+        private final long maxUncompressedBytes;
+        private final int maxCompressionRatio;
+        private long count;
+
+        LimitedInputStream(InputStream decompressed, CountingInputStream raw, long maxUncompressedBytes,
+                           int maxCompressionRatio) {
+            super(decompressed);
+            this.raw = raw;
+            this.maxUncompressedBytes = maxUncompressedBytes;
+            this.maxCompressionRatio = maxCompressionRatio;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = in.read();
+            if (result >= 0) {
+                check(1);
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = in.read(b, off, len);
+            if (result > 0) {
+                check(result);
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            check(skipped);
+            return skipped;
+        }
+
+        private void check(long read) throws InvalidUploadException {
+            count += read;
+            if (count > maxUncompressedBytes) {
+                throw new InvalidUploadException("The upload decompresses to more than " + maxUncompressedBytes + " bytes.");
+            }
+            if (count > RATIO_CHECK_THRESHOLD && count / maxCompressionRatio > raw.getCount()) {
+                throw new InvalidUploadException("The upload decompresses to more than " + maxCompressionRatio
+                        + " times its compressed size.");
+            }
+        }
+    }
+
+    /**
+     * Reads the only file of a ZIP archive and fails at its end if the archive holds another file.
+     */
+    private static final class SingleEntryZipInputStream extends FilterInputStream {
+        private final ZipInputStream zip;
+        private boolean checkedForMoreEntries;
+
+        SingleEntryZipInputStream(ZipInputStream zip) throws IOException {
+            super(zip);
+            this.zip = zip;
+            if (nextFileEntry() == null) {
+                zip.close();
+                throw new InvalidUploadException("The ZIP archive does not contain a file.");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = zip.read();
+            if (result < 0) {
+                checkForMoreEntries();
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = zip.read(b, off, len);
+            if (result < 0) {
+                checkForMoreEntries();
+            }
+            return result;
+        }
+
+        private void checkForMoreEntries() throws IOException {
+            if (!checkedForMoreEntries) {
+                checkedForMoreEntries = true;
+                if (nextFileEntry() != null) {
+                    throw new InvalidUploadException("The ZIP archive must contain a single file.");
+                }
+            }
+        }
+
+        private ZipEntry nextFileEntry() throws IOException {
+            ZipEntry entry;
+            do {
+                entry = zip.getNextEntry();
+            } while (entry != null && entry.isDirectory());
+            return entry;
+        }
+    }
+}
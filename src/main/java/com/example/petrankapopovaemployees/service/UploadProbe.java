@@ -0,0 +1,136 @@
+package com.example.petrankapopovaemployees.service;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * What is learned about an upload before it is analyzed, in a single pass over its bytes: the hash keying the
+ * {@link AnalysisResultCache} and the row count that {@link AnalysisAdmission} charges against the heap budget.
+ * <p>
+ * The row count is estimated from a sample: the first bytes are decompressed and their line breaks counted, and
+ * the count is extrapolated to the size of the whole upload. Compressed uploads are decompressed until enough
+ * raw bytes were consumed that the decoder's read-ahead hardly distorts the compression ratio. The remaining raw
+ * bytes are only read to complete the hash; they are not decompressed.
+ *
+ * @param hash          SHA-256 of the uploaded bytes, or null if the upload was not hashed.
+ * @param estimatedRows The estimated number of rows of the upload.
+ */
+public record UploadProbe(String hash, long estimatedRows) {
+
+    /**
+     * Number of uncompressed and of raw bytes that are at least sampled to estimate the row count.
+     */
+    private static final int SAMPLE_BYTES = 1024 * 1024;
+
+    /**
+     * Number of uncompressed bytes after which sampling stops even if fewer raw bytes were consumed.
+     */
+    private static final int MAX_SAMPLE_BYTES = 64 * 1024 * 1024;
+
+    /**
+     * Row length assumed for uploads that cannot be sampled, about the length of the shortest CSV rows.
+     */
+    private static final int FALLBACK_ROW_BYTES = 24;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Reads the upload once, estimating its rows and, if requested, hashing it.
+     * An upload that cannot be decoded is estimated as plain CSV of {@value #FALLBACK_ROW_BYTES} bytes per row;
+     * the analysis then reports the actual error.
+     *
+     * @param upload The uploaded CSV file, plain or compressed.
+     * @param size   The size of the upload in bytes, as sent by the client.
+     * @param hash   Whether to compute the hash of the upload.
+     * @return The hash and the estimated row count.
+     * @throws IOException If the upload cannot be read while it is hashed.
+     */
+    public static UploadProbe of(InputStreamSource upload, long size, boolean hash) throws IOException {
+        MessageDigest digest = hash ? sha256() : null;
+        long rows;
+        try (InputStream source = upload.getInputStream()) {
+            CountingInputStream raw = new CountingInputStream(digest != null ? new DigestInputStream(source, digest) : source);
+            rows = estimateRows(raw, size);
+            if (digest != null) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                while (raw.read(buffer) >= 0) {
+                    // Hash the rest of the upload
+                }
+            }
+        } catch (IOException e) {
+            if (digest != null) {
+                throw e;
+            }
+            rows = size / FALLBACK_ROW_BYTES + 1;
+        }
+        return new UploadProbe(digest != null ? HexFormat.of().formatHex(digest.digest()) : null, rows);
+    }
+
+    /**
+     * Estimates the rows of an upload without hashing it.
+     *
+     * @param upload The uploaded CSV file, plain or compressed.
+     * @param size   The size of the upload in bytes, as sent by the client.
+     * @return The estimated number of rows.
+     */
+    public static long estimateRows(InputStreamSource upload, long size) {
+        try {
+            return of(upload, size, false).estimatedRows();
+        } catch (IOException e) {
+            // Read errors are only rethrown while hashing
+            return size / FALLBACK_ROW_BYTES + 1;
+        }
+    }
+
+    /**
+     * Counts the rows in the first bytes of the upload and extrapolates them to its whole size, leaving the raw
+     * stream open and positioned after the bytes the decoder consumed.
+     */
+    private static long estimateRows(CountingInputStream raw, long size) {
+        InputStream unclosed = new FilterInputStream(raw) {
+            @Override
+            public void close() {
+                // The raw stream is still read to complete the hash
+            }
+        };
+        try (InputStream decoded = UploadDecoder.decode(unclosed)) {
+            byte[] buffer = new byte[8192];
+            long sampled = 0;
+            long lines = 0;
+            byte last = '\n';
+            int read = 0;
+            while ((sampled < SAMPLE_BYTES || raw.getCount() < SAMPLE_BYTES) && sampled < MAX_SAMPLE_BYTES
+                    && (read = decoded.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                last = buffer[read - 1];
+                sampled += read;
+            }
+            if (read < 0 || decoded.read() < 0) {
+                // The whole upload was sampled
+                return last == '\n' ? lines : lines + 1;
+            }
+            return Math.max(lines, 1) * Math.max(size, raw.getCount()) / Math.max(raw.getCount(), 1);
+        } catch (IOException e) {
+            return size / FALLBACK_ROW_BYTES + 1;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
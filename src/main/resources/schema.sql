@@ -0,0 +1,45 @@
+-- Assignment store: every stored CSV row; a NULL end date is still running and resolves to the query date.
+-- The (project_id, date_to) index bounds overlap queries near the present, where the (project_id, date_from)
+-- index would match almost every row of the project.
+CREATE TABLE IF NOT EXISTS employee_assignment (
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    emp_id     INT  NOT NULL,
+    project_id INT  NOT NULL,
+    date_from  DATE NOT NULL,
+    date_to    DATE NULL,
+    INDEX idx_assignment_project_from (project_id, date_from),
+    INDEX idx_assignment_project_to (project_id, date_to),
+    INDEX idx_assignment_project_emp (project_id, emp_id)
+);
+
+-- Materialized overlap days of every pair of employees per common project, counting the overlaps of the
+-- merged assignments of each employee that ended; may be negative where an open overlap makes up for it
+CREATE TABLE IF NOT EXISTS employee_pair_project (
+    emp_id1     INT    NOT NULL,
+    emp_id2     INT    NOT NULL,
+    project_id  INT    NOT NULL,
+    days_worked BIGINT NOT NULL,
+    PRIMARY KEY (emp_id1, emp_id2, project_id)
+);
+
+-- Materialized total of employee_pair_project per pair of employees
+CREATE TABLE IF NOT EXISTS employee_pair_total (
+    emp_id1     INT    NOT NULL,
+    emp_id2     INT    NOT NULL,
+    days_worked BIGINT NOT NULL,
+    PRIMARY KEY (emp_id1, emp_id2),
+    INDEX idx_pair_total_days (days_worked)
+);
+
+-- Overlaps involving an open-ended assignment, whose days are counted at query time; overlap_to is
+-- 9999-12-31 when both assignments are open-ended. The weight is the signed number of times an overlap was
+-- added, since removing coverage may subtract an overlap that was added in other pieces.
+CREATE TABLE IF NOT EXISTS employee_pair_open (
+    emp_id1      INT  NOT NULL,
+    emp_id2      INT  NOT NULL,
+    project_id   INT  NOT NULL,
+    overlap_from DATE NOT NULL,
+    overlap_to   DATE NOT NULL,
+    weight       INT  NOT NULL,
+    PRIMARY KEY (emp_id1, emp_id2, project_id, overlap_from, overlap_to)
+);
@@ -0,0 +1,69 @@
+package com.example.petrankapopovaemployees.perf;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the stop-the-world pauses of the garbage collectors while it is open.
+ * <p>
+ * Pauses are taken from the collectors' JMX notifications. Notifications ending a concurrent GC cycle are
+ * ignored, since their duration includes the time the collector ran alongside the application.
+ */
+final class GcPauseRecorder implements NotificationListener, AutoCloseable {
+
+    private static final String CONCURRENT_CYCLE = "end of GC cycle";
+
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+    private final List<Long> pauseMillis = new ArrayList<>();
+
+    GcPauseRecorder() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(this, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        if (!CONCURRENT_CYCLE.equals(info.getGcAction())) {
+            synchronized (pauseMillis) {
+                pauseMillis.add(info.getGcInfo().getDuration());
+            }
+        }
+    }
+
+    /**
+     * @return The durations of the pauses recorded so far, in milliseconds.
+     */
+    List<Long> getPauseMillis() {
+        synchronized (pauseMillis) {
+            return List.copyOf(pauseMillis);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                // Already removed
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.petrankapopovaemployees.perf;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a load test run, written as JSON so that runs of different versions can be compared.
+ * <p>
+ * A run violates its SLOs when a latency percentile, the throughput, the longest GC pause or the error
+ * ratio misses its threshold, or when it is slower than a baseline report by more than the tolerance.
+ *
+ * @param version     Version of the application under test.
+ * @param timestamp   When the run finished, as an ISO-8601 instant.
+ * @param javaVersion Version of the JVM running the test.
+ * @param settings    Load and thresholds of the run.
+ * @param results     Measurements of the run.
+ * @param violations  The missed thresholds; empty if the run met all of them.
+ */
+record LoadTestReport(String version, String timestamp, String javaVersion, Settings settings, Results results,
+                      List<String> violations) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * Load of a run and its thresholds, read from the {@code perf.*} system properties set by the perf profile.
+     *
+     * @param concurrency       Number of uploads sent at the same time.
+     * @param requests          Number of measured uploads.
+     * @param warmupRequests    Number of uploads sent before measuring.
+     * @param rows              Number of rows of each generated dataset.
+     * @param datasets          Number of distinct datasets, uploaded in turn.
+     * @param slo               The thresholds.
+     * @param baseline          Path of a previous report to compare against; empty to skip the comparison.
+     * @param baselineTolerance Fraction by which the run may be slower than the baseline.
+     */
+    record Settings(int concurrency, int requests, int warmupRequests, int rows, int datasets, Slo slo,
+                    String baseline, double baselineTolerance) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("perf.concurrency", 8),
+                    Integer.getInteger("perf.requests", 200),
+                    Integer.getInteger("perf.warmup-requests", 40),
+                    Integer.getInteger("perf.rows", 20_000),
+                    Integer.getInteger("perf.datasets", 4),
+                    new Slo(
+                            Long.getLong("perf.slo.p50-millis", 1500),
+                            Long.getLong("perf.slo.p99-millis", 4000),
+                            doubleProperty("perf.slo.min-throughput", 5),
+                            Long.getLong("perf.slo.max-gc-pause-millis", 500),
+                            doubleProperty("perf.slo.max-error-ratio", 0)),
+                    System.getProperty("perf.baseline", ""),
+                    doubleProperty("perf.baseline.tolerance", 0.2));
+        }
+
+        private static double doubleProperty(String name, double defaultValue) {
+            String value = System.getProperty(name);
+            return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value);
+        }
+    }
+
+    /**
+     * Thresholds a run must meet.
+     *
+     * @param p50Millis        Largest acceptable median latency.
+     * @param p99Millis        Largest acceptable 99th percentile latency.
+     * @param minThroughput    Smallest acceptable number of uploads per second.
+     * @param maxGcPauseMillis Longest acceptable GC pause.
+     * @param maxErrorRatio    Largest acceptable fraction of uploads not answered with 200.
+     */
+    record Slo(long p50Millis, long p99Millis, double minThroughput, long maxGcPauseMillis, double maxErrorRatio) {
+    }
+
+    /**
+     * Measurements of a run. Latencies are measured by the client and include the transfer of the upload.
+     *
+     * @param requests           Number of measured uploads.
+     * @param errors             Number of uploads not answered with 200.
+     * @param p50Millis          Median latency.
+     * @param p90Millis          90th percentile latency.
+     * @param p99Millis          99th percentile latency.
+     * @param maxMillis          Longest latency.
+     * @param throughput         Uploads answered per second.
+     * @param rowsPerSecond      Rows analyzed per second.
+     * @param gcPauses           Number of GC pauses.
+     * @param gcPauseTotalMillis Time spent in GC pauses.
+     * @param gcPauseMaxMillis   Longest GC pause.
+     * @param elapsedSeconds     Wall-clock time of the measured uploads.
+     */
+    record Results(int requests, int errors, double p50Millis, double p90Millis, double p99Millis, double maxMillis,
+                   double throughput, double rowsPerSecond, int gcPauses, long gcPauseTotalMillis,
+                   long gcPauseMaxMillis, double elapsedSeconds) {
+
+        static Results of(long[] latencyNanos, int errors, long elapsedNanos, int rowsPerRequest, List<Long> gcPauseMillis) {
+            long[] sorted = latencyNanos.clone();
+            Arrays.sort(sorted);
+            double elapsedSeconds = elapsedNanos / 1e9;
+            return new Results(sorted.length, errors,
+                    percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.90), percentileMillis(sorted, 0.99),
+                    percentileMillis(sorted, 1.0),
+                    sorted.length / elapsedSeconds, (double) sorted.length * rowsPerRequest / elapsedSeconds,
+                    gcPauseMillis.size(),
+                    gcPauseMillis.stream().mapToLong(Long::longValue).sum(),
+                    gcPauseMillis.stream().mapToLong(Long::longValue).max().orElse(0),
+                    elapsedSeconds);
+        }
+
+        /**
+         * Nearest-rank percentile of sorted latencies.
+         */
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile * sorted.length);
+            return sorted[Math.max(0, rank - 1)] / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    /**
+     * Checks the results against the thresholds and, if given, against a baseline run.
+     *
+     * @param settings The load and thresholds of the run.
+     * @param results  The measurements of the run.
+     * @param baseline A previous report, or null.
+     * @return The missed thresholds.
+     */
+    static List<String> violations(Settings settings, Results results, LoadTestReport baseline) {
+        Slo slo = settings.slo();
+        List<String> violations = new ArrayList<>();
+        if (results.p50Millis() > slo.p50Millis()) {
+            violations.add(String.format("p50 latency %.1f ms exceeds %d ms", results.p50Millis(), slo.p50Millis()));
+        }
+        if (results.p99Millis() > slo.p99Millis()) {
+            violations.add(String.format("p99 latency %.1f ms exceeds %d ms", results.p99Millis(), slo.p99Millis()));
+        }
+        if (results.throughput() < slo.minThroughput()) {
+            violations.add(String.format("throughput %.1f/s is below %.1f/s", results.throughput(), slo.minThroughput()));
+        }
+        if (results.gcPauseMaxMillis() > slo.maxGcPauseMillis()) {
+            violations.add(String.format("GC pause %d ms exceeds %d ms", results.gcPauseMaxMillis(), slo.maxGcPauseMillis()));
+        }
+        double errorRatio = results.requests() == 0 ? 0 : (double) results.errors() / results.requests();
+        if (errorRatio > slo.maxErrorRatio()) {
+            violations.add(String.format("%d of %d uploads failed", results.errors(), results.requests()));
+        }
+
+        if (baseline != null) {
+            double tolerance = 1 + settings.baselineTolerance();
+            Results previous = baseline.results();
+            if (results.p50Millis() > previous.p50Millis() * tolerance) {
+                violations.add(String.format("p50 latency %.1f ms regressed from %.1f ms of version %s",
+                        results.p50Millis(), previous.p50Millis(), baseline.version()));
+            }
+            if (results.p99Millis() > previous.p99Millis() * tolerance) {
+                violations.add(String.format("p99 latency %.1f ms regressed from %.1f ms of version %s",
+                        results.p99Millis(), previous.p99Millis(), baseline.version()));
+            }
+            if (results.throughput() * tolerance < previous.throughput()) {
+                violations.add(String.format("throughput %.1f/s regressed from %.1f/s of version %s",
+                        results.throughput(), previous.throughput(), baseline.version()));
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Reads a report written by an earlier run.
+     */
+    static LoadTestReport read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), LoadTestReport.class);
+    }
+
+    /**
+     * Writes the report, creating its directory if needed.
+     */
+    void write(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        MAPPER.writeValue(file.toFile(), this);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.petrankapopovaemployees.perf;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends concurrent uploads of generated datasets to POST /upload on the embedded server and checks the
+ * latency, throughput and GC pauses against the SLOs configured in the perf profile.
+ * <p>
+ * The result cache is disabled, so that every upload is analyzed. The report is written before the SLOs are
+ * checked, so that a failing run can still be inspected and compared.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "employees.analysis.cache.enabled=false")
+public class UploadLoadTest {
+    private static final LocalDate PERIOD_START = LocalDate.of(2014, 1, 1);
+    private static final int PERIOD_DAYS = 3653;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    public void testUpload_meetsLatencySlosUnderConcurrentLoad() throws Exception {
+        LoadTestReport.Settings settings = LoadTestReport.Settings.fromSystemProperties();
+        List<HttpEntity<MultiValueMap<String, Object>>> uploads = new ArrayList<>();
+        for (int i = 0; i < settings.datasets(); i++) {
+            uploads.add(upload(generateCsv(settings.rows(), i)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(settings.concurrency());
+        try {
+            run(executor, uploads, settings.warmupRequests());
+            long[] latencyNanos;
+            List<Long> gcPauseMillis;
+            AtomicInteger errors = new AtomicInteger();
+            long start = System.nanoTime();
+            try (GcPauseRecorder gcPauses = new GcPauseRecorder()) {
+                latencyNanos = run(executor, uploads, settings.requests(), errors);
+                gcPauseMillis = gcPauses.getPauseMillis();
+            }
+            long elapsedNanos = System.nanoTime() - start;
+
+            LoadTestReport.Results results = LoadTestReport.Results.of(latencyNanos, errors.get(), elapsedNanos,
+                    settings.rows(), gcPauseMillis);
+            LoadTestReport baseline = settings.baseline().isBlank() ? null : LoadTestReport.read(Path.of(settings.baseline()));
+            LoadTestReport report = new LoadTestReport(System.getProperty("perf.version", "unknown"),
+                    Instant.now().toString(), Runtime.version().toString(), settings, results,
+                    LoadTestReport.violations(settings, results, baseline));
+            report.write(Path.of(System.getProperty("perf.report", "target/perf/upload-load-report.json")));
+
+            assertTrue(report.violations().isEmpty(), String.join("; ", report.violations()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long[] run(ExecutorService executor, List<HttpEntity<MultiValueMap<String, Object>>> uploads,
+                       int requests) throws Exception {
+        return run(executor, uploads, requests, new AtomicInteger());
+    }
+
+    /**
+     * Sends the uploads in turn from all workers and returns the latency of each one.
+     */
+    private long[] run(ExecutorService executor, List<HttpEntity<MultiValueMap<String, Object>>> uploads,
+                       int requests, AtomicInteger errors) throws Exception {
+        List<Future<Long>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            HttpEntity<MultiValueMap<String, Object>> upload = uploads.get(i % uploads.size());
+            futures.add(executor.submit(() -> {
+                long start = System.nanoTime();
+                ResponseEntity<String> response = restTemplate.postForEntity("/upload?view=SUMMARY", upload, String.class);
+                long latency = System.nanoTime() - start;
+                if (response.getStatusCode().value() != 200) {
+                    errors.incrementAndGet();
+                }
+                return latency;
+            }));
+        }
+        long[] latencyNanos = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            latencyNanos[i] = futures.get(i).get();
+        }
+        return latencyNanos;
+    }
+
+    private static HttpEntity<MultiValueMap<String, Object>> upload(byte[] csv) {
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new ByteArrayResource(csv) {
+            @Override
+            public String getFilename() {
+                return "employees.csv";
+            }
+        });
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        return new HttpEntity<>(body, headers);
+    }
+
+    /**
+     * Generates assignments of 1000 employees spread over 100 projects and ten years, about four of them
+     * active at the same time on each project.
+     */
+    private static byte[] generateCsv(int rows, long seed) {
+        Random random = new Random(seed);
+        int meanDuration = Math.max(1, 4 * PERIOD_DAYS * 100 / Math.max(rows, 1));
+        StringBuilder csv = new StringBuilder(rows * 32);
+        for (int i = 0; i < rows; i++) {
+            LocalDate from = PERIOD_START.plusDays(random.nextInt(PERIOD_DAYS));
+            csv.append(1 + random.nextInt(1000)).append(',')
+                    .append(1 + random.nextInt(100)).append(',')
+                    .append(from).append(',')
+                    .append(from.plusDays(random.nextInt(2 * meanDuration))).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.service.AnalysisAdmission;
+import com.example.petrankapopovaemployees.service.AssignmentSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "employees.analysis.cache.enabled=false",
+        "employees.analysis.admission.queue-timeout=0s",
+        "employees.analysis.admission.retry-after=7s"
+})
+public class AnalysisAdmissionTest {
+    private static final int ROWS = 200_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnalysisAdmission admission;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    public void testEstimateBytes_countsRowsOfSmallUploads() {
+        AnalysisAdmission admission = admission(DataSize.ofMegabytes(64), Duration.ZERO);
+        MockMultipartFile file = file("143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01\n143,10,2009-01-01");
+
+        long baseBytes = admission.estimateBytes(new MockMultipartFile("file", new byte[0]), 0);
+        assertEquals(baseBytes + 3 * 256, admission.estimateBytes(file, file.getSize()));
+    }
+
+    @Test
+    public void testEstimateBytes_extrapolatesPlainAndCompressedUploads() throws Exception {
+        AnalysisAdmission admission = admission(DataSize.ofMegabytes(64), Duration.ZERO);
+        byte[] csv = largeCsv();
+        byte[] compressed = gzip(csv);
+        long baseBytes = admission.estimateBytes(new MockMultipartFile("file", new byte[0]), 0);
+
+        long plainRows = (admission.estimateBytes(file(csv), csv.length) - baseBytes) / 256;
+        long compressedRows = (admission.estimateBytes(file(compressed), compressed.length) - baseBytes) / 256;
+
+        assertTrue(csv.length > 4L * 1024 * 1024 && compressed.length > 1024 * 1024);
+        assertEquals(ROWS, plainRows, ROWS * 0.1);
+        assertEquals(ROWS, compressedRows, ROWS * 0.2);
+    }
+
+    @Test
+    public void testAcquire_queuesUntilBudgetIsReleased() throws Exception {
+        AnalysisAdmission admission = admission(DataSize.ofBytes(1000), Duration.ofSeconds(10));
+        AnalysisAdmission.Permit first = admission.acquire(600);
+
+        CompletableFuture<AnalysisAdmission.Permit> second = CompletableFuture.supplyAsync(() -> admission.acquire(600));
+        while (admission.getQueuedCount() == 0) {
+            Thread.sleep(1);
+        }
+        assertFalse(second.isDone());
+        assertEquals(600, admission.getUsedBytes());
+        assertEquals(1.0, registry.get("employees.admission.queued").gauge().value());
+
+        first.close();
+        first.close();
+        AnalysisAdmission.Permit admitted = second.get(10, TimeUnit.SECONDS);
+        assertEquals(600, admission.getUsedBytes());
+        assertEquals(600.0, registry.get("employees.admission.memory.used").gauge().value());
+
+        admitted.close();
+        assertEquals(0, admission.getUsedBytes());
+    }
+
+    @Test
+    public void testAcquire_rejectsWhenBudgetIsNotReleasedInTime() {
+        AnalysisAdmission admission = admission(DataSize.ofBytes(1000), Duration.ofMillis(20));
+        try (AnalysisAdmission.Permit permit = admission.acquire(600)) {
+            AnalysisAdmission.OverBudgetException e =
+                    assertThrows(AnalysisAdmission.OverBudgetException.class, () -> admission.acquire(600));
+            assertEquals(Duration.ofSeconds(30), e.getRetryAfter());
+            assertEquals(0, admission.getQueuedCount());
+            assertEquals(1.0, registry.get("employees.admission.rejected").counter().count());
+        }
+    }
+
+    @Test
+    public void testAcquire_admitsOversizedUploadAlone() {
+        AnalysisAdmission admission = admission(DataSize.ofBytes(1000), Duration.ZERO);
+        try (AnalysisAdmission.Permit permit = admission.acquire(5000)) {
+            assertEquals(1000, permit.getBytes());
+            assertThrows(AnalysisAdmission.OverBudgetException.class, () -> admission.acquire(1));
+        }
+        assertEquals(0, admission.getUsedBytes());
+    }
+
+    @Test
+    public void testUpload_rejectsWithRetryAfterWhenBudgetIsExhausted() throws Exception {
+        MockMultipartFile file = file("143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01");
+        try (AnalysisAdmission.Permit permit = admission.acquire(admission.getBudgetBytes())) {
+            mockMvc.perform(multipart("/upload").file(file))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "7"));
+            mockMvc.perform(multipart("/upload/top").file(file))
+                    .andExpect(status().isTooManyRequests());
+        }
+
+        mockMvc.perform(multipart("/upload").file(file))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.longestWorkingPair.daysWorkedTogether").value(366));
+        assertEquals(0, admission.getUsedBytes());
+    }
+
+    @Test
+    public void testSnapshot_rejectsWithRetryAfterWhenBudgetIsExhausted() throws Exception {
+        MockMultipartFile file = file("143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01");
+        byte[] snapshot = mockMvc.perform(multipart("/snapshot/export").file(file))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        MockMultipartFile snapshotFile = new MockMultipartFile("file", "employees.snapshot",
+                AssignmentSnapshot.CONTENT_TYPE, snapshot);
+        assertEquals(0, admission.getUsedBytes());
+
+        try (AnalysisAdmission.Permit permit = admission.acquire(admission.getBudgetBytes())) {
+            mockMvc.perform(multipart("/snapshot/export").file(file))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "7"));
+            mockMvc.perform(multipart("/snapshot/analyze").file(snapshotFile))
+                    .andExpect(status().isTooManyRequests());
+        }
+
+        mockMvc.perform(multipart("/snapshot/analyze").file(snapshotFile))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.longestWorkingPair.daysWorkedTogether").value(366));
+        assertEquals(0, admission.getUsedBytes());
+    }
+
+    @Test
+    public void testDatasetUploads_rejectWithRetryAfterWhenBudgetIsExhausted() throws Exception {
+        MockMultipartFile file = file("143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01");
+        try (AnalysisAdmission.Permit permit = admission.acquire(admission.getBudgetBytes())) {
+            mockMvc.perform(multipart("/store/upload").file(file))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "7"));
+            mockMvc.perform(multipart("/store/delta").file(file))
+                    .andExpect(status().isTooManyRequests());
+            mockMvc.perform(multipart("/collaborations/upload").file(file))
+                    .andExpect(status().isTooManyRequests());
+        }
+
+        mockMvc.perform(multipart("/collaborations/upload").file(file))
+                .andExpect(status().isOk());
+        assertEquals(0, admission.getUsedBytes());
+    }
+
+    @Test
+    public void testDatasetUploads_rejectInvalidUploadsWithBadRequest() throws Exception {
+        ByteArrayOutputStream bomb = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bomb)) {
+            gzip.write(new byte[16 * 1024 * 1024]);
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv.gz", "application/gzip",
+                bomb.toByteArray());
+        for (String endpoint : new String[]{"/store/upload", "/store/delta", "/collaborations/upload"}) {
+            mockMvc.perform(multipart(endpoint).file(file))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().string("The upload decompresses to more than 200 times its compressed size."));
+        }
+        assertEquals(0, admission.getUsedBytes());
+    }
+
+    private AnalysisAdmission admission(DataSize budget, Duration queueTimeout) {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.getAdmission().setMemoryBudget(budget);
+        properties.getAdmission().setQueueTimeout(queueTimeout);
+        return new AnalysisAdmission(properties, registry);
+    }
+
+    private static byte[] largeCsv() {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            content.append(random.nextInt(100_000)).append(',').append(random.nextInt(1000))
+                    .append(",20").append(10 + random.nextInt(10)).append("-0").append(1 + random.nextInt(9))
+                    .append('-').append(10 + random.nextInt(18)).append(",2024-05-01\n");
+        }
+        return content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] content) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(content);
+        }
+        return output.toByteArray();
+    }
+
+    private static MockMultipartFile file(String content) {
+        return file(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MockMultipartFile file(byte[] content) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", content);
+    }
+}
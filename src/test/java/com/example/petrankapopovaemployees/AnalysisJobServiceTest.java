@@ -0,0 +1,187 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.AnalysisPhase;
+import com.example.petrankapopovaemployees.service.*;
+import com.opencsv.exceptions.CsvValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisJobServiceTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AnalysisJobService jobService;
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        jobService.shutdown();
+    }
+
+    @Test
+    public void testSubmit_runsAnalysisInBackground() throws Exception {
+        jobService = createJobService(new EmployeeService(), 1, 1);
+        String csvContent = "143,12,2013-01-11,2014-05-01\n" +
+                "218,12,2013-05-01,2014-05-01";
+
+        AnalysisJob job = jobService.submit(file(csvContent), false);
+        AnalysisPhase phase = awaitFinished(job);
+
+        assertEquals(AnalysisPhase.DONE, phase);
+        assertSame(job, jobService.find(job.getId()).orElseThrow());
+        assertEquals(2, job.toStatus().getRowsParsed());
+        AnalysisResult result = job.getResult();
+        assertEquals(2, result.getRowCount());
+        assertEquals(366, result.getLongestWorkingPair().getDaysWorkedTogether());
+    }
+
+    @Test
+    public void testSubmit_rejectsWhenQueueIsFull() throws Exception {
+        EmployeeService blockingService = new EmployeeService() {
+            @Override
+            public AnalysisResult analyze(InputStreamSource file, AnalysisProgress progress) throws IOException, CsvValidationException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.analyze(file, progress);
+            }
+        };
+        jobService = createJobService(blockingService, 1, 1);
+
+        AnalysisJob running = jobService.submit(file("1,1,2020-01-01,2020-01-02"), false);
+        AnalysisJob queued = jobService.submit(file("2,1,2020-01-01,2020-01-02"), false);
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit(file("3,1,2020-01-01,2020-01-02"), false));
+
+        release.countDown();
+        assertEquals(AnalysisPhase.DONE, awaitFinished(running));
+        assertEquals(AnalysisPhase.DONE, awaitFinished(queued));
+    }
+
+    @Test
+    public void testSubmit_waitsQueuedForAdmission() throws Exception {
+        AnalysisProperties properties = createProperties(1, 1);
+        AnalysisAdmission admission = new AnalysisAdmission(properties, new SimpleMeterRegistry());
+        jobService = createJobService(new EmployeeService(), properties, admission);
+        AnalysisAdmission.Permit occupied = admission.acquire(Long.MAX_VALUE);
+
+        AnalysisJob job = jobService.submit(file("143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01"), false);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (admission.getQueuedCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, admission.getQueuedCount());
+        assertEquals(AnalysisPhase.QUEUED, job.getProgress().getPhase());
+
+        occupied.close();
+        assertEquals(AnalysisPhase.DONE, awaitFinished(job));
+        assertEquals(366, job.getResult().getLongestWorkingPair().getDaysWorkedTogether());
+        assertEquals(0, admission.getUsedBytes());
+    }
+
+    @Test
+    public void testSubmit_failsWhenNotAdmittedInTime() throws Exception {
+        AnalysisProperties properties = createProperties(1, 1);
+        properties.getAdmission().setQueueTimeout(Duration.ofMillis(50));
+        AnalysisAdmission admission = new AnalysisAdmission(properties, new SimpleMeterRegistry());
+        jobService = createJobService(new EmployeeService(), properties, admission);
+
+        try (AnalysisAdmission.Permit occupied = admission.acquire(Long.MAX_VALUE)) {
+            AnalysisJob job = jobService.submit(file("1,1,2020-01-01,2020-01-02"), false);
+
+            assertEquals(AnalysisPhase.FAILED, awaitFinished(job));
+            assertEquals("The server is busy analyzing other uploads. Please retry later.", job.toStatus().getError());
+            assertNull(job.getResult());
+        }
+    }
+
+    @Test
+    public void testSubmit_dropsOldestFinishedJobsBeyondLimits() throws Exception {
+        AnalysisProperties properties = createProperties(1, 1);
+        properties.getJobs().setMaxRetained(2);
+        properties.getJobs().setMaxRetainedRows(5);
+        jobService = createJobService(new EmployeeService(), properties,
+                new AnalysisAdmission(properties, new SimpleMeterRegistry()));
+        String twoRows = "143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01";
+
+        AnalysisJob first = jobService.submit(file(twoRows), false);
+        awaitFinished(first);
+        AnalysisJob second = jobService.submit(file(twoRows), false);
+        awaitFinished(second);
+        AnalysisJob third = jobService.submit(file("1,1,2020-01-01,2020-01-02"), false);
+        awaitFinished(third);
+
+        assertTrue(jobService.find(first.getId()).isEmpty());
+        assertTrue(jobService.find(second.getId()).isPresent());
+        assertTrue(jobService.find(third.getId()).isPresent());
+        assertEquals(3, jobService.getRetainedRows());
+
+        AnalysisJob fourth = jobService.submit(file(twoRows + "\n1,1,2020-01-01,2020-01-02"), false);
+        awaitFinished(fourth);
+        assertTrue(jobService.find(second.getId()).isEmpty());
+        assertTrue(jobService.find(third.getId()).isPresent());
+        assertEquals(4, jobService.getRetainedRows());
+
+        AnalysisJob tooLarge = jobService.submit(file(twoRows + "\n1,1,2020-01-01,2020-01-02\n2,1,2020-01-01,2020-01-02"
+                + "\n3,1,2020-01-01,2020-01-02\n4,1,2020-01-01,2020-01-02"), false);
+        assertEquals(AnalysisPhase.FAILED, awaitFinished(tooLarge));
+        assertEquals("The result has more rows than finished jobs may retain.", tooLarge.toStatus().getError());
+        assertTrue(jobService.find(third.getId()).isEmpty());
+        assertTrue(jobService.find(fourth.getId()).isPresent());
+        assertEquals(3, jobService.getRetainedRows());
+    }
+
+    @Test
+    public void testFind_unknownJob() {
+        jobService = createJobService(new EmployeeService(), 1, 1);
+
+        assertTrue(jobService.find("missing").isEmpty());
+    }
+
+    private static AnalysisJobService createJobService(EmployeeService employeeService, int concurrency, int queueCapacity) {
+        AnalysisProperties properties = createProperties(concurrency, queueCapacity);
+        return createJobService(employeeService, properties, new AnalysisAdmission(properties, new SimpleMeterRegistry()));
+    }
+
+    private static AnalysisJobService createJobService(EmployeeService employeeService, AnalysisProperties properties,
+                                                       AnalysisAdmission admission) {
+        Clock clock = Clock.systemDefaultZone();
+        return new AnalysisJobService(employeeService, new AnalysisResultCache(properties, clock, new SimpleMeterRegistry()),
+                admission, properties, clock);
+    }
+
+    private static AnalysisProperties createProperties(int concurrency, int queueCapacity) {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.getJobs().setConcurrency(concurrency);
+        properties.getJobs().setQueueCapacity(queueCapacity);
+        properties.getCache().setEnabled(false);
+        properties.getAdmission().setMemoryBudget(DataSize.ofMegabytes(64));
+        return properties;
+    }
+
+    private static AnalysisPhase awaitFinished(AnalysisJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return job.getProgress().getPhase();
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.service.AnalysisMetrics;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisMetricsTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EmployeeService employeeService;
+
+    @AfterEach
+    public void tearDown() {
+        employeeService.shutdown();
+    }
+
+    @Test
+    public void testAnalyzeFile_recordsPhasesAndRejectedRows() throws Exception {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setParallelism(1);
+        // Log every request, so the slow-request path runs as well
+        properties.setSlowRequestThreshold(Duration.ZERO);
+        employeeService = new EmployeeService(Clock.systemDefaultZone(), properties, new AnalysisMetrics(registry, properties));
+        String csvContent = "143,12,2013-01-11,2014-05-01\n" +
+                "218,12,2013-05-01,2014-05-01\n" +
+                "300,12,2013-06-01\n" +
+                "abc,12,2013-06-01,2014-01-01\n" +
+                "301,12,yesterday,2014-01-01\n" +
+                "302,12,2014-01-01,2013-01-01";
+        byte[] content = csvContent.getBytes(StandardCharsets.UTF_8);
+
+        employeeService.analyzeFile(new MockMultipartFile("file", "employees.csv", "text/csv", content));
+
+        assertEquals(1, registry.get("employees.analysis.duration").tag("operation", "full").timer().count());
+        for (String phase : new String[]{"csv", "dates", "sort", "sweep"}) {
+            assertEquals(1, registry.get("employees.analysis.phase").tag("operation", "full").tag("phase", phase).timer().count());
+        }
+        assertEquals(6, registry.get("employees.analysis.rows").counter().count());
+        for (String reason : new String[]{"too_few_columns", "non_numeric", "invalid_date", "invalid_range"}) {
+            assertEquals(1, registry.get("employees.analysis.rows.rejected").tag("reason", reason).counter().count());
+        }
+        assertEquals(content.length, summary("employees.analysis.bytes.read").totalAmount());
+        assertEquals(2, summary("employees.analysis.active.set.size").max());
+        assertEquals(1, summary("employees.analysis.pairs").max());
+        assertTrue(summary("employees.analysis.allocated").max() > 0);
+    }
+
+    @Test
+    public void testProcessFileStreaming_recordsStreamingOperation() throws Exception {
+        employeeService = new EmployeeService(Clock.systemDefaultZone(), new AnalysisProperties(),
+                new AnalysisMetrics(registry, new AnalysisProperties()));
+        String csvContent = "1,1,2020-01-01,2020-01-10\n" +
+                "2,1,2020-01-05,2020-01-10\n" +
+                "3,1,2020-01-06,2020-01-07";
+
+        employeeService.processFileStreaming(new MockMultipartFile("file", "employees.csv", "text/csv",
+                csvContent.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, registry.get("employees.analysis.duration").tag("operation", "streaming").timer().count());
+        assertEquals(3, summary("employees.analysis.active.set.size").max());
+        assertEquals(3, summary("employees.analysis.pairs").max());
+    }
+
+    @Test
+    public void testProcessFileStreaming_countsFallbackRowsOnce() throws Exception {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setStreamingReorderWindow(10);
+        employeeService = new EmployeeService(Clock.systemDefaultZone(), properties,
+                new AnalysisMetrics(registry, properties));
+        StringBuilder csvContent = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            csvContent.append(i).append(',').append(1000 + i).append(",2015-01-01,2015-01-02\n");
+        }
+        csvContent.append("500,2,2009-01-01,2012-05-27\n").append("501,2,2009-01-01,2012-05-27\n");
+
+        employeeService.processFileStreaming(new MockMultipartFile("file", "employees.csv", "text/csv",
+                csvContent.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, registry.get("employees.analysis.duration").tag("operation", "streaming").timer().count());
+        assertEquals(1, registry.get("employees.analysis.duration").tag("operation", "full").timer().count());
+        assertEquals(102, registry.get("employees.analysis.rows").tag("operation", "full").counter().count());
+        assertTrue(registry.get("employees.analysis.rows").tag("operation", "streaming").counter().count() <= 102);
+    }
+
+    private DistributionSummary summary(String name) {
+        return registry.get(name).summary();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.service.AnalysisResult;
+import com.example.petrankapopovaemployees.service.AnalysisResultCache;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.opencsv.exceptions.CsvValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisResultCacheTest {
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-03-10T10:00:00Z"));
+    private final AnalysisProperties properties = new AnalysisProperties();
+    private final AtomicInteger computations = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private AnalysisResultCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        properties.getCache().setMaxEntries(2);
+        properties.getCache().setMaxRows(10);
+        properties.getCache().setTimeToLive(Duration.ofMinutes(30));
+        cache = new AnalysisResultCache(properties, clock, registry);
+    }
+
+    @Test
+    public void testGetOrCompute_hitSkipsComputation() throws IOException, CsvValidationException {
+        AnalysisResult first = cache.getOrCompute(file("a"), "full", () -> response(1));
+        AnalysisResult second = cache.getOrCompute(file("a"), "full", () -> response(1));
+
+        assertSame(first, second);
+        assertEquals(1, computations.get());
+        assertEquals(new AnalysisResultCache.Stats(1, 1, 0, 1, 1), cache.stats());
+    }
+
+    @Test
+    public void testGetOrCompute_keyIncludesContentAndParameters() throws IOException, CsvValidationException {
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+        cache.getOrCompute(file("b"), "full", () -> response(1));
+        cache.getOrCompute(file("a"), "streaming", () -> response(0));
+
+        assertEquals(3, computations.get());
+    }
+
+    @Test
+    public void testGetOrCompute_invalidatesWhenDateChanges() throws IOException, CsvValidationException {
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+        clock.advance(Duration.ofHours(14));
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+
+        assertEquals(2, computations.get());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    public void testGetOrCompute_expiresAfterTimeToLive() throws IOException, CsvValidationException {
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+        clock.advance(Duration.ofMinutes(31));
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    public void testGetOrCompute_evictsLeastRecentlyUsed() throws IOException, CsvValidationException {
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+        cache.getOrCompute(file("b"), "full", () -> response(1));
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+        cache.getOrCompute(file("c"), "full", () -> response(1));
+
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+        assertEquals(3, computations.get());
+        cache.getOrCompute(file("b"), "full", () -> response(1));
+        assertEquals(4, computations.get());
+    }
+
+    @Test
+    public void testGetOrCompute_boundsTotalRows() throws IOException, CsvValidationException {
+        cache.getOrCompute(file("a"), "full", () -> response(6));
+        cache.getOrCompute(file("b"), "full", () -> response(6));
+        cache.getOrCompute(file("c"), "full", () -> response(11));
+
+        assertEquals(1, cache.stats().entries());
+        assertEquals(6, cache.stats().rows());
+    }
+
+    @Test
+    public void testGetOrCompute_publishesCounters() throws IOException, CsvValidationException {
+        cache.getOrCompute(file("a"), "full", () -> response(6));
+        cache.getOrCompute(file("a"), "full", () -> response(6));
+        cache.getOrCompute(file("b"), "full", () -> response(6));
+
+        assertEquals(1.0, registry.get("employees.analysis.cache.hits").functionCounter().count());
+        assertEquals(2.0, registry.get("employees.analysis.cache.misses").functionCounter().count());
+        assertEquals(1.0, registry.get("employees.analysis.cache.evictions").functionCounter().count());
+        assertEquals(1.0, registry.get("employees.analysis.cache.entries").gauge().value());
+        assertEquals(6.0, registry.get("employees.analysis.cache.rows").gauge().value());
+    }
+
+    @Test
+    public void testGetOrCompute_coalescesConcurrentIdenticalUploads() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<AnalysisResult> first = CompletableFuture.supplyAsync(() -> compute("a", () -> {
+            started.countDown();
+            await(release);
+            return response(1);
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<AnalysisResult> second = CompletableFuture.supplyAsync(() -> compute("a", () -> response(1)));
+        while (cache.stats().hits() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        assertSame(first.get(10, TimeUnit.SECONDS), second.get(10, TimeUnit.SECONDS));
+        assertEquals(1, computations.get());
+        assertEquals(new AnalysisResultCache.Stats(1, 1, 0, 1, 1), cache.stats());
+    }
+
+    @Test
+    public void testGetOrCompute_sharesFailureOfComputationInFlight() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<AnalysisResult> first = CompletableFuture.supplyAsync(() -> compute("a", () -> {
+            started.countDown();
+            await(release);
+            throw new IOException("broken upload");
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        CompletableFuture<AnalysisResult> second = CompletableFuture.supplyAsync(() -> compute("a", () -> response(1)));
+        while (cache.stats().hits() == 0) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        Exception failure = assertThrows(Exception.class, () -> second.get(10, TimeUnit.SECONDS));
+        assertEquals("broken upload", failure.getCause().getCause().getMessage());
+        assertThrows(Exception.class, () -> first.get(10, TimeUnit.SECONDS));
+        // A later upload computes again
+        cache.getOrCompute(file("a"), "full", () -> response(1));
+        assertEquals(1, computations.get());
+    }
+
+    private AnalysisResult compute(String content, AnalysisResultCache.Computation computation) {
+        try {
+            return cache.getOrCompute(file(content), "full", computation);
+        } catch (IOException | CsvValidationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private AnalysisResult response(int rows) {
+        computations.incrementAndGet();
+        EmployeeProject row = new EmployeeProject(1, 1, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2));
+        return new AnalysisResult(rows == 0 ? null : AssignmentTable.of(Collections.nCopies(rows, row)), null);
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.PairCollaboration;
+import com.example.petrankapopovaemployees.service.AssignmentIntervalIndex;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.CollaborationIndex;
+import com.example.petrankapopovaemployees.service.PairOverlapEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssignmentIntervalIndexTest {
+
+    @Test
+    public void testFindOverlapping_matchesLinearScan() {
+        Random random = new Random(18);
+        for (int run = 0; run < 30; run++) {
+            AssignmentTable table = randomTable(random, 1 + random.nextInt(3000), 1 + random.nextInt(5));
+            AssignmentIntervalIndex index = new AssignmentIntervalIndex(table);
+            for (int query = 0; query < 50; query++) {
+                int projectId = random.nextInt(6);
+                int from = random.nextInt(4000) - 200;
+                int to = from + random.nextInt(query % 2 == 0 ? 10 : 1000);
+
+                List<Integer> expected = new ArrayList<>();
+                for (int row = 0; row < table.size(); row++) {
+                    if (table.getProjectId(row) == projectId && table.getDateFrom(row) <= to && table.getDateTo(row) >= from) {
+                        expected.add(row);
+                    }
+                }
+                assertEquals(expected, Arrays.stream(index.findOverlapping(projectId, from, to)).boxed().toList());
+            }
+        }
+    }
+
+    @Test
+    public void testAccumulate_clipsOverlapsToWindow() {
+        Random random = new Random(19);
+        for (int run = 0; run < 30; run++) {
+            AssignmentTable table = randomTable(random, 1 + random.nextInt(500), 1 + random.nextInt(4));
+            // Duplicate rows and repeated assignments of the same employee exercise the identical-row rule
+            table.accept(1, 0, 100, 300);
+            table.accept(1, 0, 100, 300);
+            table.accept(1, 0, 50, 400);
+            AssignmentIntervalIndex index = new AssignmentIntervalIndex(table);
+            int from = random.nextInt(3000);
+            int to = from + random.nextInt(800);
+
+            Map<String, Long> expected = new HashMap<>();
+            for (int row1 = 0; row1 < table.size(); row1++) {
+                for (int row2 = row1 + 1; row2 < table.size(); row2++) {
+                    if (table.getProjectId(row1) != table.getProjectId(row2) || table.sameAssignment(row1, row2)) {
+                        continue;
+                    }
+                    long days = Math.min(Math.min(table.getDateTo(row1), table.getDateTo(row2)), to)
+                            - Math.max(Math.max(table.getDateFrom(row1), table.getDateFrom(row2)), from) + 1;
+                    if (days > 0) {
+                        expected.merge(key(table.getEmpId(row1), table.getEmpId(row2)), days, Long::sum);
+                    }
+                }
+            }
+
+            Map<String, Long> actual = new HashMap<>();
+            index.accumulate(from, to).forEach((empId1, empId2, days) -> actual.put(key(empId1, empId2), days));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testCollaborationIndex_windowedPairQueries() {
+        AssignmentTable table = new AssignmentTable();
+        table.accept(143, 12, 0, 99);
+        table.accept(218, 12, 50, 199);
+        table.accept(143, 10, 0, 9);
+        table.accept(218, 10, 5, 9);
+        table.accept(7, 10, 0, 0);
+        CollaborationIndex index = CollaborationIndex.build(table, new PairOverlapEngine());
+
+        PairCollaboration pair = index.findPair(143, 218, 8, 60);
+        assertEquals(13, pair.getDaysWorkedTogether());
+        assertEquals(2, pair.getProjects().size());
+        assertEquals(2, pair.getProjects().get(0).getDaysWorkedTogether());
+        assertEquals(11, pair.getProjects().get(1).getDaysWorkedTogether());
+        assertNull(index.findPair(143, 218, 100, 200));
+        assertNull(index.findPair(7, 143, 1, 200));
+
+        List<EmployeePair> topPairs = index.findTopPairs(0, 4, 10);
+        assertEquals(1, topPairs.size());
+        assertEquals(7, topPairs.get(0).getEmployeeId1());
+        assertEquals(1, topPairs.get(0).getDaysWorkedTogether());
+        assertEquals(55, index.findTopPairs(Integer.MIN_VALUE, Integer.MAX_VALUE, 1).get(0).getDaysWorkedTogether());
+    }
+
+    private static AssignmentTable randomTable(Random random, int rows, int projects) {
+        AssignmentTable table = new AssignmentTable();
+        for (int i = 0; i < rows; i++) {
+            int from = random.nextInt(3500);
+            table.accept(random.nextInt(40), random.nextInt(projects), from, from + random.nextInt(random.nextInt(10) == 0 ? 2000 : 60));
+        }
+        return table;
+    }
+
+    private static String key(int empId1, int empId2) {
+        return Math.min(empId1, empId2) + "," + Math.max(empId1, empId2);
+    }
+}
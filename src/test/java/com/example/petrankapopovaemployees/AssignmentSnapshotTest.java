@@ -0,0 +1,150 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.service.AnalysisProgress;
+import com.example.petrankapopovaemployees.service.AnalysisResult;
+import com.example.petrankapopovaemployees.service.AssignmentSnapshot;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AssignmentSnapshotTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-10T10:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path importDirectory;
+
+    private EmployeeService employeeService;
+
+    @AfterEach
+    public void tearDown() {
+        employeeService.shutdown();
+    }
+
+    @Test
+    public void testAnalyzeSnapshot_matchesCsvAnalysis() throws Exception {
+        employeeService = createService();
+        MockMultipartFile csv = new MockMultipartFile("file", "employees.csv", "text/csv", randomCsv(20_000));
+
+        AnalysisResult expected = employeeService.analyze(csv, new AnalysisProgress());
+        AnalysisResult actual = employeeService.analyzeSnapshot(new ByteArrayResource(export(csv)));
+
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        assertEquals(expected.getLongestWorkingPair(), actual.getLongestWorkingPair());
+        assertEquals(new HashSet<>(expected.toResponse().getEmployeeProjects()),
+                new HashSet<>(actual.toResponse().getEmployeeProjects()));
+    }
+
+    @Test
+    public void testAnalyze_importedSnapshotIsMemoryMapped() throws Exception {
+        employeeService = createService();
+        MockMultipartFile csv = new MockMultipartFile("file", "employees.csv", "text/csv",
+                "143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01\n".getBytes(StandardCharsets.UTF_8));
+        Path file = Files.write(importDirectory.resolve("employees.snapshot"), export(csv));
+
+        assertTrue(AssignmentSnapshot.isSnapshot(file));
+        AssignmentTable table = AssignmentSnapshot.read(file);
+        assertEquals(2, table.size());
+        assertTrue(table.isSortedByProjectAndStart());
+
+        AnalysisResult result = employeeService.analyze(employeeService.resolveImportFile("employees.snapshot"));
+        EmployeePair pair = result.getLongestWorkingPair();
+        assertEquals(2, result.getRowCount());
+        assertEquals(366, pair.getDaysWorkedTogether());
+    }
+
+    @Test
+    public void testRead_emptySnapshot() throws Exception {
+        employeeService = createService();
+        byte[] snapshot = export(new MockMultipartFile("file", "empty.csv", "text/csv", new byte[]{'\n'}));
+
+        assertEquals(32, snapshot.length);
+        assertEquals(0, AssignmentSnapshot.read(new ByteArrayInputStream(snapshot)).size());
+    }
+
+    @Test
+    public void testRead_rejectsInvalidSnapshots() throws Exception {
+        employeeService = createService();
+        byte[] snapshot = export(new MockMultipartFile("file", "employees.csv", "text/csv", randomCsv(100)));
+
+        byte[] badMagic = snapshot.clone();
+        badMagic[0] = 'X';
+        byte[] badVersion = snapshot.clone();
+        badVersion[4] = 2;
+        byte[] corrupted = snapshot.clone();
+        corrupted[corrupted.length - 1] ^= 1;
+        byte[] truncated = Arrays.copyOf(snapshot, snapshot.length - 4);
+        byte[] trailing = Arrays.copyOf(snapshot, snapshot.length + 1);
+        byte[] shortHeader = Arrays.copyOf(snapshot, 16);
+
+        for (byte[] invalid : new byte[][]{badMagic, badVersion, corrupted, truncated, trailing, shortHeader}) {
+            assertThrows(AssignmentSnapshot.InvalidSnapshotException.class,
+                    () -> employeeService.analyzeSnapshot(new ByteArrayResource(invalid)));
+            Path file = Files.write(importDirectory.resolve("invalid.snapshot"), invalid);
+            assertThrows(AssignmentSnapshot.InvalidSnapshotException.class, () -> AssignmentSnapshot.read(file));
+        }
+    }
+
+    @Test
+    public void testRead_forgedRecordCountFailsWithoutAllocatingIt() throws Exception {
+        employeeService = createService();
+        byte[] snapshot = export(new MockMultipartFile("file", "employees.csv", "text/csv", randomCsv(1)));
+        // Claims 100 million records, about 1.6 GB, but carries the 16 bytes of one
+        ByteBuffer.wrap(snapshot).order(ByteOrder.LITTLE_ENDIAN).putInt(12, 100_000_000);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        AssignmentSnapshot.InvalidSnapshotException e = assertThrows(AssignmentSnapshot.InvalidSnapshotException.class,
+                () -> AssignmentSnapshot.read(new ByteArrayInputStream(snapshot)));
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        assertEquals("Snapshot data is truncated", e.getMessage());
+        assertTrue(allocated < 10 * 1024 * 1024, "Allocated " + allocated + " bytes");
+    }
+
+    private EmployeeService createService() {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setImportDirectory(importDirectory.toString());
+        return new EmployeeService(CLOCK, properties);
+    }
+
+    private byte[] export(MockMultipartFile csv) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        AssignmentSnapshot.write(employeeService.loadAssignmentTable(csv), output);
+        return output.toByteArray();
+    }
+
+    private static byte[] randomCsv(int rows) {
+        Random random = new Random(16);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            int start = 2000 + random.nextInt(20);
+            csv.append(random.nextInt(500)).append(',').append(random.nextInt(40)).append(',')
+                    .append(start).append("-0").append(1 + random.nextInt(9)).append("-15,")
+                    .append(random.nextInt(5) == 0 ? "NULL" : (start + 1 + random.nextInt(3)) + "-06-01").append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
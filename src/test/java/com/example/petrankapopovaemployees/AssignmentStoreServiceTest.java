@@ -0,0 +1,231 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.repository.AssignmentRepository;
+import com.example.petrankapopovaemployees.service.AssignmentStoreService;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import com.example.petrankapopovaemployees.service.PairOverlapEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class AssignmentStoreServiceTest {
+
+    @Autowired
+    private AssignmentStoreService storeService;
+
+    @Autowired
+    private AssignmentRepository repository;
+
+    /**
+     * The store merges the overlapping assignments of an employee on a project, like the coalescing analysis.
+     */
+    private final PairOverlapEngine engine = new PairOverlapEngine(null, Integer.MAX_VALUE, true);
+
+    @Test
+    public void testReplaceAll_storesLongestPair() throws Exception {
+        EmployeePair longest = storeService.replaceAll(file("143,12,2013-01-11,2014-05-01\n" +
+                "218,12,2013-05-01,2014-05-01\n" +
+                "143,10,2009-01-01,2011-04-27"));
+
+        assertEquals(3, repository.countAssignments());
+        assertEquals(143, longest.getEmployeeId1());
+        assertEquals(218, longest.getEmployeeId2());
+        assertEquals(366, longest.getDaysWorkedTogether());
+        assertEquals(List.of(12), longest.getProjectIds());
+    }
+
+    @Test
+    public void testDeltas_matchFullRecomputation() throws Exception {
+        Random random = new Random(12);
+        List<EmployeeProject> base = PairOverlapEngineTest.randomProjects(random, 300);
+        List<EmployeeProject> delta = PairOverlapEngineTest.randomProjects(random, 40);
+        // The delta also repeats stored rows, which must not be paired with their duplicates
+        delta.add(base.get(0));
+        delta.add(base.get(1));
+        List<EmployeeProject> combined = new ArrayList<>(base);
+        combined.addAll(delta);
+
+        storeService.replaceAll(file(toCsv(base)));
+        assertStoreMatches(base);
+
+        storeService.addAssignments(file(toCsv(delta)));
+        assertEquals(combined.size(), repository.countAssignments());
+        assertStoreMatches(combined);
+
+        storeService.removeAssignments(file(toCsv(delta)));
+        assertEquals(base.size(), repository.countAssignments());
+        assertStoreMatches(base);
+    }
+
+    @Test
+    public void testRemoveAssignments_ignoresRowsNotStored() throws Exception {
+        storeService.replaceAll(file("1,1,2020-01-01,2020-01-10\n" +
+                "2,1,2020-01-05,2020-01-10"));
+
+        EmployeePair longest = storeService.removeAssignments(file("3,1,2020-01-01,2020-01-10"));
+
+        assertEquals(2, repository.countAssignments());
+        assertEquals(6, longest.getDaysWorkedTogether());
+        assertNull(storeService.removeAssignments(file("2,1,2020-01-05,2020-01-10")));
+    }
+
+    @Test
+    public void testOpenEndedAssignments_resolveAtQueryTime() throws Exception {
+        MutableClock clock = new MutableClock(LocalDate.of(2020, 1, 10));
+        AssignmentStoreService store = new AssignmentStoreService(
+                new EmployeeService(clock, new AnalysisProperties()), repository, clock);
+
+        EmployeePair longest = store.replaceAll(file("1,1,2020-01-01,NULL\n" +
+                "2,1,2020-01-05,2020-01-20\n" +
+                "2,1,2020-01-08,2020-01-15"));
+        assertEquals(3, repository.countAssignments());
+        assertEquals(6, longest.getDaysWorkedTogether());
+        assertEquals(List.of(1), longest.getProjectIds());
+
+        clock.setDate(LocalDate.of(2020, 2, 1));
+        assertEquals(16, store.findLongestPair().getDaysWorkedTogether());
+
+        // Deleting the open-ended row on a later date still finds it and removes all of its days
+        assertNull(store.removeAssignments(file("1,1,2020-01-01,NULL")));
+        assertEquals(2, repository.countAssignments());
+        assertTrue(store.findTopPairs(10).isEmpty());
+    }
+
+    @Test
+    public void testDeltas_coalesceWithStoredOpenEndedAssignments() throws Exception {
+        MutableClock clock = new MutableClock(LocalDate.of(2020, 3, 1));
+        AssignmentStoreService store = new AssignmentStoreService(
+                new EmployeeService(clock, new AnalysisProperties()), repository, clock);
+        store.replaceAll(file("1,1,2020-01-01,2020-01-31\n" +
+                "2,1,2020-01-21,NULL"));
+        assertEquals(11, store.findLongestPair().getDaysWorkedTogether());
+
+        // Overlaps the stored assignment of employee 1, only the ten new days are paired
+        assertEquals(21, store.addAssignments(file("1,1,2020-01-25,2020-02-10")).getDaysWorkedTogether());
+        // Employee 1 keeps January 25 onwards, so only the four days before are subtracted
+        assertEquals(17, store.removeAssignments(file("1,1,2020-01-01,2020-01-31")).getDaysWorkedTogether());
+    }
+
+    @Test
+    public void testOpenEndedAssignments_matchFullRecomputation() throws Exception {
+        LocalDate today = LocalDate.of(2021, 6, 30);
+        MutableClock clock = new MutableClock(today);
+        AssignmentStoreService store = new AssignmentStoreService(
+                new EmployeeService(clock, new AnalysisProperties()), repository, clock);
+        Random random = new Random(21);
+        List<EmployeeProject> base = openEnded(random, PairOverlapEngineTest.randomProjects(random, 300));
+        List<EmployeeProject> delta = openEnded(random, PairOverlapEngineTest.randomProjects(random, 60));
+        List<EmployeeProject> combined = new ArrayList<>(base);
+        combined.addAll(delta);
+
+        store.replaceAll(file(toCsv(combined)));
+        assertStoreMatches(store, resolve(combined, today));
+
+        store.removeAssignments(file(toCsv(delta)));
+        assertEquals(base.size(), repository.countAssignments());
+        assertStoreMatches(store, resolve(base, today));
+
+        store.addAssignments(file(toCsv(delta)));
+        assertEquals(combined.size(), repository.countAssignments());
+        assertStoreMatches(store, resolve(combined, today));
+    }
+
+    private void assertStoreMatches(List<EmployeeProject> employeeProjects) {
+        assertStoreMatches(storeService, employeeProjects);
+    }
+
+    private void assertStoreMatches(AssignmentStoreService store, List<EmployeeProject> employeeProjects) {
+        List<EmployeePair> expected = engine.accumulate(employeeProjects).toEmployeePairs();
+        List<EmployeePair> stored = store.findTopPairs(Integer.MAX_VALUE);
+        assertEquals(new HashSet<>(expected), new HashSet<>(stored));
+        assertEquals(engine.findLongestPair(employeeProjects).getDaysWorkedTogether(),
+                store.findLongestPair().getDaysWorkedTogether());
+    }
+
+    /**
+     * Leaves about a quarter of the rows without an end date.
+     */
+    private static List<EmployeeProject> openEnded(Random random, List<EmployeeProject> employeeProjects) {
+        List<EmployeeProject> rows = new ArrayList<>(employeeProjects.size());
+        for (EmployeeProject project : employeeProjects) {
+            rows.add(random.nextInt(4) == 0
+                    ? new EmployeeProject(project.getEmpId(), project.getProjectId(), project.getDateFrom(), null)
+                    : project);
+        }
+        return rows;
+    }
+
+    /**
+     * Ends the open-ended rows on the given date, as the store counts them when queried on that date.
+     */
+    private static List<EmployeeProject> resolve(List<EmployeeProject> employeeProjects, LocalDate today) {
+        List<EmployeeProject> rows = new ArrayList<>(employeeProjects.size());
+        for (EmployeeProject project : employeeProjects) {
+            rows.add(project.getDateTo() != null ? project
+                    : new EmployeeProject(project.getEmpId(), project.getProjectId(), project.getDateFrom(), today));
+        }
+        return rows;
+    }
+
+    private static String toCsv(List<EmployeeProject> employeeProjects) {
+        StringBuilder csv = new StringBuilder();
+        for (EmployeeProject project : employeeProjects) {
+            csv.append(project.getEmpId()).append(',').append(project.getProjectId()).append(',')
+                    .append(project.getDateFrom()).append(',')
+                    .append(project.getDateTo() == null ? "NULL" : project.getDateTo()).append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Clock whose date can be moved forward between calls.
+     */
+    private static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(LocalDate date) {
+            setDate(date);
+        }
+
+        void setDate(LocalDate date) {
+            instant = date.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+
+    private static MockMultipartFile file(String csvContent) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AssignmentTableTest {
+
+    @Test
+    public void testSortByProjectAndStart_matchesStableComparatorSort() {
+        Random random = new Random(3);
+        List<EmployeeProject> employeeProjects = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Negative IDs and dates before 1970 exercise the sign handling of the packed key
+            LocalDate from = LocalDate.of(1950, 1, 1).plusDays(random.nextInt(40_000));
+            int projectId = random.nextInt(10) == 0 ? -random.nextInt(100) : random.nextInt(100_000);
+            employeeProjects.add(new EmployeeProject(random.nextInt(1000), projectId, from, from.plusDays(random.nextInt(500))));
+        }
+        AssignmentTable table = AssignmentTable.of(employeeProjects);
+
+        table.sortByProjectAndStart();
+
+        List<EmployeeProject> expected = new ArrayList<>(employeeProjects);
+        expected.sort(Comparator.comparing(EmployeeProject::getProjectId).thenComparing(EmployeeProject::getDateFrom));
+        assertEquals(expected, table.toEmployeeProjects());
+    }
+
+    @Test
+    public void testCoalesce_mergesOverlappingRowsOfSameEmployeeAndProject() {
+        AssignmentTable table = new AssignmentTable();
+        table.accept(1, 10, 100, 200);
+        table.accept(2, 10, 150, 160);
+        table.accept(1, 10, 150, 250);
+        table.accept(1, 10, 251, 300);
+        table.accept(1, 11, 120, 130);
+        table.accept(1, 10, 100, 200);
+        table.sortByProjectAndStart();
+
+        assertEquals(2, table.coalesce());
+
+        // Touching ranges stay separate, they do not share a day
+        assertEquals(List.of(
+                new EmployeeProject(1, 10, LocalDate.ofEpochDay(100), LocalDate.ofEpochDay(250)),
+                new EmployeeProject(2, 10, LocalDate.ofEpochDay(150), LocalDate.ofEpochDay(160)),
+                new EmployeeProject(1, 10, LocalDate.ofEpochDay(251), LocalDate.ofEpochDay(300)),
+                new EmployeeProject(1, 11, LocalDate.ofEpochDay(120), LocalDate.ofEpochDay(130))), table.toEmployeeProjects());
+        assertEquals(0, table.coalesce());
+    }
+
+    @Test
+    public void testAccept_growsAndKeepsInsertionOrder() {
+        AssignmentTable table = new AssignmentTable(1);
+        for (int i = 0; i < 1000; i++) {
+            table.accept(i, i % 7, 100 + i, 200 + i);
+        }
+
+        assertEquals(1000, table.size());
+        assertEquals(new EmployeeProject(999, 999 % 7, LocalDate.ofEpochDay(1099), LocalDate.ofEpochDay(1199)), table.toEmployeeProject(999));
+        assertEquals(new EmployeeProject(0, 0, LocalDate.ofEpochDay(100), LocalDate.ofEpochDay(200)), table.toEmployeeProjects().get(0));
+    }
+}
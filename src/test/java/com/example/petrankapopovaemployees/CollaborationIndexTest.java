@@ -0,0 +1,115 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeePartner;
+import com.example.petrankapopovaemployees.entity.PairCollaboration;
+import com.example.petrankapopovaemployees.entity.ProjectOverlap;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.CollaborationIndex;
+import com.example.petrankapopovaemployees.service.CollaborationIndexService;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import com.example.petrankapopovaemployees.service.PairOverlapEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CollaborationIndexTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-10T10:00:00Z"), ZoneOffset.UTC);
+
+    private final PairOverlapEngine engine = new PairOverlapEngine();
+
+    @Test
+    public void testFindPair_returnsDaysPerProject() {
+        AssignmentTable table = new AssignmentTable();
+        table.accept(143, 12, 0, 99);
+        table.accept(218, 12, 50, 199);
+        table.accept(143, 10, 0, 9);
+        table.accept(218, 10, 5, 9);
+        table.accept(7, 10, 0, 0);
+
+        CollaborationIndex index = CollaborationIndex.build(table, engine);
+        PairCollaboration pair = index.findPair(218, 143);
+
+        assertEquals(143, pair.getEmployeeId1());
+        assertEquals(218, pair.getEmployeeId2());
+        assertEquals(55, pair.getDaysWorkedTogether());
+        assertEquals(List.of(new ProjectOverlap(10, 5), new ProjectOverlap(12, 50)), pair.getProjects());
+        assertEquals(1, index.findPair(7, 143).getDaysWorkedTogether());
+        assertNull(index.findPair(7, 218));
+        assertEquals(5, index.toSummary().getRowCount());
+        assertEquals(3, index.toSummary().getEmployeeCount());
+        assertEquals(2, index.toSummary().getPairCount());
+    }
+
+    @Test
+    public void testFindTopPartners_matchesAccumulatedPairs() {
+        Random random = new Random(17);
+        AssignmentTable table = new AssignmentTable();
+        for (int i = 0; i < 5000; i++) {
+            int from = random.nextInt(2000);
+            table.accept(random.nextInt(200), random.nextInt(30), from, from + random.nextInt(300));
+        }
+        List<EmployeePair> pairs = engine.accumulate(table.copy()).toEmployeePairs();
+        CollaborationIndex index = CollaborationIndex.build(table, engine);
+
+        Map<Long, List<EmployeePair>> pairsByEmployee = new HashMap<>();
+        for (EmployeePair pair : pairs) {
+            PairCollaboration collaboration = index.findPair((int) pair.getEmployeeId2(), (int) pair.getEmployeeId1());
+            assertEquals(pair.getDaysWorkedTogether(), collaboration.getDaysWorkedTogether());
+            assertEquals(pair.getProjectIds(), collaboration.getProjects().stream().map(ProjectOverlap::getProjectId).toList());
+            assertEquals(pair.getDaysWorkedTogether(),
+                    collaboration.getProjects().stream().mapToLong(ProjectOverlap::getDaysWorkedTogether).sum());
+            pairsByEmployee.computeIfAbsent(pair.getEmployeeId1(), empId -> new ArrayList<>()).add(pair);
+            if (pair.getEmployeeId1() != pair.getEmployeeId2()) {
+                pairsByEmployee.computeIfAbsent(pair.getEmployeeId2(), empId -> new ArrayList<>()).add(pair);
+            }
+        }
+        assertEquals(pairs.size(), index.toSummary().getPairCount());
+        assertEquals(pairsByEmployee.size(), index.toSummary().getEmployeeCount());
+
+        for (Map.Entry<Long, List<EmployeePair>> entry : pairsByEmployee.entrySet()) {
+            long empId = entry.getKey();
+            List<EmployeePartner> expected = entry.getValue().stream()
+                    .map(pair -> new EmployeePartner(pair.getEmployeeId1() == empId ? pair.getEmployeeId2() : pair.getEmployeeId1(),
+                            pair.getDaysWorkedTogether(), pair.getProjectIds()))
+                    .sorted(Comparator.comparingLong(EmployeePartner::getDaysWorkedTogether).reversed()
+                            .thenComparingLong(EmployeePartner::getEmployeeId))
+                    .limit(5)
+                    .toList();
+            assertEquals(expected, index.findTopPartners((int) empId, 5));
+        }
+        assertNull(index.findTopPartners(-1, 5));
+    }
+
+    @Test
+    public void testLoad_swapsIndex() throws Exception {
+        EmployeeService employeeService = new EmployeeService(CLOCK);
+        try {
+            CollaborationIndexService indexService = new CollaborationIndexService(employeeService, new AnalysisProperties());
+            assertNull(indexService.findPair(143, 218));
+
+            indexService.load(file("143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01"));
+            assertEquals(366, indexService.findPair(143, 218).getDaysWorkedTogether());
+            assertEquals(218, indexService.findTopPartners(143, 10).get(0).getEmployeeId());
+
+            indexService.load(file("143,12,2013-01-11,2014-05-01\n300,12,2013-01-11,2013-01-20"));
+            assertNull(indexService.findPair(143, 218));
+            assertEquals(10, indexService.findPair(143, 300).getDaysWorkedTogether());
+            assertEquals(2, indexService.getSummary().getRowCount());
+        } finally {
+            employeeService.shutdown();
+        }
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
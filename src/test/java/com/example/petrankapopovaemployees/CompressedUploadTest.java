@@ -0,0 +1,149 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.service.AnalysisMetrics;
+import com.example.petrankapopovaemployees.service.AnalysisProgress;
+import com.example.petrankapopovaemployees.service.AnalysisResult;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import com.example.petrankapopovaemployees.service.UploadDecoder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedUploadTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-10T10:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path importDirectory;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EmployeeService employeeService;
+    private byte[] csv;
+
+    @BeforeEach
+    public void setUp() {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setImportDirectory(importDirectory.toString());
+        employeeService = new EmployeeService(CLOCK, properties, new AnalysisMetrics(registry, properties));
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append(i % 100).append(',').append(i % 7).append(",2013-01-").append(10 + i % 20).append(",2014-05-01\n");
+        }
+        csv = content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        employeeService.shutdown();
+    }
+
+    @Test
+    public void testAnalyze_gzipUploadMatchesPlainUpload() throws Exception {
+        AnalysisResult expected = employeeService.analyze(upload("employees.csv", csv), new AnalysisProgress());
+        byte[] compressed = gzip(csv);
+        AnalysisProgress progress = new AnalysisProgress();
+
+        AnalysisResult actual = employeeService.analyze(upload("employees.csv.gz", compressed), progress);
+
+        assertEquals(expected.toResponse(), actual.toResponse());
+        assertEquals(compressed.length, progress.getBytesRead());
+        assertEquals(csv.length, progress.getUncompressedBytesRead());
+        assertEquals(csv.length + compressed.length,
+                registry.get("employees.analysis.bytes.read").summary().totalAmount());
+        assertEquals(2L * csv.length, registry.get("employees.analysis.bytes.uncompressed").summary().totalAmount());
+    }
+
+    @Test
+    public void testAnalyze_singleFileZipUploadMatchesPlainUpload() throws Exception {
+        AnalysisResult expected = employeeService.analyze(upload("employees.csv", csv), new AnalysisProgress());
+
+        AnalysisResult actual = employeeService.analyze(upload("employees.zip", zip("data/", "data/employees.csv")),
+                new AnalysisProgress());
+
+        assertEquals(expected.toResponse(), actual.toResponse());
+    }
+
+    @Test
+    public void testAnalyze_rejectsZipWithoutExactlyOneFile() {
+        assertThrows(UploadDecoder.InvalidUploadException.class,
+                () -> employeeService.analyze(upload("employees.zip", zip("a.csv", "b.csv")), new AnalysisProgress()));
+        assertThrows(UploadDecoder.InvalidUploadException.class,
+                () -> employeeService.analyze(upload("employees.zip", zip("data/")), new AnalysisProgress()));
+    }
+
+    @Test
+    public void testAnalyze_rejectsUploadsInflatingBeyondTheLimits() throws Exception {
+        // 64 MB of zero bytes compress to about 64 KB
+        byte[] bomb = gzip(new byte[64 * 1024 * 1024]);
+        UploadDecoder.InvalidUploadException ratio = assertThrows(UploadDecoder.InvalidUploadException.class,
+                () -> employeeService.analyze(upload("bomb.csv.gz", bomb), new AnalysisProgress()));
+        assertEquals("The upload decompresses to more than 200 times its compressed size.", ratio.getMessage());
+
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.getDecompression().setMaxUncompressedSize(DataSize.ofKilobytes(64));
+        EmployeeService limitedService = new EmployeeService(CLOCK, properties);
+        try {
+            assertThrows(UploadDecoder.InvalidUploadException.class,
+                    () -> limitedService.analyze(upload("employees.csv.gz", gzip(csv)), new AnalysisProgress()));
+            assertThrows(UploadDecoder.InvalidUploadException.class,
+                    () -> limitedService.analyze(upload("employees.zip", zip("employees.csv")), new AnalysisProgress()));
+            // The limits only apply to compressed uploads
+            assertEquals(5000, limitedService.analyze(upload("employees.csv", csv), new AnalysisProgress()).getRowCount());
+        } finally {
+            limitedService.shutdown();
+        }
+    }
+
+    @Test
+    public void testAnalyze_importedGzipFileIsStreamed() throws Exception {
+        AnalysisResult expected = employeeService.analyze(upload("employees.csv", csv), new AnalysisProgress());
+        Files.write(importDirectory.resolve("employees.csv.gz"), gzip(csv));
+
+        AnalysisResult actual = employeeService.analyze(employeeService.resolveImportFile("employees.csv.gz"));
+
+        assertEquals(expected.toResponse(), actual.toResponse());
+    }
+
+    private static MockMultipartFile upload(String name, byte[] content) {
+        return new MockMultipartFile("file", name, "application/octet-stream", content);
+    }
+
+    private static byte[] gzip(byte[] content) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(content);
+        }
+        return output.toByteArray();
+    }
+
+    private byte[] zip(String... names) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(output)) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                if (!name.endsWith("/")) {
+                    zip.write(csv);
+                }
+                zip.closeEntry();
+            }
+        }
+        return output.toByteArray();
+    }
+}
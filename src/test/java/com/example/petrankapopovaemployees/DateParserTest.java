@@ -0,0 +1,77 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.service.DateParser;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DateParserTest {
+
+    @Test
+    public void testParse_matchesFormatterForEveryDayAndFormat() {
+        String[] patterns = {"yyyy-MM-dd", "MM/dd/yyyy", "dd-MM-yyyy"};
+        for (String pattern : patterns) {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern);
+            DateParser parser = new DateParser();
+            for (LocalDate date = LocalDate.of(1899, 1, 1); date.isBefore(LocalDate.of(2101, 1, 1)); date = date.plusDays(1)) {
+                assertEquals(date, parser.parse(date.format(formatter)));
+            }
+        }
+    }
+
+    @Test
+    public void testParse_adjustsDaysPastEndOfMonthLikeFormatter() {
+        DateParser parser = new DateParser();
+
+        assertEquals(LocalDate.of(2013, 2, 28), parser.parse("2013-02-30"));
+        assertEquals(LocalDate.of(2012, 2, 29), parser.parse("2012-02-31"));
+        assertEquals(LocalDate.of(2013, 4, 30), parser.parse("2013-04-31"));
+    }
+
+    @Test
+    public void testParse_rejectsInvalidValues() {
+        DateParser parser = new DateParser();
+        parser.parse("2013-01-11");
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("2013-02-32"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("2013-13-01"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("0000-01-01"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("5/1/2014"));
+        assertThrows(IllegalArgumentException.class, () -> parser.parse("invalid"));
+    }
+
+    @Test
+    public void testParse_fallsBackWhenValueIsNotInDetectedFormat() {
+        DateParser parser = new DateParser();
+
+        assertEquals(LocalDate.of(2013, 1, 11), parser.parse("2013-01-11"));
+        assertEquals(LocalDate.of(2014, 5, 1), parser.parse("05/01/2014"));
+        assertEquals(LocalDate.of(2012, 5, 27), parser.parse("27-05-2012"));
+        assertEquals(LocalDate.of(2013, 1, 12), parser.parse("2013-01-12"));
+    }
+
+    @Test
+    public void testParseEpochDay_doesNotAllocateInDetectedFormat() {
+        DateParser parser = new DateParser();
+        String[] values = {"11-01-2013", "01-05-2014", "29-02-2012", "31-12-1999"};
+        long checksum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            checksum += parser.parseEpochDay(values[i & 3]);
+        }
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000_000; i++) {
+            checksum += parser.parseEpochDay(values[i & 3]);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertNotEquals(0, checksum);
+        assertTrue(allocated < 100_000, "Expected no allocation per date but got " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.service.AnalysisJobService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "employees.analysis.response.max-inline-rows=2",
+        "employees.analysis.cache.max-rows=2",
+        "employees.analysis.jobs.max-retained-rows=4"
+})
+public class EmployeeControllerResponseViewTest {
+    private static final MockMultipartFile SMALL_FILE = file("143,12,2013-01-11,2014-05-01\n" +
+            "218,12,2013-05-01,2014-05-01");
+    private static final MockMultipartFile LARGE_FILE = file("143,12,2013-01-11,2014-05-01\n" +
+            "218,12,2013-05-01,2014-05-01\n" +
+            "143,10,2009-01-01,2011-04-27");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
+    @Test
+    public void testUpload_defaultsToFullResponseForSmallUploads() throws Exception {
+        mockMvc.perform(multipart("/upload").file(SMALL_FILE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeProjects.length()").value(2))
+                .andExpect(jsonPath("$.longestWorkingPair.daysWorkedTogether").value(366));
+    }
+
+    @Test
+    public void testUpload_defaultsToSummaryForLargeUploads() throws Exception {
+        mockMvc.perform(multipart("/upload").file(LARGE_FILE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeProjects").doesNotExist())
+                .andExpect(jsonPath("$.rowCount").value(3))
+                .andExpect(jsonPath("$.longestWorkingPair.daysWorkedTogether").value(366));
+    }
+
+    @Test
+    public void testUpload_returnsPagesInFileOrder() throws Exception {
+        mockMvc.perform(multipart("/upload").file(LARGE_FILE).param("view", "PAGE").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeProjects.length()").value(2))
+                .andExpect(jsonPath("$.employeeProjects[0].empId").value(143))
+                .andExpect(jsonPath("$.nextOffset").value(2))
+                .andExpect(jsonPath("$.rowCount").value(3));
+
+        mockMvc.perform(multipart("/upload").file(LARGE_FILE).param("view", "PAGE").param("offset", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeProjects.length()").value(1))
+                .andExpect(jsonPath("$.employeeProjects[0].projectId").value(10))
+                .andExpect(jsonPath("$.nextOffset").doesNotExist());
+    }
+
+    @Test
+    public void testUpload_returnsResultLocationWithPagesTooLargeForCache() throws Exception {
+        String location = mockMvc.perform(multipart("/upload").file(LARGE_FILE).param("view", "PAGE").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextOffset").value(2))
+                .andExpect(header().exists("Content-Location"))
+                .andReturn().getResponse().getHeader("Content-Location");
+
+        mockMvc.perform(get(location).param("view", "PAGE").param("offset", "2").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeProjects.length()").value(1))
+                .andExpect(jsonPath("$.employeeProjects[0].projectId").value(10))
+                .andExpect(jsonPath("$.rowCount").value(3));
+
+        // The last page and results the cache holds need no handle
+        mockMvc.perform(multipart("/upload").file(LARGE_FILE).param("view", "PAGE").param("limit", "3"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Location"));
+        mockMvc.perform(multipart("/upload").file(SMALL_FILE).param("view", "PAGE").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Location"));
+    }
+
+    @Test
+    public void testUpload_keepsOneBoundedResultPerUpload() throws Exception {
+        String location = mockMvc.perform(multipart("/upload").file(LARGE_FILE).param("view", "PAGE").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Content-Location");
+        long retainedRows = analysisJobService.getRetainedRows();
+
+        // Uploading the file again, e.g. for the next page, reuses the kept result
+        mockMvc.perform(multipart("/upload").file(LARGE_FILE).param("view", "PAGE").param("limit", "1").param("offset", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.employeeProjects[0].empId").value(218))
+                .andExpect(header().string("Content-Location", location));
+        assertEquals(retainedRows, analysisJobService.getRetainedRows());
+
+        // Results beyond the row limit of the finished jobs are not kept
+        MockMultipartFile tooLarge = file("1,1,2020-01-01,2020-01-10\n2,1,2020-01-01,2020-01-10\n" +
+                "3,1,2020-01-01,2020-01-10\n4,1,2020-01-01,2020-01-10\n5,1,2020-01-01,2020-01-10");
+        mockMvc.perform(multipart("/upload").file(tooLarge).param("view", "PAGE").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextOffset").value(2))
+                .andExpect(header().doesNotExist("Content-Location"));
+        assertEquals(retainedRows, analysisJobService.getRetainedRows());
+
+        // Other uploads displace the oldest results instead of adding to them
+        for (int i = 0; i < 3; i++) {
+            MockMultipartFile other = file(i + "1,1,2020-01-01,2020-01-10\n" + i + "2,1,2020-01-01,2020-01-10\n" +
+                    i + "3,1,2020-01-01,2020-01-10");
+            mockMvc.perform(multipart("/upload").file(other).param("view", "PAGE").param("limit", "2"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().exists("Content-Location"));
+            assertTrue(analysisJobService.getRetainedRows() <= 4);
+        }
+        mockMvc.perform(get(location).param("view", "PAGE"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testUpload_reportsCollapsedRowsInStreamingMode() throws Exception {
+        MockMultipartFile file = file("143,10,2009-01-01,2012-05-27\n" +
+                "143,10,2009-01-01,2012-05-27\n" +
+                "218,10,2012-05-01,2012-06-30");
+        mockMvc.perform(multipart("/upload").file(file).param("streaming", "true").param("view", "SUMMARY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowCount").doesNotExist())
+                .andExpect(jsonPath("$.collapsedRowCount").value(1))
+                .andExpect(jsonPath("$.longestWorkingPair.daysWorkedTogether").value(27));
+    }
+
+    @Test
+    public void testUpload_streamsNdjson() throws Exception {
+        String body = mockMvc.perform(multipart("/upload").file(LARGE_FILE).param("view", "NDJSON"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].contains("\"rowCount\":3"));
+        assertTrue(lines[1].contains("\"empId\":143") && lines[1].contains("\"dateFrom\":\"2013-01-11\""));
+        assertTrue(lines[3].contains("\"projectId\":10"));
+    }
+
+    @Test
+    public void testUpload_rejectsRowViewsInStreamingMode() throws Exception {
+        mockMvc.perform(multipart("/upload").file(SMALL_FILE).param("streaming", "true").param("view", "PAGE"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testUpload_rejectsDecompressionBombs() throws Exception {
+        ByteArrayOutputStream bomb = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bomb)) {
+            gzip.write(new byte[16 * 1024 * 1024]);
+        }
+
+        mockMvc.perform(multipart("/upload").file(new MockMultipartFile("file", "employees.csv.gz",
+                        "application/gzip", bomb.toByteArray())))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("The upload decompresses to more than 200 times its compressed size."));
+    }
+
+    private static MockMultipartFile file(String csvContent) {
+        return new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,18 +1,29 @@
 package com.example.petrankapopovaemployees;
 
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
 import com.example.petrankapopovaemployees.entity.EmployeePair;
 import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.entity.EmployeeWorkResponse;
+import com.example.petrankapopovaemployees.service.AnalysisProgress;
+import com.example.petrankapopovaemployees.service.AnalysisResult;
 import com.example.petrankapopovaemployees.service.EmployeeService;
 import com.opencsv.exceptions.CsvValidationException;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockMultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class EmployeeServiceTest {
@@ -73,9 +84,58 @@ public class EmployeeServiceTest {
         MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8));
         EmployeePair pair = employeeService.processFile(file);
 
+        // The overlapping rows of employee 143 on project 10 are merged, so the employee is not paired with itself
+        assertNull(pair);
+    }
+
+    @Test
+    public void testAnalyze_reportsCollapsedRows() throws IOException, CsvValidationException {
+        String csvContent = "143,10,2012-05-16,2013-05-16\n" +
+                "143,10,2009-01-01,2012-05-27\n" +
+                "143,10,2009-01-01,2012-05-27\n" +
+                "218,10,2012-05-01,2012-06-30";
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8));
+
+        AnalysisResult result = employeeService.analyze(file, new AnalysisProgress());
+
+        assertEquals(4, result.getRowCount());
+        assertEquals(2, result.toSummary().getCollapsedRowCount());
+        // Without merging, the days of May 16-27 would be counted twice
+        assertEquals(61, result.getLongestWorkingPair().getDaysWorkedTogether());
+        assertEquals(result.getLongestWorkingPair(), employeeService.processFileStreaming(file));
+    }
+
+    @Test
+    public void testAnalyzeStreaming_reportsCollapsedRows() throws IOException, CsvValidationException {
+        String sorted = "143,10,2009-01-01,2012-05-27\n" +
+                "143,10,2009-01-01,2012-05-27\n" +
+                "218,10,2012-05-01,2012-06-30\n" +
+                "143,10,2012-05-16,2013-05-16";
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", sorted.getBytes(StandardCharsets.UTF_8));
+
+        AnalysisResult result = employeeService.analyzeStreaming(file, new AnalysisProgress());
+
+        assertFalse(result.hasRows());
+        assertEquals(2, result.toSummary().getCollapsedRowCount());
+        assertEquals(61, result.getLongestWorkingPair().getDaysWorkedTogether());
+    }
+
+    @Test
+    public void testProcessFile_withoutCoalescingPairsOverlappingRowsOfSameEmployee() throws IOException, CsvValidationException {
+        String csvContent = "143,12,2013-01-11,2014-05-01\n" +
+                "143,10,2012-05-16,2013-05-16\n" +
+                "143,10,2009-01-01,2012-05-27";
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8));
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setCoalesce(false);
+        EmployeeService service = new EmployeeService(Clock.systemDefaultZone(), properties);
+
+        EmployeePair pair = service.processFile(file);
+
         assertEquals(143, pair.getEmployeeId1());
         assertEquals(143, pair.getEmployeeId2());
         assertEquals(12, pair.getDaysWorkedTogether());
+        service.shutdown();
     }
 
     @Test
@@ -146,4 +206,75 @@ public class EmployeeServiceTest {
 
         assertTrue(pair != null && pair.getEmployeeId1() == 143 && pair.getEmployeeId2() == 218 && pair.getDaysWorkedTogether() > 1L);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAnalyzeFile_readsUploadOnlyOnce() throws IOException, CsvValidationException {
+        String csvContent = "143,12,2013-01-11,2014-05-01\n" +
+                "218,12,2013-05-01,2014-05-01\n" +
+                "143,10,2009-01-01,2012-05-27";
+        AtomicInteger opens = new AtomicInteger();
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                opens.incrementAndGet();
+                return super.getInputStream();
+            }
+        };
+
+        EmployeeWorkResponse response = employeeService.analyzeFile(file);
+
+        assertEquals(1, opens.get());
+        assertEquals(3, response.getEmployeeProjects().size());
+        assertEquals(143, response.getEmployeeProjects().get(0).getEmpId()); // file order is preserved
+        assertEquals(LocalDate.of(2013, 1, 11), response.getEmployeeProjects().get(0).getDateFrom());
+        assertEquals(143, response.getLongestWorkingPair().getEmployeeId1());
+        assertEquals(218, response.getLongestWorkingPair().getEmployeeId2());
+        assertEquals(366, response.getLongestWorkingPair().getDaysWorkedTogether());
+    }
+
+    @Test
+    public void testLoadEmployeeProjects_resolvesNullEndDateWithServiceClock() throws IOException, CsvValidationException {
+        Clock clock = Clock.fixed(Instant.parse("2020-06-15T12:00:00Z"), ZoneOffset.UTC);
+        EmployeeService service = new EmployeeService(clock);
+        String csvContent = "143,12,2013-01-11,NULL\n" +
+                "218,12,11-01-2013,null\n" +
+                "219,12,2013-01-11,30-01-2013";
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8));
+
+        List<EmployeeProject> projects = service.loadEmployeeProjects(file);
+
+        assertEquals(3, projects.size());
+        assertEquals(LocalDate.of(2020, 6, 15), projects.get(0).getDateTo());
+        assertEquals(LocalDate.of(2013, 1, 11), projects.get(1).getDateFrom());
+        assertEquals(LocalDate.of(2020, 6, 15), projects.get(1).getDateTo());
+        assertEquals(LocalDate.of(2013, 1, 30), projects.get(2).getDateTo());
+    }
+
+    @Test
+    public void testProcessFileStreaming_matchesProcessFile() throws IOException, CsvValidationException {
+        String csvContent = "143,10,2009-01-01,2012-05-27\n" +
+                "218,10,2009-01-01,2012-05-27\n" +
+                "143,12,2013-01-11,2014-05-01\n" +
+                "218,12,2013-05-01,2014-05-01";
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(employeeService.processFile(file), employeeService.processFileStreaming(file));
+    }
+
+    @Test
+    public void testProcessFileStreaming_fallsBackForUnsortedFile() throws IOException, CsvValidationException {
+        StringBuilder csvContent = new StringBuilder();
+        // More rows than the reorder window, with the earliest assignments at the end of the file
+        for (int i = 0; i < 12_000; i++) {
+            csvContent.append(i).append(',').append(1000 + i).append(",2015-01-01,2015-01-02\n");
+        }
+        csvContent.append("500,2,2009-01-01,2012-05-27\n").append("501,2,2009-01-01,2012-05-27\n");
+        MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", csvContent.toString().getBytes(StandardCharsets.UTF_8));
+
+        EmployeePair pair = employeeService.processFileStreaming(file);
+
+        assertEquals(employeeService.processFile(file), pair);
+        assertEquals(500, pair.getEmployeeId1());
+        assertEquals(501, pair.getEmployeeId2());
+    }
+}
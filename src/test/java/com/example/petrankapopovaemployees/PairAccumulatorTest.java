@@ -0,0 +1,105 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.service.PairAccumulator;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PairAccumulatorTest {
+
+    @Test
+    public void testAdd_matchesBoxedMapAcrossGrowth() {
+        PairAccumulator accumulator = new PairAccumulator();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            int empId1 = random.nextInt(2000) - 100;
+            int empId2 = random.nextInt(2000) - 100;
+            long days = 1 + random.nextInt(50);
+            accumulator.add(empId1, empId2, random.nextInt(5), days);
+            expected.merge(((long) Math.min(empId1, empId2) << 32) | (Math.max(empId1, empId2) & 0xFFFFFFFFL), days, Long::sum);
+        }
+
+        assertEquals(expected.size(), accumulator.size());
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), accumulator.getDays((int) (entry.getKey() >>> 32), (int) (long) entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testLongestPair_collectsSortedDistinctProjects() {
+        PairAccumulator accumulator = new PairAccumulator();
+        accumulator.add(218, 143, 12, 10);
+        accumulator.add(143, 218, 10, 5);
+        accumulator.add(143, 218, 12, 1);
+        accumulator.add(1, 2, 3, 15);
+
+        EmployeePair pair = accumulator.longestPair();
+
+        assertEquals(143, pair.getEmployeeId1());
+        assertEquals(218, pair.getEmployeeId2());
+        assertEquals(16, pair.getDaysWorkedTogether());
+        assertEquals(List.of(10, 12), pair.getProjectIds());
+    }
+
+    @Test
+    public void testTopPairs_matchesFullSortWithDeterministicTies() {
+        PairAccumulator accumulator = new PairAccumulator();
+        Random random = new Random(9);
+        for (int i = 0; i < 20_000; i++) {
+            accumulator.add(random.nextInt(300), random.nextInt(300), random.nextInt(3), 1 + random.nextInt(5));
+        }
+        List<EmployeePair> expected = new ArrayList<>(accumulator.toEmployeePairs());
+        expected.sort(Comparator.comparingLong(EmployeePair::getDaysWorkedTogether).reversed()
+                .thenComparingLong(EmployeePair::getEmployeeId1)
+                .thenComparingLong(EmployeePair::getEmployeeId2));
+
+        assertEquals(expected.subList(0, 25), accumulator.topPairs(25));
+        assertEquals(expected, accumulator.topPairs(expected.size() + 10));
+        assertEquals(accumulator.longestPair(), accumulator.topPairs(1).get(0));
+        assertTrue(accumulator.topPairs(0).isEmpty());
+    }
+
+    @Test
+    public void testLongestPair_whenEmpty() {
+        assertNull(new PairAccumulator().longestPair());
+    }
+
+    /**
+     * Allocation benchmark: once a pair and its project are known, further overlaps must not allocate.
+     */
+    @Test
+    public void testAdd_doesNotAllocatePerOverlap() {
+        int pairs = 10_000;
+        int overlaps = 2_000_000;
+        PairAccumulator accumulator = new PairAccumulator();
+        for (int i = 0; i < pairs; i++) {
+            accumulator.add(i, i + 1, i % 7, 1);
+        }
+
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < overlaps; i++) {
+            int empId = i % pairs;
+            accumulator.add(empId + 1, empId, empId % 7, 3);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        double bytesPerOverlap = (double) allocated / overlaps;
+        assertEquals(pairs, accumulator.size());
+        assertTrue(bytesPerOverlap < 0.1, "Expected no allocation per overlap but got " + bytesPerOverlap
+                + " bytes (" + allocated + " bytes for " + overlaps + " overlaps)");
+    }
+}
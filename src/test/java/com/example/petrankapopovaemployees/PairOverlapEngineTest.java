@@ -0,0 +1,196 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.entity.PairRanking;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.PairOverlapEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class PairOverlapEngineTest {
+    private final PairOverlapEngine engine = new PairOverlapEngine();
+
+    @Test
+    public void testAccumulate_matchesOriginalAlgorithmOnRandomData() {
+        Random random = new Random(42);
+        for (int run = 0; run < 50; run++) {
+            List<EmployeeProject> employeeProjects = randomProjects(random, 1 + random.nextInt(400));
+
+            Map<String, Long> expectedDurations = new HashMap<>();
+            Map<String, Set<Integer>> expectedProjects = new HashMap<>();
+            originalAlgorithm(new ArrayList<>(employeeProjects), expectedDurations, expectedProjects);
+
+            Map<String, Long> actualDurations = new HashMap<>();
+            Map<String, Set<Integer>> actualProjects = new HashMap<>();
+            for (EmployeePair pair : engine.accumulate(employeeProjects).toEmployeePairs()) {
+                String key = pair.getEmployeeId1() + "," + pair.getEmployeeId2();
+                actualDurations.put(key, pair.getDaysWorkedTogether());
+                actualProjects.put(key, new HashSet<>(pair.getProjectIds()));
+            }
+
+            assertEquals(expectedDurations, actualDurations);
+            assertEquals(expectedProjects, actualProjects);
+
+            long expectedMax = expectedDurations.values().stream().mapToLong(Long::longValue).max().orElse(0);
+            EmployeePair longest = engine.findLongestPair(employeeProjects);
+            assertEquals(expectedMax, longest == null ? 0 : longest.getDaysWorkedTogether());
+        }
+    }
+
+    @Test
+    public void testAccumulate_coalescedCountsEveryCommonDayOnce() {
+        Random random = new Random(19);
+        for (int run = 0; run < 20; run++) {
+            List<EmployeeProject> employeeProjects = randomProjects(random, 1 + random.nextInt(400));
+
+            // Reference: the set of days each employee spent on each project, intersected per pair
+            Map<Integer, TreeMap<Integer, BitSet>> daysByProject = new TreeMap<>();
+            LocalDate base = LocalDate.of(2015, 1, 1);
+            for (EmployeeProject ep : employeeProjects) {
+                daysByProject.computeIfAbsent(ep.getProjectId(), k -> new TreeMap<>())
+                        .computeIfAbsent(ep.getEmpId(), k -> new BitSet())
+                        .set((int) ChronoUnit.DAYS.between(base, ep.getDateFrom()), (int) ChronoUnit.DAYS.between(base, ep.getDateTo()) + 1);
+            }
+            Map<String, Long> expected = new HashMap<>();
+            for (TreeMap<Integer, BitSet> days : daysByProject.values()) {
+                for (Map.Entry<Integer, BitSet> employee1 : days.entrySet()) {
+                    for (Map.Entry<Integer, BitSet> employee2 : days.tailMap(employee1.getKey(), false).entrySet()) {
+                        BitSet common = (BitSet) employee1.getValue().clone();
+                        common.and(employee2.getValue());
+                        if (!common.isEmpty()) {
+                            expected.merge(employee1.getKey() + "," + employee2.getKey(), (long) common.cardinality(), Long::sum);
+                        }
+                    }
+                }
+            }
+
+            Map<String, Long> actual = new HashMap<>();
+            new PairOverlapEngine(null, Integer.MAX_VALUE, true).accumulate(employeeProjects)
+                    .forEach((empId1, empId2, days) -> actual.put(empId1 + "," + empId2, days));
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testAccumulate_parallelMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PairOverlapEngine parallelEngine = new PairOverlapEngine(pool, 0);
+            Random random = new Random(5);
+            for (int run = 0; run < 5; run++) {
+                List<EmployeeProject> employeeProjects = randomProjects(random, 20_000 + random.nextInt(20_000));
+
+                assertEquals(new HashSet<>(engine.accumulate(employeeProjects).toEmployeePairs()),
+                        new HashSet<>(parallelEngine.accumulate(employeeProjects).toEmployeePairs()));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testRankPairs_perProjectMatchesSeparateAnalysis() {
+        List<EmployeeProject> employeeProjects = randomProjects(new Random(21), 600);
+
+        PairRanking ranking = engine.rankPairs(AssignmentTable.of(employeeProjects), 5, true);
+
+        assertEquals(engine.accumulate(employeeProjects).topPairs(5), ranking.getTopPairs());
+        Map<Integer, List<EmployeeProject>> byProject = new TreeMap<>();
+        for (EmployeeProject employeeProject : employeeProjects) {
+            byProject.computeIfAbsent(employeeProject.getProjectId(), k -> new ArrayList<>()).add(employeeProject);
+        }
+        assertEquals(byProject.keySet(), ranking.getTopPairsByProject().keySet());
+        for (Map.Entry<Integer, List<EmployeeProject>> project : byProject.entrySet()) {
+            List<EmployeePair> expected = engine.accumulate(project.getValue()).topPairs(5);
+            assertEquals(expected, ranking.getTopPairsByProject().get(project.getKey()));
+            assertEquals(5, expected.size());
+        }
+        assertNull(engine.rankPairs(AssignmentTable.of(employeeProjects), 5, false).getTopPairsByProject());
+    }
+
+    @Test
+    public void testFindLongestPair_breaksTiesBySmallestEmployeeIds() {
+        List<EmployeeProject> employeeProjects = List.of(
+                new EmployeeProject(5, 1, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 10)),
+                new EmployeeProject(6, 1, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 10)),
+                new EmployeeProject(2, 2, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 10)),
+                new EmployeeProject(3, 2, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 10)));
+
+        EmployeePair pair = engine.findLongestPair(employeeProjects);
+
+        assertEquals(2, pair.getEmployeeId1());
+        assertEquals(3, pair.getEmployeeId2());
+        assertEquals(10, pair.getDaysWorkedTogether());
+        assertEquals(List.of(2), pair.getProjectIds());
+    }
+
+    @Test
+    public void testFindLongestPair_withoutOverlaps() {
+        List<EmployeeProject> employeeProjects = List.of(
+                new EmployeeProject(1, 1, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 10)),
+                new EmployeeProject(2, 1, LocalDate.of(2020, 1, 11), LocalDate.of(2020, 1, 20)),
+                new EmployeeProject(3, 2, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 20)));
+
+        assertNull(engine.findLongestPair(employeeProjects));
+    }
+
+    static List<EmployeeProject> randomProjects(Random random, int count) {
+        List<EmployeeProject> employeeProjects = new ArrayList<>(count);
+        LocalDate base = LocalDate.of(2015, 1, 1);
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && random.nextInt(20) == 0) {
+                // Exact duplicates of an earlier row
+                employeeProjects.add(employeeProjects.get(random.nextInt(i)));
+                continue;
+            }
+            LocalDate from = base.plusDays(random.nextInt(2000));
+            LocalDate to = from.plusDays(random.nextInt(300));
+            employeeProjects.add(new EmployeeProject(1 + random.nextInt(30), 1 + random.nextInt(8), from, to));
+        }
+        return employeeProjects;
+    }
+
+    /**
+     * The pair search as it was implemented in EmployeeService before the per-project sweep,
+     * kept here as the reference the engine has to agree with.
+     */
+    private static void originalAlgorithm(List<EmployeeProject> employeeProjects,
+                                          Map<String, Long> pairDurationMap,
+                                          Map<String, Set<Integer>> pairProjectMap) {
+        employeeProjects.sort(Comparator.comparing(EmployeeProject::getDateFrom));
+        TreeMap<LocalDate, List<EmployeeProject>> activeProjects = new TreeMap<>();
+
+        for (EmployeeProject currentProject : employeeProjects) {
+            LocalDate currentStart = currentProject.getDateFrom();
+            LocalDate currentEnd = currentProject.getDateTo();
+
+            activeProjects.headMap(currentStart, false).clear();
+            activeProjects.computeIfAbsent(currentEnd, k -> new ArrayList<>()).add(currentProject);
+
+            for (List<EmployeeProject> projects : activeProjects.values()) {
+                for (EmployeeProject activeProject : projects) {
+                    if (activeProject.getProjectId().equals(currentProject.getProjectId()) && !activeProject.equals(currentProject)) {
+                        LocalDate start = activeProject.getDateFrom().isAfter(currentStart) ? activeProject.getDateFrom() : currentStart;
+                        LocalDate end = activeProject.getDateTo().isBefore(currentEnd) ? activeProject.getDateTo() : currentEnd;
+                        long overlapDays = end.isBefore(start) ? 0 : ChronoUnit.DAYS.between(start, end) + 1;
+                        if (overlapDays > 0) {
+                            String pairKey = activeProject.getEmpId() < currentProject.getEmpId()
+                                    ? activeProject.getEmpId() + "," + currentProject.getEmpId()
+                                    : currentProject.getEmpId() + "," + activeProject.getEmpId();
+                            pairDurationMap.put(pairKey, pairDurationMap.getOrDefault(pairKey, 0L) + overlapDays);
+                            pairProjectMap.computeIfAbsent(pairKey, k -> new HashSet<>()).add(currentProject.getProjectId());
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.configuration.AnalysisProperties;
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.service.AnalysisResult;
+import com.example.petrankapopovaemployees.service.EmployeeService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ServerFileImportTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-03-10T10:00:00Z"), ZoneOffset.UTC);
+
+    @TempDir
+    Path importDirectory;
+
+    private EmployeeService employeeService;
+
+    @AfterEach
+    public void tearDown() {
+        employeeService.shutdown();
+    }
+
+    @Test
+    public void testLoadEmployeeProjects_mappedChunksMatchCsvReader() throws Exception {
+        employeeService = createService(4);
+        Random random = new Random(15);
+        String[] irregularRows = {"", "   ", "1,2", "abc,1,2013-01-01,2014-01-01", "+7,1,2013-01-01,2014-01-01",
+                "12345678901,1,2013-01-01,2014-01-01", " 0000000042 , 3 ,2013-01-01, null ,extra",
+                "﻿5,1,2013-01-01,2014-01-01", "١٢,1,2013-01-01,2014-01-01", "9,1,2014-01-01,2013-01-01",
+                "9,1,13/01/2013,2014-01-01", "9,1,2013-02-30,NuLl", "9,1,01/31/2013,2014-02-01", "9,1,31-01-2013,NULL"};
+        StringBuilder csv = new StringBuilder();
+        while (csv.length() < 3 * 1024 * 1024) {
+            if (random.nextInt(50) == 0) {
+                csv.append(irregularRows[random.nextInt(irregularRows.length)]);
+            } else {
+                csv.append(random.nextInt(1000)).append(',').append(random.nextInt(50)).append(',')
+                        .append(2000 + random.nextInt(20)).append('-').append(String.format("%02d", 1 + random.nextInt(12)))
+                        .append("-0").append(1 + random.nextInt(9)).append(',')
+                        .append(random.nextInt(5) == 0 ? "NULL" : "2021-06-15");
+            }
+            csv.append(random.nextInt(10) == 0 ? "\r\n" : "\n");
+        }
+        Path file = write("large.csv", csv.toString());
+
+        List<EmployeeProject> expected = employeeService.loadEmployeeProjects(new FileSystemResource(file));
+        List<EmployeeProject> actual = employeeService.loadEmployeeProjects(file);
+
+        assertTrue(expected.size() > 100_000);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testLoadEmployeeProjects_irregularFilesFallBackToCsvReader() throws Exception {
+        employeeService = createService(1);
+        String[] contents = {
+                "\"143\",\"12\",\"2013-01-11\",\"2014-05-01\"\n218,12,2013-05-01,2014-05-01",
+                "143,12,2013-01-11,2014-05-01\r218,12,2013-05-01,2014-05-01",
+                "143,12,2013-01-11,2014-05-01\n218\\,12,2013-05-01,2014-05-01\n",
+                "143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01"};
+        for (String content : contents) {
+            Path file = write("irregular.csv", content);
+
+            assertEquals(employeeService.loadEmployeeProjects(new FileSystemResource(file)),
+                    employeeService.loadEmployeeProjects(file));
+        }
+    }
+
+    @Test
+    public void testAnalyze_importedFileFindsLongestPair() throws Exception {
+        employeeService = createService(2);
+        write("employees.csv", "143,12,2013-01-11,2014-05-01\n218,12,2013-05-01,2014-05-01\n");
+
+        AnalysisResult result = employeeService.analyze(employeeService.resolveImportFile("employees.csv"));
+
+        assertEquals(2, result.getRowCount());
+        assertEquals(366, result.getLongestWorkingPair().getDaysWorkedTogether());
+    }
+
+    @Test
+    public void testResolveImportFile_staysInsideImportDirectory() throws Exception {
+        employeeService = createService(1);
+        Path outside = Files.createTempFile("outside", ".csv");
+        try {
+            Files.createSymbolicLink(importDirectory.resolve("link.csv"), outside);
+
+            assertThrows(IllegalArgumentException.class,
+                    () -> employeeService.resolveImportFile("../" + outside.getFileName()));
+            assertThrows(IllegalArgumentException.class, () -> employeeService.resolveImportFile(outside.toString()));
+            assertThrows(IllegalArgumentException.class, () -> employeeService.resolveImportFile("link.csv"));
+            assertThrows(IllegalArgumentException.class, () -> employeeService.resolveImportFile("missing.csv"));
+        } finally {
+            Files.delete(outside);
+        }
+
+        employeeService.shutdown();
+        employeeService = new EmployeeService(CLOCK, new AnalysisProperties());
+        assertThrows(IllegalStateException.class, () -> employeeService.resolveImportFile("employees.csv"));
+    }
+
+    private EmployeeService createService(int parallelism) {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.setParallelism(parallelism);
+        properties.setImportDirectory(importDirectory.toString());
+        return new EmployeeService(CLOCK, properties);
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.write(importDirectory.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
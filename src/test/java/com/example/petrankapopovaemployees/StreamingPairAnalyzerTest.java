@@ -0,0 +1,99 @@
+package com.example.petrankapopovaemployees;
+
+import com.example.petrankapopovaemployees.entity.EmployeePair;
+import com.example.petrankapopovaemployees.entity.EmployeeProject;
+import com.example.petrankapopovaemployees.service.AssignmentTable;
+import com.example.petrankapopovaemployees.service.PairOverlapEngine;
+import com.example.petrankapopovaemployees.service.StreamingPairAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingPairAnalyzerTest {
+
+    @Test
+    public void testFinish_matchesEngineOnSortedInput() {
+        Random random = new Random(11);
+        for (int run = 0; run < 20; run++) {
+            List<EmployeeProject> employeeProjects = new ArrayList<>(PairOverlapEngineTest.randomProjects(random, 300));
+            employeeProjects.sort(Comparator.comparing(EmployeeProject::getDateFrom));
+
+            StreamingPairAnalyzer analyzer = new StreamingPairAnalyzer(0);
+            feed(analyzer, employeeProjects);
+
+            assertEquals(asSet(new PairOverlapEngine().accumulate(employeeProjects).toEmployeePairs()),
+                    asSet(analyzer.finish().toEmployeePairs()));
+        }
+    }
+
+    @Test
+    public void testFinish_absorbsDisorderWithinWindow() {
+        Random random = new Random(12);
+        List<EmployeeProject> employeeProjects = new ArrayList<>(PairOverlapEngineTest.randomProjects(random, 500));
+        employeeProjects.sort(Comparator.comparing(EmployeeProject::getDateFrom));
+        // Swap neighbours so rows are at most a few positions away from their sorted place
+        for (int i = 0; i + 1 < employeeProjects.size(); i += 3) {
+            Collections.swap(employeeProjects, i, i + 1);
+        }
+
+        StreamingPairAnalyzer analyzer = new StreamingPairAnalyzer(4);
+        feed(analyzer, employeeProjects);
+
+        assertEquals(asSet(new PairOverlapEngine().accumulate(employeeProjects).toEmployeePairs()),
+                asSet(analyzer.finish().toEmployeePairs()));
+    }
+
+    @Test
+    public void testFinish_coalescingMatchesCoalescingEngine() {
+        Random random = new Random(13);
+        for (int run = 0; run < 20; run++) {
+            List<EmployeeProject> employeeProjects = new ArrayList<>(PairOverlapEngineTest.randomProjects(random, 300));
+            employeeProjects.sort(Comparator.comparing(EmployeeProject::getDateFrom));
+            AssignmentTable table = AssignmentTable.of(employeeProjects);
+            table.sortByProjectAndStart();
+            int collapsedRows = table.coalesce();
+
+            StreamingPairAnalyzer analyzer = new StreamingPairAnalyzer(0, true);
+            feed(analyzer, employeeProjects);
+
+            assertEquals(asSet(new PairOverlapEngine().accumulate(table).toEmployeePairs()),
+                    asSet(analyzer.finish().toEmployeePairs()));
+            assertEquals(collapsedRows, analyzer.getCollapsedRows());
+        }
+    }
+
+    @Test
+    public void testAccept_rejectsInputOutOfOrderBeyondWindow() {
+        StreamingPairAnalyzer analyzer = new StreamingPairAnalyzer(1);
+        analyzer.accept(1, 1, 100, 200);
+        analyzer.accept(2, 1, 150, 200);
+
+        assertThrows(StreamingPairAnalyzer.UnsortedInputException.class, () -> analyzer.accept(3, 1, 10, 200));
+    }
+
+    @Test
+    public void testAccept_keepsOnlyActiveAssignments() {
+        StreamingPairAnalyzer analyzer = new StreamingPairAnalyzer(16);
+        // 200k short assignments spread over many projects, never more than a handful active at once
+        for (int i = 0; i < 200_000; i++) {
+            analyzer.accept(i % 50, i % 10, i, i + 30);
+        }
+
+        EmployeePair pair = analyzer.finish().longestPair();
+
+        assertNotNull(pair);
+        assertTrue(analyzer.getMaxActiveCount() < 5_000, "Active set grew to " + analyzer.getMaxActiveCount());
+    }
+
+    private static void feed(StreamingPairAnalyzer analyzer, List<EmployeeProject> employeeProjects) {
+        for (EmployeeProject ep : employeeProjects) {
+            analyzer.accept(ep.getEmpId(), ep.getProjectId(), (int) ep.getDateFrom().toEpochDay(), (int) ep.getDateTo().toEpochDay());
+        }
+    }
+
+    private static Set<EmployeePair> asSet(List<EmployeePair> pairs) {
+        return new HashSet<>(pairs);
+    }
+}